@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.here.flexpolyline.PolylineBuffer;
+import com.here.flexpolyline.PolylineEncoderDecoder;
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+import com.here.flexpolyline.vector.VectorPolylineDecoder;
+
+/**
+ * Scalar decoder of the library against the Vector API decoder, on the same random polylines
+ * as {@link SyntheticBenchmark}. Only built on JDK 17 and newer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class VectorBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int points;
+
+    @Param({"5", "7"})
+    public int precision;
+
+    @Param({"ABSENT", "ALTITUDE"})
+    public ThirdDimension thirdDimension;
+
+    private String encoded;
+    private byte[] bytes;
+    private PolylineBuffer buffer;
+    private VectorPolylineDecoder vectorDecoder;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (!VectorPolylineDecoder.isAvailable()) {
+            throw new IllegalStateException("Vector API not available");
+        }
+        encoded = PolylineEncoderDecoder.encode(RandomPolylines.generate(points), precision, thirdDimension, precision);
+        bytes = encoded.getBytes(StandardCharsets.US_ASCII);
+        buffer = new PolylineBuffer(points);
+        vectorDecoder = new VectorPolylineDecoder();
+    }
+
+    @Benchmark
+    public PolylineBuffer scalarDecode() {
+        return PolylineEncoderDecoder.decode(encoded, buffer);
+    }
+
+    @Benchmark
+    public PolylineBuffer vectorDecode() {
+        return vectorDecoder.decode(encoded, buffer);
+    }
+
+    @Benchmark
+    public PolylineBuffer scalarDecodeBytes() {
+        return PolylineEncoderDecoder.decodeBytes(bytes, 0, bytes.length, buffer);
+    }
+
+    @Benchmark
+    public PolylineBuffer vectorDecodeBytes() {
+        return vectorDecoder.decodeBytes(bytes, 0, bytes.length, buffer);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.here.flexpolyline.BinaryPolyline;
+import com.here.flexpolyline.PolylineBuffer;
+import com.here.flexpolyline.PolylineEncoderDecoder.LatLngZ;
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * Encode and decode the binary form of random polylines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int points;
+
+    @Param({"5"})
+    public int precision;
+
+    @Param({"ABSENT", "ALTITUDE"})
+    public ThirdDimension thirdDimension;
+
+    private List<LatLngZ> coordinates;
+    private byte[] binary;
+    private PolylineBuffer buffer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        coordinates = RandomPolylines.generate(points);
+        binary = BinaryPolyline.encode(coordinates, precision, thirdDimension, precision);
+        buffer = new PolylineBuffer(points);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return BinaryPolyline.encode(coordinates, precision, thirdDimension, precision);
+    }
+
+    @Benchmark
+    public PolylineBuffer decodeBinary() {
+        return BinaryPolyline.decode(binary, 0, binary.length, buffer);
+    }
+}
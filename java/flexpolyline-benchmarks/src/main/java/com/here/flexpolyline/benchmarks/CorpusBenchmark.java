@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.here.flexpolyline.BatchResult;
+import com.here.flexpolyline.PolylineBuffer;
+import com.here.flexpolyline.PolylineDecoder;
+import com.here.flexpolyline.PolylineEncoder;
+import com.here.flexpolyline.PolylineEncoderDecoder;
+import com.here.flexpolyline.PolylineEncoderDecoder.LatLngZ;
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * Encode {@code test/original.txt} and decode {@code test/round_half_up/encoded.txt}, one operation being the whole file.
+ *
+ * The corpus is looked up relative to the working directory, use {@code -p testDir=...} when not running from {@code java/}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CorpusBenchmark {
+
+    @Param({"../test"})
+    public String testDir;
+
+    private List<DecodedLine> original;
+    private List<String> encoded;
+    private PolylineBuffer buffer;
+    private PolylineEncoder encoder;
+    private PolylineDecoder decoder;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path dir = Paths.get(testDir);
+        original = parseDecodedFile(dir.resolve("original.txt"));
+        encoded = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(dir.resolve(Paths.get("round_half_up", "encoded.txt")))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                encoded.add(line.trim());
+            }
+        }
+        buffer = new PolylineBuffer();
+        encoder = new PolylineEncoder(5, ThirdDimension.ABSENT, 0);
+        decoder = new PolylineDecoder();
+    }
+
+    @Benchmark
+    public void encode(Blackhole blackhole) {
+        for (DecodedLine line : original) {
+            blackhole.consume(PolylineEncoderDecoder.encode(line.coordinates, line.precision, line.thirdDimension, line.thirdDimPrecision));
+        }
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) {
+        for (String line : encoded) {
+            blackhole.consume(PolylineEncoderDecoder.decode(line));
+        }
+    }
+
+    @Benchmark
+    public void decodeIntoBuffer(Blackhole blackhole) {
+        for (String line : encoded) {
+            blackhole.consume(PolylineEncoderDecoder.decode(line, buffer));
+        }
+    }
+
+    @Benchmark
+    public void encodeReusable(Blackhole blackhole) {
+        for (DecodedLine line : original) {
+            blackhole.consume(encoder.reset(line.precision, line.thirdDimension, line.thirdDimPrecision).addAll(line.coordinates).getEncoded());
+        }
+    }
+
+    @Benchmark
+    public void decodeReusable(Blackhole blackhole) {
+        for (String line : encoded) {
+            blackhole.consume(decoder.reset(line).decode(buffer));
+        }
+    }
+
+    @Benchmark
+    public List<BatchResult<List<LatLngZ>>> decodeAll() {
+        return PolylineEncoderDecoder.decodeAll(encoded);
+    }
+
+    private static final class DecodedLine {
+        final int precision;
+        final int thirdDimPrecision;
+        final ThirdDimension thirdDimension;
+        final List<LatLngZ> coordinates;
+
+        DecodedLine(int precision, int thirdDimPrecision, ThirdDimension thirdDimension, List<LatLngZ> coordinates) {
+            this.precision = precision;
+            this.thirdDimPrecision = thirdDimPrecision;
+            this.thirdDimension = thirdDimension;
+            this.coordinates = coordinates;
+        }
+    }
+
+    // Format: {(precision, thirdDimPrecision?, thirdDim?); [(c1Lat, c1Lng, c1Alt), ]}
+    private static List<DecodedLine> parseDecodedFile(Path file) throws IOException {
+        List<DecodedLine> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.replaceAll("\\s|\\(|\\)", "");
+                String[] parts = line.substring(1, line.length() - 1).split(";");
+                String[] meta = parts[0].split(",");
+                int precision = Integer.parseInt(meta[0]);
+                int thirdDimPrecision = meta.length > 1 ? Integer.parseInt(meta[1]) : 0;
+                ThirdDimension thirdDimension = meta.length > 2 ? ThirdDimension.fromNum(Integer.parseInt(meta[2])) : ThirdDimension.ABSENT;
+                boolean hasZ = thirdDimension != ThirdDimension.ABSENT;
+
+                List<LatLngZ> coordinates = new ArrayList<>();
+                String[] values = parts[1].substring(1, parts[1].length() - 1).split(",");
+                for (int i = 0; i < values.length && !values[i].isEmpty(); ) {
+                    double lat = Double.parseDouble(values[i++]);
+                    double lng = Double.parseDouble(values[i++]);
+                    double z = hasZ ? Double.parseDouble(values[i++]) : 0;
+                    coordinates.add(new LatLngZ(lat, lng, z));
+                }
+                lines.add(new DecodedLine(precision, thirdDimPrecision, thirdDimension, coordinates));
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.here.flexpolyline.PolylineEncoderDecoder;
+import com.here.flexpolyline.PolylineGeometry;
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * Streaming {@link PolylineGeometry} operations, decoding no point object.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int points;
+
+    @Param({"5"})
+    public int precision;
+
+    @Param({"ABSENT", "ALTITUDE"})
+    public ThirdDimension thirdDimension;
+
+    private String encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        encoded = PolylineEncoderDecoder.encode(RandomPolylines.generate(points), precision, thirdDimension, precision);
+    }
+
+    @Benchmark
+    public double length() {
+        return PolylineGeometry.length(encoded);
+    }
+
+    @Benchmark
+    public int firstOutside() {
+        // Random points in [0, 1), all inside
+        return PolylineGeometry.firstOutside(encoded, 0, 0, 1, 1);
+    }
+}
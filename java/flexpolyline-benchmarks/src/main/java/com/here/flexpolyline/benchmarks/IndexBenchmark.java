@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.here.flexpolyline.PolylineBuffer;
+import com.here.flexpolyline.PolylineEncoderDecoder;
+import com.here.flexpolyline.PolylineIndex;
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * Decode a window of up to 100 points in the middle of a polyline, seeking from the closest checkpoint
+ * of a {@link PolylineIndex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IndexBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int points;
+
+    @Param({"5"})
+    public int precision;
+
+    @Param({"ABSENT", "ALTITUDE"})
+    public ThirdDimension thirdDimension;
+
+    private String encoded;
+    private PolylineBuffer buffer;
+    private PolylineIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        encoded = PolylineEncoderDecoder.encode(RandomPolylines.generate(points), precision, thirdDimension, precision);
+        buffer = new PolylineBuffer(100);
+        index = PolylineIndex.build(encoded, 64);
+    }
+
+    @Benchmark
+    public PolylineBuffer decodeIndexedWindow() {
+        int from = points / 2;
+        return index.decode(encoded, from, Math.min(points, from + 100), buffer);
+    }
+}
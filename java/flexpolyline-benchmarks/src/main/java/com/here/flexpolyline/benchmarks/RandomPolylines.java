@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.here.flexpolyline.PolylineEncoderDecoder.LatLngZ;
+
+/*
+ * Random polylines shared by the benchmarks, generated like in the very long line test.
+ */
+final class RandomPolylines {
+
+    private RandomPolylines() {
+    }
+
+    // Same seed for every benchmark, so that results of the same length can be compared
+    static List<LatLngZ> generate(int points) {
+        Random random = new Random(42);
+        List<LatLngZ> coordinates = new ArrayList<>(points);
+        for (int i = 0; i < points; i++) {
+            coordinates.add(new LatLngZ(random.nextDouble(), random.nextDouble(), random.nextDouble()));
+        }
+        return coordinates;
+    }
+}
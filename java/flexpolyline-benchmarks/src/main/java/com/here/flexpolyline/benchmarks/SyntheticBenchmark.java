@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.here.flexpolyline.PolylineBuffer;
+import com.here.flexpolyline.PolylineEncoderDecoder;
+import com.here.flexpolyline.PolylineEncoderDecoder.LatLngZ;
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * Encode and decode random polylines, generated like in the very long line test,
+ * for every combination of length, precision and third dimension.
+ *
+ * The full matrix is large, narrow it down with e.g. {@code -p points=1000 -p precision=5}. Benchmarks of
+ * the other features run on the same polylines for a few lengths only, with precision 5.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SyntheticBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int points;
+
+    @Param({"0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15"})
+    public int precision;
+
+    @Param({"ABSENT", "LEVEL", "ALTITUDE", "ELEVATION", "RESERVED1", "RESERVED2", "CUSTOM1", "CUSTOM2"})
+    public ThirdDimension thirdDimension;
+
+    private List<LatLngZ> coordinates;
+    private String encoded;
+    private PolylineBuffer buffer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        coordinates = RandomPolylines.generate(points);
+        encoded = PolylineEncoderDecoder.encode(coordinates, precision, thirdDimension, precision);
+        buffer = new PolylineBuffer(points);
+    }
+
+    @Benchmark
+    public String encode() {
+        return PolylineEncoderDecoder.encode(coordinates, precision, thirdDimension, precision);
+    }
+
+    @Benchmark
+    public List<LatLngZ> decode() {
+        return PolylineEncoderDecoder.decode(encoded);
+    }
+
+    @Benchmark
+    public PolylineBuffer decodeIntoBuffer() {
+        return PolylineEncoderDecoder.decode(encoded, buffer);
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.cli;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+ * Runs a command over a file with a pool of threads.
+ *
+ * The input is memory-mapped in chunks ending on a line terminator, so that no line is split across
+ * threads. Chunks are converted in parallel and written in input order as they complete, with at most
+ * two chunks per thread held in memory, whatever the size of the input.
+ */
+final class BulkProcessor {
+
+    static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+
+    private final Options options;
+    private final int chunkSize;
+    private final ThreadLocal<LineHandler> handlers;
+
+    private long lines;
+    private long bytes;
+    private long errors;
+
+    BulkProcessor(Options options) {
+        this(options, DEFAULT_CHUNK_SIZE);
+    }
+
+    // Small chunks for the tests
+    BulkProcessor(Options options, int chunkSize) {
+        this.options = options;
+        this.chunkSize = chunkSize;
+        this.handlers = ThreadLocal.withInitial(() -> options.command.newHandler(options));
+    }
+
+    long getLines() {
+        return lines;
+    }
+
+    long getBytes() {
+        return bytes;
+    }
+
+    long getErrors() {
+        return errors;
+    }
+
+    /*
+     * Process the whole input. Invalid lines are counted, not thrown; `err` receives those not reported
+     * to the output.
+     */
+    void run(PrintStream err) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(options.threads, task -> {
+            Thread thread = new Thread(task, "flexpolyline-cli");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (FileChannel input = FileChannel.open(options.input, StandardOpenOption.READ);
+             WritableByteChannel output = openOutput()) {
+            Deque<Future<ChunkResult>> inFlight = new ArrayDeque<>();
+            long size = input.size();
+            long position = 0;
+            while (position < size) {
+                MappedByteBuffer chunk = mapChunk(input, position, size);
+                position += chunk.limit();
+                inFlight.add(executor.submit(() -> process(chunk)));
+                if (inFlight.size() >= options.threads * 2) {
+                    write(inFlight.remove(), output, err);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                write(inFlight.remove(), output, err);
+            }
+            bytes = size;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private WritableByteChannel openOutput() throws IOException {
+        if (options.output == null) {
+            return Channels.newChannel(new FileOutputStream(FileDescriptor.out));
+        }
+        return FileChannel.open(options.output, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                StandardOpenOption.WRITE);
+    }
+
+    /*
+     * Map up to chunkSize bytes from `position`, cut after the last line terminator unless the end of the
+     * input is reached. Lines longer than a chunk get a larger mapping.
+     */
+    private MappedByteBuffer mapChunk(FileChannel input, long position, long size) throws IOException {
+        long length = chunkSize;
+        while (true) {
+            length = Math.min(length, size - position);
+            MappedByteBuffer chunk = input.map(FileChannel.MapMode.READ_ONLY, position, length);
+            if (position + length == size) {
+                return chunk;
+            }
+            for (int i = (int) length - 1; i >= 0; i--) {
+                if (chunk.get(i) == '\n') {
+                    chunk.limit(i + 1);
+                    return chunk;
+                }
+            }
+            if (length == Integer.MAX_VALUE) {
+                throw new IOException("Line longer than " + Integer.MAX_VALUE + " bytes at offset " + position);
+            }
+            length = Math.min(length * 2, Integer.MAX_VALUE);
+        }
+    }
+
+    private ChunkResult process(ByteBuffer chunk) {
+        LineHandler handler = handlers.get();
+        boolean toOutput = !options.command.reportsToOutput();
+        ChunkResult result = new ChunkResult(toOutput ? chunk.limit() : 0);
+        ByteBuffer line = chunk.duplicate();
+        int limit = chunk.limit();
+        int start = 0;
+        while (start < limit) {
+            int end = start;
+            while (end < limit && chunk.get(end) != '\n') {
+                end++;
+            }
+            int next = end + 1;
+            if (end > start && chunk.get(end - 1) == '\r') {
+                end--;
+            }
+            line.limit(end);
+            line.position(start);
+            int mark = result.out.length();
+            try {
+                handler.handle(line, result.out);
+            } catch (IllegalArgumentException e) {
+                result.out.setLength(mark);
+                result.error(result.lines, e.getMessage());
+            }
+            if (toOutput) {
+                result.out.append('\n');
+            }
+            result.lines++;
+            start = next;
+        }
+        return result;
+    }
+
+    private void write(Future<ChunkResult> future, WritableByteChannel output, PrintStream err) throws IOException {
+        ChunkResult result;
+        try {
+            result = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+        boolean reportsToOutput = options.command.reportsToOutput();
+        for (int i = 0; i < result.errorLines.size(); i++) {
+            String report = "line " + (lines + result.errorLines.get(i) + 1) + ": " + result.errorMessages.get(i);
+            if (reportsToOutput) {
+                result.out.append(report).append('\n');
+            } else {
+                err.println(report);
+            }
+        }
+        result.out.writeTo(output);
+        lines += result.lines;
+        errors += result.errorLines.size();
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.cli;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Output of a chunk of the input, kept until the chunks before it are written.
+ */
+final class ChunkResult {
+
+    final OutputBuffer out;
+    int lines;
+    // Line index within the chunk and message of every invalid line
+    final List<Integer> errorLines = new ArrayList<>();
+    final List<String> errorMessages = new ArrayList<>();
+
+    ChunkResult(int capacity) {
+        this.out = new OutputBuffer(capacity);
+    }
+
+    void error(int line, String message) {
+        errorLines.add(line);
+        errorMessages.add(message);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.cli;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.here.flexpolyline.PolylineBuffer;
+import com.here.flexpolyline.PolylineDecoder;
+import com.here.flexpolyline.PolylineEncoderDecoder;
+import com.here.flexpolyline.ValidationResult;
+
+/*
+ * Commands of the command line tool. All of them read one polyline per line.
+ */
+enum Command {
+
+    /*
+     * Decoded lines like test/original.txt to encoded lines, with the precisions of each line.
+     */
+    ENCODE {
+        @Override
+        LineHandler newHandler(Options options) {
+            TextFormat format = new TextFormat();
+            PolylineBuffer buffer = new PolylineBuffer();
+            return (line, out) -> {
+                format.parse(ascii(line), buffer);
+                out.append(PolylineEncoderDecoder.encode(buffer.lat(), buffer.lng(), buffer.z(), 0, buffer.size(),
+                        format.precision, format.thirdDimension, format.thirdDimPrecision));
+            };
+        }
+    },
+
+    /*
+     * Encoded lines to decoded lines like test/round_half_up/decoded.txt.
+     */
+    DECODE {
+        @Override
+        LineHandler newHandler(Options options) {
+            PolylineDecoder decoder = new PolylineDecoder();
+            PolylineBuffer buffer = new PolylineBuffer();
+            return (line, out) -> {
+                decoder.reset(line);
+                decoder.decode(buffer);
+                TextFormat.format(decoder.getPrecision(), decoder.getThirdDimPrecision(), buffer, options.digits, out);
+            };
+        }
+    },
+
+    /*
+     * Encoded lines to encoded lines with the precisions and third dimension of the options.
+     */
+    TRANSCODE {
+        @Override
+        LineHandler newHandler(Options options) {
+            return (line, out) -> out.append(PolylineEncoderDecoder.transcode(ascii(line),
+                    options.precision, options.thirdDimension, options.thirdDimPrecision));
+        }
+    },
+
+    /*
+     * Encoded lines are only checked; invalid lines are reported instead of converted lines.
+     */
+    VALIDATE {
+        @Override
+        LineHandler newHandler(Options options) {
+            return (line, out) -> {
+                ValidationResult result = PolylineEncoderDecoder.validateBytes(line);
+                if (!result.isValid()) {
+                    throw new IllegalArgumentException(result.getMessage());
+                }
+            };
+        }
+
+        @Override
+        boolean reportsToOutput() {
+            return true;
+        }
+    };
+
+    /*
+     * New handler for a single thread.
+     */
+    abstract LineHandler newHandler(Options options);
+
+    /*
+     * Whether invalid lines are written to the output, rather than to stderr next to an empty output line.
+     */
+    boolean reportsToOutput() {
+        return false;
+    }
+
+    static Command fromName(String name) {
+        for (Command command : values()) {
+            if (command.name().equalsIgnoreCase(name)) {
+                return command;
+            }
+        }
+        return null;
+    }
+
+    private static String ascii(ByteBuffer line) {
+        if (line.hasArray()) {
+            return new String(line.array(), line.arrayOffset() + line.position(), line.remaining(),
+                              StandardCharsets.ISO_8859_1);
+        }
+        byte[] bytes = new byte[line.remaining()];
+        line.duplicate().get(bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
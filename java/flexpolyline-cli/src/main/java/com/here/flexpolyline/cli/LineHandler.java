@@ -0,0 +1,22 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.cli;
+
+import java.nio.ByteBuffer;
+
+/*
+ * Converts one input line, without its line terminator, at a time. Instances are confined to a thread
+ * and reuse their buffers from line to line.
+ */
+interface LineHandler {
+
+    /*
+     * Append the output of `line`, without line terminator, or throw IllegalArgumentException when
+     * the line is invalid.
+     */
+    void handle(ByteBuffer line, OutputBuffer out);
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.cli;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/*
+ * Parsed command line: <command> [options] <input> [<output>]
+ */
+final class Options {
+
+    static final String USAGE = "Usage: flexpolyline-cli encode|decode|transcode|validate [options] <input> [<output>]\n"
+            + "  Reads one polyline per line of <input> and writes one line per input line to <output>,\n"
+            + "  or to stdout when omitted. validate only writes the invalid lines.\n"
+            + "Options:\n"
+            + "  --threads <n>                      worker threads, defaults to the available processors\n"
+            + "  --precision <n>                    transcode: precision of the output, defaults to 5\n"
+            + "  --third-dimension <name|num>       transcode: third dimension of the output, defaults to ABSENT\n"
+            + "  --third-dimension-precision <n>    transcode: third dimension precision of the output, defaults to 0\n"
+            + "  --original-precision               decode: print the precisions of each polyline instead of 15 digits\n"
+            + "  --quiet                            do not print the throughput to stderr\n";
+
+    Command command;
+    Path input;
+    Path output;
+    int threads = Runtime.getRuntime().availableProcessors();
+    int precision = 5;
+    ThirdDimension thirdDimension = ThirdDimension.ABSENT;
+    int thirdDimPrecision = 0;
+    int digits = 15;
+    boolean quiet;
+
+    /*
+     * Throws IllegalArgumentException with the offending argument.
+     */
+    static Options parse(String[] args) {
+        Options options = new Options();
+        if (args.length == 0 || (options.command = Command.fromName(args[0])) == null) {
+            throw new IllegalArgumentException(args.length == 0 ? "Missing command" : "Invalid command " + args[0]);
+        }
+        int i = 1;
+        for (; i < args.length && args[i].startsWith("--"); i++) {
+            String name = args[i];
+            switch (name) {
+                case "--threads":
+                    options.threads = intValue(args, ++i, name);
+                    if (options.threads <= 0) {
+                        throw new IllegalArgumentException("Invalid " + name);
+                    }
+                    break;
+                case "--precision":
+                    options.precision = intValue(args, ++i, name);
+                    break;
+                case "--third-dimension":
+                    options.thirdDimension = thirdDimension(value(args, ++i, name));
+                    break;
+                case "--third-dimension-precision":
+                    options.thirdDimPrecision = intValue(args, ++i, name);
+                    break;
+                case "--original-precision":
+                    options.digits = -1;
+                    break;
+                case "--quiet":
+                    options.quiet = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid option " + name);
+            }
+        }
+        if (i == args.length || args.length - i > 2) {
+            throw new IllegalArgumentException(i == args.length ? "Missing input" : "Invalid argument " + args[i + 2]);
+        }
+        options.input = Paths.get(args[i]);
+        options.output = i + 1 < args.length ? Paths.get(args[i + 1]) : null;
+        return options;
+    }
+
+    private static String value(String[] args, int index, String name) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value of " + name);
+        }
+        return args[index];
+    }
+
+    private static int intValue(String[] args, int index, String name) {
+        try {
+            return Integer.parseInt(value(args, index, name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name);
+        }
+    }
+
+    private static ThirdDimension thirdDimension(String value) {
+        for (ThirdDimension dim : ThirdDimension.values()) {
+            if (dim.name().equalsIgnoreCase(value) || Integer.toString(dim.getNum()).equals(value)) {
+                return dim;
+            }
+        }
+        throw new IllegalArgumentException("Invalid --third-dimension");
+    }
+}
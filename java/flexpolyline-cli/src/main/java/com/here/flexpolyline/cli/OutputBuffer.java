@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.cli;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/*
+ * Growing array of ASCII output, written to a channel in one go.
+ */
+final class OutputBuffer {
+
+    private byte[] bytes;
+    private int length;
+
+    OutputBuffer(int capacity) {
+        this.bytes = new byte[Math.max(capacity, 64)];
+    }
+
+    OutputBuffer append(CharSequence text) {
+        final int count = text.length();
+        ensureCapacity(length + count);
+        for (int i = 0; i < count; i++) {
+            bytes[length++] = (byte) text.charAt(i);
+        }
+        return this;
+    }
+
+    OutputBuffer append(char c) {
+        ensureCapacity(length + 1);
+        bytes[length++] = (byte) c;
+        return this;
+    }
+
+    int length() {
+        return length;
+    }
+
+    /*
+     * Drop what was appended after `length`, e.g. the partial output of a failed line.
+     */
+    void setLength(int length) {
+        this.length = length;
+    }
+
+    void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.cli;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * Command line tool encoding, decoding, transcoding and validating files with one polyline per line.
+ *
+ * <pre>
+ * java -jar flexpolyline-cli.jar encode|decode|transcode|validate [options] &lt;input&gt; [&lt;output&gt;]
+ * </pre>
+ *
+ * Decoded lines use the format of the shared test files, e.g. {@code test/original.txt}. The input is
+ * memory-mapped and split on line boundaries across threads; the output keeps the order of the input.
+ * The exit status is 0 when every line is valid, 1 when some are not and 2 on usage or I/O errors.
+ */
+public final class PolylineCli {
+
+    private PolylineCli() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.err));
+    }
+
+    /**
+     * @param args command line arguments
+     * @param err target of errors, usage and throughput
+     * @return exit status
+     */
+    public static int run(String[] args, PrintStream err) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.print(Options.USAGE);
+            return 2;
+        }
+        return run(new BulkProcessor(options), options, err);
+    }
+
+    static int run(BulkProcessor processor, Options options, PrintStream err) {
+        long start = System.nanoTime();
+        try {
+            processor.run(err);
+        } catch (IOException e) {
+            err.println(e.getMessage() != null ? e.getMessage() : e.toString());
+            return 2;
+        }
+        double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+        if (!options.quiet) {
+            double megabytes = processor.getBytes() / (1024.0 * 1024.0);
+            err.print(String.format(Locale.ROOT, "%s: %d lines, %d invalid, %.1f MB in %.3f s, %.0f lines/s, %.1f MB/s%n",
+                    options.command.name().toLowerCase(Locale.ROOT), processor.getLines(), processor.getErrors(),
+                    megabytes, seconds, processor.getLines() / seconds, megabytes / seconds));
+        }
+        return processor.getErrors() == 0 ? 0 : 1;
+    }
+}
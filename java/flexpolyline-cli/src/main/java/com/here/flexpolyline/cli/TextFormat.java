@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.cli;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import com.here.flexpolyline.PolylineBuffer;
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/*
+ * Decoded polyline lines of the shared test files, e.g. test/original.txt:
+ *
+ *   {(precision); [(lat, lng), ...]}
+ *   {(precision, thirdDimPrecision, thirdDimension); [(lat, lng, z), ...]}
+ *
+ * where every coordinate is followed by ", ", including the last one.
+ */
+final class TextFormat {
+
+    // Header of the last parsed line
+    int precision;
+    int thirdDimPrecision;
+    ThirdDimension thirdDimension;
+
+    /*
+     * Parse a decoded line into `buffer`, replacing its content.
+     */
+    void parse(String line, PolylineBuffer buffer) {
+        if (!line.startsWith("{(") || !line.endsWith("]}")) {
+            throw invalidLine();
+        }
+        int headerEnd = line.indexOf("); [", 2);
+        if (headerEnd < 0) {
+            throw invalidLine();
+        }
+        String[] header = line.substring(2, headerEnd).split(", ");
+        try {
+            if (header.length == 1) {
+                precision = Integer.parseInt(header[0]);
+                thirdDimPrecision = 0;
+                thirdDimension = ThirdDimension.ABSENT;
+            } else if (header.length == 3) {
+                precision = Integer.parseInt(header[0]);
+                thirdDimPrecision = Integer.parseInt(header[1]);
+                int num = Integer.parseInt(header[2]);
+                if (num < 1 || num > 7) {
+                    throw invalidLine();
+                }
+                thirdDimension = ThirdDimension.fromNum(num);
+            } else {
+                throw invalidLine();
+            }
+        } catch (NumberFormatException e) {
+            throw invalidLine();
+        }
+
+        boolean hasZ = thirdDimension != ThirdDimension.ABSENT;
+        buffer.clear(thirdDimension);
+        int end = line.length() - 2;
+        int pos = headerEnd + 4;
+        while (pos < end) {
+            if (line.charAt(pos) != '(') {
+                throw invalidLine();
+            }
+            int close = line.indexOf("), ", pos);
+            if (close < 0 || close >= end) {
+                throw invalidLine();
+            }
+            String[] values = line.substring(pos + 1, close).split(", ");
+            if (values.length != (hasZ ? 3 : 2)) {
+                throw invalidLine();
+            }
+            try {
+                buffer.add(Double.parseDouble(values[0]), Double.parseDouble(values[1]),
+                           hasZ ? Double.parseDouble(values[2]) : 0);
+            } catch (NumberFormatException e) {
+                throw invalidLine();
+            }
+            pos = close + 3;
+        }
+    }
+
+    /*
+     * Format the points of `buffer` with `digits` decimals, or with the precisions of the header when negative.
+     */
+    static void format(int precision, int thirdDimPrecision, PolylineBuffer buffer, int digits, OutputBuffer out) {
+        boolean hasZ = buffer.hasThirdDimension();
+        out.append("{(").append(Integer.toString(precision));
+        if (hasZ) {
+            out.append(", ").append(Integer.toString(thirdDimPrecision))
+               .append(", ").append(Integer.toString(buffer.getThirdDimension().getNum()));
+        }
+        out.append("); [");
+        int latDigits = digits < 0 ? precision : digits;
+        int zDigits = digits < 0 ? thirdDimPrecision : digits;
+        for (int i = 0; i < buffer.size(); i++) {
+            out.append("(").append(format(buffer.lat(i), latDigits))
+               .append(", ").append(format(buffer.lng(i), latDigits));
+            if (hasZ) {
+                out.append(", ").append(format(buffer.z(i), zDigits));
+            }
+            out.append("), ");
+        }
+        out.append("]}");
+    }
+
+    /*
+     * Exact decimal value of the double rounded to `digits` decimals, keeping the sign of negative
+     * values rounded to zero. Same output as the command line tool of the Rust implementation.
+     */
+    static String format(double value, int digits) {
+        String text = new BigDecimal(value).setScale(digits, RoundingMode.HALF_EVEN).toPlainString();
+        if (Double.doubleToRawLongBits(value) < 0 && text.charAt(0) != '-') {
+            return "-" + text;
+        }
+        return text;
+    }
+
+    private static IllegalArgumentException invalidLine() {
+        return new IllegalArgumentException("Invalid decoded polyline");
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.here.flexpolyline.PolylineEncoderDecoder;
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * Validate the command line tool against the shared test files.
+ */
+public class PolylineCliTest {
+
+    private static final Path ORIGINAL = Paths.get("../test/original.txt");
+    private static final Path ENCODED = Paths.get("../test/round_half_up/encoded.txt");
+    private static final Path DECODED = Paths.get("../test/round_half_up/decoded.txt");
+
+    private final Path directory;
+
+    private PolylineCliTest() throws IOException {
+        directory = Files.createTempDirectory("flexpolyline-cli");
+    }
+
+    private void testEncode() throws IOException {
+        Path output = directory.resolve("encoded.txt");
+        assertEquals(run("encode", "--quiet", ORIGINAL.toString(), output.toString()), 0);
+        assertEquals(readLines(output), readLines(ENCODED));
+    }
+
+    private void testDecode() throws IOException {
+        Path output = directory.resolve("decoded.txt");
+        assertEquals(run("decode", "--quiet", ENCODED.toString(), output.toString()), 0);
+        assertEquals(readLines(output), readLines(DECODED));
+    }
+
+    private void testSmallChunks() throws IOException {
+        // Many chunks over 3 threads, in the order of the input
+        Path single = directory.resolve("single.txt");
+        Path chunked = directory.resolve("chunked.txt");
+        assertEquals(run("decode", "--quiet", "--threads", "1", ENCODED.toString(), single.toString()), 0);
+        Options options = Options.parse(new String[] {"decode", "--quiet", "--threads", "3",
+                                                      ENCODED.toString(), chunked.toString()});
+        assertEquals(PolylineCli.run(new BulkProcessor(options, 1024), options, System.err), 0);
+        assertEquals(readLines(chunked), readLines(single));
+
+        // Lines longer than a chunk get a larger mapping
+        options = Options.parse(new String[] {"encode", "--quiet", "--threads", "2",
+                                              ORIGINAL.toString(), chunked.toString()});
+        assertEquals(PolylineCli.run(new BulkProcessor(options, 16), options, System.err), 0);
+        assertEquals(readLines(chunked), readLines(ENCODED));
+    }
+
+    private void testTranscode() throws IOException {
+        Path output = directory.resolve("transcoded.txt");
+        assertEquals(run("transcode", "--quiet", "--precision", "6", "--third-dimension", "altitude",
+                         "--third-dimension-precision", "2", ENCODED.toString(), output.toString()), 0);
+        List<String> expected = new ArrayList<>();
+        for (String line : readLines(ENCODED)) {
+            expected.add(PolylineEncoderDecoder.transcode(line, 6, ThirdDimension.ALTITUDE, 2));
+        }
+        assertEquals(readLines(output), expected);
+    }
+
+    private void testInvalidLines() throws IOException {
+        Path input = directory.resolve("invalid.txt");
+        Files.write(input, "BFoz5xJ67i1B1B7PzIhaxL7Y\r\nBFoz5xJ67i1B1B7PzIhaxL7\nBF*\nBFoz5xJ67i1B1B7PzIhaxL7Y"
+                .getBytes(StandardCharsets.US_ASCII));
+
+        Path output = directory.resolve("validated.txt");
+        assertEquals(run("validate", "--quiet", input.toString(), output.toString()), 1);
+        List<String> reports = readLines(output);
+        assertEquals(reports.size(), 2);
+        assertTrue(reports.get(0).startsWith("line 2: "));
+        assertTrue(reports.get(1).startsWith("line 3: "));
+
+        // Converting commands keep an empty line in place of the invalid ones
+        Path decoded = directory.resolve("decoded-invalid.txt");
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int status = PolylineCli.run(new String[] {"decode", input.toString(), decoded.toString()},
+                                     new PrintStream(err, true));
+        assertEquals(status, 1);
+        List<String> lines = readLines(decoded);
+        assertEquals(lines.size(), 4);
+        assertEquals(lines.get(0), lines.get(3));
+        assertEquals(lines.get(1), "");
+        assertEquals(lines.get(2), "");
+        String messages = new String(err.toByteArray(), StandardCharsets.US_ASCII);
+        assertTrue(messages.contains("line 2: "));
+        assertTrue(messages.contains("line 3: "));
+        assertTrue(messages.contains("decode: 4 lines, 2 invalid"));
+    }
+
+    private void testUsage() {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(err, true);
+        assertEquals(PolylineCli.run(new String[0], out), 2);
+        assertEquals(PolylineCli.run(new String[] {"compress", "input.txt"}, out), 2);
+        assertEquals(PolylineCli.run(new String[] {"decode", "--threads", "0", "input.txt"}, out), 2);
+        assertEquals(PolylineCli.run(new String[] {"decode", "--third-dimension", "8", "input.txt"}, out), 2);
+        assertEquals(PolylineCli.run(new String[] {"decode", "--precision"}, out), 2);
+        assertEquals(PolylineCli.run(new String[] {"decode", "a.txt", "b.txt", "c.txt"}, out), 2);
+        assertEquals(PolylineCli.run(new String[] {"decode", "--quiet", directory.resolve("missing.txt").toString()}, out), 2);
+        assertTrue(new String(err.toByteArray(), StandardCharsets.US_ASCII).contains("Usage: "));
+    }
+
+    private void testFormat() {
+        assertEquals(TextFormat.format(0.5, 0), "0");
+        assertEquals(TextFormat.format(1.5, 0), "2");
+        assertEquals(TextFormat.format(-0.0001, 2), "-0.00");
+        assertEquals(TextFormat.format(0.1, 20), "0.10000000000000000555");
+    }
+
+    private void deleteDirectory() throws IOException {
+        for (Path file : Files.newDirectoryStream(directory)) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    private int run(String... args) {
+        return PolylineCli.run(args, System.err);
+    }
+
+    // Lines without terminator, keeping empty lines but the one after the last terminator
+    private static List<String> readLines(Path file) throws IOException {
+        List<String> lines = new ArrayList<>(Arrays.asList(
+                new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).split("\n", -1)));
+        if (lines.get(lines.size() - 1).isEmpty()) {
+            lines.remove(lines.size() - 1);
+        }
+        return lines;
+    }
+
+    private static void assertEquals(Object lhs, Object rhs) {
+        if (lhs != rhs && !lhs.equals(rhs)) {
+            throw new RuntimeException("Assert failed, " + lhs + " != " + rhs);
+        }
+    }
+
+    private static void assertTrue(boolean value) {
+        if (!value) {
+            throw new RuntimeException("Assert failed");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        PolylineCliTest test = new PolylineCliTest();
+        try {
+            test.testEncode();
+            test.testDecode();
+            test.testSmallChunks();
+            test.testTranscode();
+            test.testInvalidLines();
+            test.testUsage();
+            test.testFormat();
+        } finally {
+            test.deleteDirectory();
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.flow;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.here.flexpolyline.PolylineBuffer;
+import com.here.flexpolyline.PolylineDecoder;
+import com.here.flexpolyline.PolylineEncoderDecoder.LatLngZ;
+
+/**
+ * {@link Flow.Publisher} decoding an encoded polyline as subscribers request points.
+ *
+ * Each subscription has its own {@link PolylineDecoder} and decodes at most one item ahead of the
+ * requested ones, so memory does not depend on the number of points and decoding runs at the pace of
+ * the slowest stage downstream. Items are either single {@link LatLngZ} or {@link PolylineBuffer}
+ * batches of up to a given number of points, which avoid an object per point.
+ *
+ * Signals are emitted from tasks of the given {@link Executor}, one task at a time per subscription.
+ * Malformed input is reported with {@link Flow.Subscriber#onError(Throwable)} carrying the same
+ * {@link IllegalArgumentException} as {@link com.here.flexpolyline.PolylineEncoderDecoder#decode(String)},
+ * after the points before the error.
+ *
+ * The encoded polyline must not change while subscriptions are active. Any number of subscribers
+ * may subscribe, each receiving all points.
+ *
+ * @param <T> type of the published items
+ */
+public final class PolylinePublisher<T> implements Flow.Publisher<T> {
+
+    /*
+     * Next item decoded from `decoder`, null once all points are decoded.
+     */
+    private interface Source<T> {
+        T next(PolylineDecoder decoder);
+    }
+
+    private final CharSequence encoded;
+    private final Executor executor;
+    private final Source<T> source;
+
+    private PolylinePublisher(CharSequence encoded, Executor executor, Source<T> source) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Invalid executor");
+        }
+        this.encoded = encoded;
+        this.executor = executor;
+        this.source = source;
+    }
+
+    /**
+     * Publisher of the points of an encoded polyline, emitted on the common {@link ForkJoinPool}.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @return publisher of the decoded points
+     */
+    public static PolylinePublisher<LatLngZ> points(CharSequence encoded) {
+        return points(encoded, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Publisher of the points of an encoded polyline.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @param executor {@link Executor} emitting the signals
+     * @return publisher of the decoded points
+     */
+    public static PolylinePublisher<LatLngZ> points(CharSequence encoded, Executor executor) {
+        return new PolylinePublisher<>(encoded, executor,
+                decoder -> decoder.next() ? new LatLngZ(decoder.lat(), decoder.lng(), decoder.z()) : null);
+    }
+
+    /**
+     * Publisher of the points of an encoded polyline in batches, emitted on the common {@link ForkJoinPool}.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @param batchSize maximum number of points per batch
+     * @return publisher of batches of decoded points
+     */
+    public static PolylinePublisher<PolylineBuffer> batches(CharSequence encoded, int batchSize) {
+        return batches(encoded, batchSize, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Publisher of the points of an encoded polyline in batches. Every batch but the last one holds
+     * {@code batchSize} points; each is a new {@link PolylineBuffer} owned by the subscriber.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @param batchSize maximum number of points per batch
+     * @param executor {@link Executor} emitting the signals
+     * @return publisher of batches of decoded points
+     */
+    public static PolylinePublisher<PolylineBuffer> batches(CharSequence encoded, int batchSize, Executor executor) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Invalid batchSize");
+        }
+        return new PolylinePublisher<>(encoded, executor, decoder -> {
+            PolylineBuffer batch = new PolylineBuffer(batchSize).clear(decoder.getThirdDimension());
+            while (batch.size() < batchSize && decoder.next()) {
+                batch.add(decoder.lat(), decoder.lng(), decoder.z());
+            }
+            return batch.size() == 0 ? null : batch;
+        });
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Invalid subscriber");
+        }
+        Subscription<T> subscription = new Subscription<>(subscriber, this);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /*
+     * Demand is accumulated by request() and served by drain(), which runs on the executor and never
+     * concurrently with itself: the task is only submitted by the caller raising `pending` from 0.
+     */
+    private static final class Subscription<T> implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final PolylinePublisher<T> publisher;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile IllegalArgumentException invalidRequest;
+
+        // Only accessed by drain()
+        private PolylineDecoder decoder;
+        private T next;
+        private boolean done;
+
+        Subscription(Flow.Subscriber<? super T> subscriber, PolylinePublisher<T> publisher) {
+            this.subscriber = subscriber;
+            this.publisher = publisher;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                // Rule 3.9 of Reactive Streams, signaled by drain()
+                invalidRequest = new IllegalArgumentException("Invalid request " + n);
+                cancelled = true;
+            } else {
+                long current;
+                do {
+                    current = requested.get();
+                    // Demand saturates at Long.MAX_VALUE, meaning unbounded
+                } while (current != Long.MAX_VALUE
+                        && !requested.compareAndSet(current, current > Long.MAX_VALUE - n ? Long.MAX_VALUE : current + n));
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                try {
+                    publisher.executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    cancelled = true;
+                    done = true;
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                finish();
+                if (invalidRequest != null) {
+                    subscriber.onError(invalidRequest);
+                }
+                return;
+            }
+            long emitted = 0;
+            long limit = requested.get();
+            while (true) {
+                if (next == null) {
+                    try {
+                        if (decoder == null) {
+                            decoder = new PolylineDecoder().reset(publisher.encoded);
+                        }
+                        next = publisher.source.next(decoder);
+                    } catch (IllegalArgumentException e) {
+                        finish();
+                        subscriber.onError(e);
+                        return;
+                    }
+                    if (next == null) {
+                        finish();
+                        subscriber.onComplete();
+                        return;
+                    }
+                }
+                if (cancelled) {
+                    return;
+                }
+                if (emitted == limit) {
+                    limit = limit == Long.MAX_VALUE ? limit : requested.addAndGet(-emitted);
+                    emitted = 0;
+                    if (limit == 0) {
+                        return;
+                    }
+                }
+                T item = next;
+                next = null;
+                subscriber.onNext(item);
+                emitted++;
+            }
+        }
+
+        private void finish() {
+            done = true;
+            next = null;
+            if (decoder != null) {
+                decoder.clear();
+            }
+        }
+    }
+}
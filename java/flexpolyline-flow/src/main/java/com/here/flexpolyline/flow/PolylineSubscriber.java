@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.flow;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+import com.here.flexpolyline.PolylineEncoderDecoder.LatLngZ;
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+import com.here.flexpolyline.PolylineWriter;
+
+/**
+ * {@link Flow.Subscriber} encoding the received points to an {@link Appendable} or {@link OutputStream}
+ * as they arrive, through a {@link PolylineWriter}.
+ *
+ * Points are requested {@code prefetch} at a time, so memory does not depend on the number of points.
+ * The writer, and with it the target, is closed once the publisher completes or fails. {@link #getResult()}
+ * then completes with the number of encoded points, or exceptionally with the failure of the publisher
+ * or of the target. Like {@link com.here.flexpolyline.PolylineEncoderDecoder#encode(java.util.List, int, ThirdDimension, int)},
+ * a publisher completing without points fails with "Invalid coordinates!", leaving the target empty.
+ *
+ * An instance subscribes to a single publisher.
+ */
+public final class PolylineSubscriber implements Flow.Subscriber<LatLngZ> {
+
+    /**
+     * Default number of points requested at a time.
+     */
+    public static final int DEFAULT_PREFETCH = 256;
+
+    private final PolylineWriter writer;
+    private final int prefetch;
+    private final CompletableFuture<Long> result = new CompletableFuture<>();
+    private Flow.Subscription subscription;
+    private long count;
+    private int received;
+
+    /**
+     * @param out target of the encoded characters, closed with the subscriber when it is {@link java.io.Closeable}
+     * @param precision   Floating point precision of the coordinate to be encoded.
+     * @param thirdDimension {@link ThirdDimension} which may be a level, altitude, elevation or some other custom value
+     * @param thirdDimPrecision Floating point precision for thirdDimension value
+     */
+    public PolylineSubscriber(Appendable out, int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+        this(new PolylineWriter(out, precision, thirdDimension, thirdDimPrecision), DEFAULT_PREFETCH);
+    }
+
+    /**
+     * @param out target of the encoded ASCII bytes, closed with the subscriber
+     * @param precision   Floating point precision of the coordinate to be encoded.
+     * @param thirdDimension {@link ThirdDimension} which may be a level, altitude, elevation or some other custom value
+     * @param thirdDimPrecision Floating point precision for thirdDimension value
+     */
+    public PolylineSubscriber(OutputStream out, int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+        this(new PolylineWriter(out, precision, thirdDimension, thirdDimPrecision), DEFAULT_PREFETCH);
+    }
+
+    /**
+     * @param writer {@link PolylineWriter} receiving the points, closed with the subscriber
+     * @param prefetch number of points requested at a time
+     */
+    public PolylineSubscriber(PolylineWriter writer, int prefetch) {
+        if (writer == null) {
+            throw new IllegalArgumentException("Invalid output");
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("Invalid prefetch");
+        }
+        this.writer = writer;
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * @return future completing with the number of encoded points once the target is closed
+     */
+    public CompletableFuture<Long> getResult() {
+        return result;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(prefetch);
+    }
+
+    @Override
+    public void onNext(LatLngZ item) {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            writer.add(item);
+        } catch (IOException | IllegalArgumentException e) {
+            subscription.cancel();
+            fail(e);
+            return;
+        }
+        count++;
+        if (++received == prefetch) {
+            received = 0;
+            subscription.request(prefetch);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        fail(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        if (result.isDone()) {
+            return;
+        }
+        if (count == 0) {
+            fail(new IllegalArgumentException("Invalid coordinates!"));
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        result.complete(count);
+    }
+
+    private void fail(Throwable throwable) {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throwable.addSuppressed(e);
+        }
+        result.completeExceptionally(throwable);
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.flow;
+
+import static com.here.flexpolyline.PolylineEncoderDecoder.decode;
+import static com.here.flexpolyline.PolylineEncoderDecoder.encode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import com.here.flexpolyline.PolylineBuffer;
+import com.here.flexpolyline.PolylineEncoderDecoder.LatLngZ;
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * Validate the Flow publishers and subscriber against the decoder and encoder of the library.
+ */
+public class PolylineFlowTest {
+
+    // Signals are emitted on the calling thread
+    private static final Executor DIRECT = Runnable::run;
+
+    private final String encoded;
+    private final List<LatLngZ> expected;
+
+    private PolylineFlowTest() {
+        Random random = new Random(19);
+        List<LatLngZ> coordinates = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            coordinates.add(new LatLngZ(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180, random.nextDouble() * 100));
+        }
+        encoded = encode(coordinates, 6, ThirdDimension.ALTITUDE, 1);
+        expected = decode(encoded);
+    }
+
+    private void testPointPublisher() throws Exception {
+        Collector<LatLngZ> collector = new Collector<>(7);
+        PolylinePublisher.points(encoded, DIRECT).subscribe(collector);
+        assertEquals(collector.result.get(), expected);
+
+        // On a thread pool
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Collector<LatLngZ> async = new Collector<>(Long.MAX_VALUE);
+            PolylinePublisher.points(encoded, executor).subscribe(async);
+            assertEquals(async.result.get(10, TimeUnit.SECONDS), expected);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void testBackpressure() {
+        List<LatLngZ> received = new ArrayList<>();
+        Flow.Subscription[] subscription = new Flow.Subscription[1];
+        boolean[] terminated = new boolean[1];
+        PolylinePublisher.points(encoded, DIRECT).subscribe(new Flow.Subscriber<LatLngZ>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription[0] = s;
+            }
+
+            @Override
+            public void onNext(LatLngZ item) {
+                received.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                terminated[0] = true;
+            }
+
+            @Override
+            public void onComplete() {
+                terminated[0] = true;
+            }
+        });
+        assertEquals(received.size(), 0);
+        subscription[0].request(3);
+        assertEquals(received, expected.subList(0, 3));
+        subscription[0].request(2);
+        assertEquals(received, expected.subList(0, 5));
+        subscription[0].cancel();
+        subscription[0].request(10);
+        assertEquals(received.size(), 5);
+        assertTrue(!terminated[0]);
+    }
+
+    private void testBatchPublisher() throws Exception {
+        Collector<PolylineBuffer> collector = new Collector<>(1);
+        PolylinePublisher.batches(encoded, 300, DIRECT).subscribe(collector);
+        List<PolylineBuffer> batches = collector.result.get();
+        assertEquals(batches.size(), 4);
+        List<LatLngZ> points = new ArrayList<>();
+        for (PolylineBuffer batch : batches) {
+            assertEquals(batch.getThirdDimension(), ThirdDimension.ALTITUDE);
+            for (int i = 0; i < batch.size(); i++) {
+                points.add(new LatLngZ(batch.lat(i), batch.lng(i), batch.z(i)));
+            }
+        }
+        assertEquals(batches.get(3).size(), 100);
+        assertEquals(points, expected);
+        assertThrows(() -> PolylinePublisher.batches(encoded, 0));
+    }
+
+    private void testErrors() throws Exception {
+        // Points before the malformed char are delivered first
+        String invalid = "BFoz5xJ67i1B1B7P*IhaxL7Y";
+        Collector<LatLngZ> collector = new Collector<>(Long.MAX_VALUE);
+        PolylinePublisher.points(invalid, DIRECT).subscribe(collector);
+        assertEquals(failure(collector.result), "Unexpected value found '*' at index 17");
+        assertEquals(collector.items, decode("BFoz5xJ67i1B1B7PzIhaxL7Y").subList(0, 2));
+
+        Collector<LatLngZ> blank = new Collector<>(1);
+        PolylinePublisher.points(" ", DIRECT).subscribe(blank);
+        assertEquals(failure(blank.result), "Invalid argument!");
+
+        Collector<LatLngZ> zero = new Collector<>(0);
+        PolylinePublisher.points(encoded, DIRECT).subscribe(zero);
+        assertEquals(failure(zero.result), "Invalid request 0");
+
+        assertThrows(() -> PolylinePublisher.points(null));
+        assertThrows(() -> PolylinePublisher.points(encoded, null));
+    }
+
+    private void testEncodingSubscriber() throws Exception {
+        StringBuilder out = new StringBuilder();
+        PolylineSubscriber subscriber = new PolylineSubscriber(out, 6, ThirdDimension.ALTITUDE, 1);
+        PolylinePublisher.points(encoded, DIRECT).subscribe(subscriber);
+        assertEquals(subscriber.getResult().get(), 1000L);
+        assertEquals(out.toString(), encoded);
+
+        // Failures of the publisher are passed on
+        PolylineSubscriber failing = new PolylineSubscriber(new StringBuilder(), 6, ThirdDimension.ALTITUDE, 1);
+        PolylinePublisher.points("BFoz5xJ67i1B1B7P*IhaxL7Y", DIRECT).subscribe(failing);
+        assertEquals(failure(failing.getResult()), "Unexpected value found '*' at index 17");
+
+        // Nothing is written without points, not even the header
+        StringBuilder emptyOut = new StringBuilder();
+        PolylineSubscriber empty = new PolylineSubscriber(emptyOut, 6, ThirdDimension.ALTITUDE, 1);
+        empty.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        empty.onComplete();
+        assertEquals(failure(empty.getResult()), "Invalid coordinates!");
+        assertEquals(emptyOut.toString(), "");
+        assertThrows(() -> new PolylineSubscriber(null, 1));
+    }
+
+    /*
+     * Requests `batch` items at a time and collects them.
+     */
+    private static final class Collector<T> implements Flow.Subscriber<T> {
+        final List<T> items = new ArrayList<>();
+        final CompletableFuture<List<T>> result = new CompletableFuture<>();
+        private final long batch;
+        private Flow.Subscription subscription;
+        private long outstanding;
+
+        Collector(long batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            outstanding = batch;
+            subscription.request(batch);
+        }
+
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+            if (--outstanding == 0) {
+                outstanding = batch;
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(items);
+        }
+    }
+
+    private static String failure(CompletableFuture<?> future) throws InterruptedException {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            return e.getCause().getMessage();
+        }
+        throw new RuntimeException("Assert failed, No exception found!");
+    }
+
+    private static void assertThrows(Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        throw new RuntimeException("Assert failed, No exception found!");
+    }
+
+    private static void assertEquals(Object lhs, Object rhs) {
+        if (lhs != rhs && !lhs.equals(rhs)) {
+            throw new RuntimeException("Assert failed, " + lhs + " != " + rhs);
+        }
+    }
+
+    private static void assertTrue(boolean value) {
+        if (!value) {
+            throw new RuntimeException("Assert failed");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        PolylineFlowTest test = new PolylineFlowTest();
+        test.testPointPublisher();
+        test.testBackpressure();
+        test.testBatchPublisher();
+        test.testErrors();
+        test.testEncodingSubscriber();
+    }
+}
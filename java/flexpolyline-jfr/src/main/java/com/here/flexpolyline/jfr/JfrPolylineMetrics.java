@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.jfr;
+
+import com.here.flexpolyline.PolylineEncoderDecoder;
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+import com.here.flexpolyline.PolylineMetrics;
+
+/**
+ * {@link PolylineMetrics} emitting a {@link PolylineEncodeEvent} or {@link PolylineDecodeEvent} for
+ * every call with at least {@code minPoints} points, with the stack trace of the caller.
+ *
+ * Smaller calls are ignored, so that a recording is not flooded by short polylines. Events cost
+ * nothing beyond a check of the point count while no recording enables them. Measurements can be
+ * forwarded to another {@link PolylineMetrics}, e.g. {@link com.here.flexpolyline.PolylineCounters},
+ * which then receives every call.
+ */
+public final class JfrPolylineMetrics implements PolylineMetrics {
+
+    /**
+     * Default minimum number of points of a call to be recorded.
+     */
+    public static final int DEFAULT_MIN_POINTS = 1000;
+
+    private final int minPoints;
+    private final PolylineMetrics delegate;
+
+    /**
+     * Metrics recording calls of at least {@link #DEFAULT_MIN_POINTS} points.
+     */
+    public JfrPolylineMetrics() {
+        this(DEFAULT_MIN_POINTS, null);
+    }
+
+    /**
+     * @param minPoints minimum number of points of a call to be recorded
+     * @param delegate {@link PolylineMetrics} receiving every call as well, may be null
+     */
+    public JfrPolylineMetrics(int minPoints, PolylineMetrics delegate) {
+        if (minPoints < 0) {
+            throw new IllegalArgumentException("Invalid minPoints");
+        }
+        this.minPoints = minPoints;
+        this.delegate = delegate;
+    }
+
+    /**
+     * Install recording of calls of at least {@code minPoints} points, forwarding every call to the
+     * {@link PolylineMetrics} installed so far, if any.
+     *
+     * @param minPoints minimum number of points of a call to be recorded
+     * @return the installed metrics
+     */
+    public static JfrPolylineMetrics install(int minPoints) {
+        JfrPolylineMetrics metrics = new JfrPolylineMetrics(minPoints, PolylineEncoderDecoder.getMetrics());
+        PolylineEncoderDecoder.setMetrics(metrics);
+        return metrics;
+    }
+
+    public int getMinPoints() {
+        return minPoints;
+    }
+
+    @Override
+    public void encoded(int points, int length, int precision, ThirdDimension thirdDimension, long nanos) {
+        if (delegate != null) {
+            delegate.encoded(points, length, precision, thirdDimension, nanos);
+        }
+        if (points >= minPoints) {
+            commit(new PolylineEncodeEvent(), points, length, precision, thirdDimension, nanos);
+        }
+    }
+
+    @Override
+    public void decoded(int points, int length, int precision, ThirdDimension thirdDimension, long nanos) {
+        if (delegate != null) {
+            delegate.decoded(points, length, precision, thirdDimension, nanos);
+        }
+        if (points >= minPoints) {
+            commit(new PolylineDecodeEvent(), points, length, precision, thirdDimension, nanos);
+        }
+    }
+
+    private static void commit(PolylineEvent event, int points, int length, int precision,
+                               ThirdDimension thirdDimension, long nanos) {
+        if (event.shouldCommit()) {
+            event.points = points;
+            event.length = length;
+            event.precision = precision;
+            event.thirdDimension = thirdDimension.name();
+            event.elapsed = nanos;
+            event.commit();
+        }
+    }
+}
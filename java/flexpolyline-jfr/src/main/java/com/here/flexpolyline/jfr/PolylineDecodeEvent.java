@@ -0,0 +1,22 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for a decode call of the library.
+ */
+@Name(PolylineDecodeEvent.NAME)
+@Label("Polyline Decode")
+@Description("Decode call with at least the minimum number of points of JfrPolylineMetrics")
+public final class PolylineDecodeEvent extends PolylineEvent {
+
+    public static final String NAME = "com.here.flexpolyline.Decode";
+}
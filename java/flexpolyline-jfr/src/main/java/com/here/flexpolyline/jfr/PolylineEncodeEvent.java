@@ -0,0 +1,22 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for an encode call of the library.
+ */
+@Name(PolylineEncodeEvent.NAME)
+@Label("Polyline Encode")
+@Description("Encode call with at least the minimum number of points of JfrPolylineMetrics")
+public final class PolylineEncodeEvent extends PolylineEvent {
+
+    public static final String NAME = "com.here.flexpolyline.Encode";
+}
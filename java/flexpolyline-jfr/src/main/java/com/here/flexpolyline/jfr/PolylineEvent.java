@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/*
+ * Fields shared by the encode and decode events. The call is reported once finished, so its
+ * duration is a field instead of the begin() and end() of the event.
+ */
+@Category("Flexible Polyline")
+@StackTrace(true)
+abstract class PolylineEvent extends Event {
+
+    @Label("Points")
+    int points;
+
+    @Label("Length")
+    @DataAmount(DataAmount.BYTES)
+    int length;
+
+    @Label("Precision")
+    int precision;
+
+    @Label("Third Dimension")
+    String thirdDimension;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.jfr;
+
+import static com.here.flexpolyline.PolylineEncoderDecoder.decode;
+import static com.here.flexpolyline.PolylineEncoderDecoder.encode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.here.flexpolyline.PolylineCounters;
+import com.here.flexpolyline.PolylineEncoderDecoder;
+import com.here.flexpolyline.PolylineEncoderDecoder.LatLngZ;
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Validate the Flight Recorder events of the encode and decode calls.
+ */
+public class JfrPolylineMetricsTest {
+
+    private void testRecordedEvents() throws IOException {
+        List<LatLngZ> large = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            large.add(new LatLngZ(i * 0.001, i * 0.002, i));
+        }
+        List<LatLngZ> small = large.subList(0, 10);
+
+        PolylineCounters counters = new PolylineCounters();
+        PolylineEncoderDecoder.setMetrics(counters);
+        JfrPolylineMetrics metrics = JfrPolylineMetrics.install(1000);
+        assertTrue(PolylineEncoderDecoder.getMetrics() == metrics);
+        String encoded;
+        Path file = Files.createTempFile("flexpolyline", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(PolylineEncodeEvent.NAME);
+            recording.enable(PolylineDecodeEvent.NAME);
+            recording.start();
+            encoded = encode(large, 6, ThirdDimension.ALTITUDE, 0);
+            decode(encoded);
+            decode(encode(small, 6, ThirdDimension.ALTITUDE, 0));
+            recording.stop();
+            recording.dump(file);
+        } finally {
+            PolylineEncoderDecoder.setMetrics(null);
+        }
+
+        // Small calls only reach the forwarded counters
+        assertEquals(counters.getEncodeCalls(), 2L);
+        assertEquals(counters.getDecodeCalls(), 2L);
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        assertEquals(events.size(), 2);
+        for (RecordedEvent event : events) {
+            assertEquals(event.getInt("points"), 2000);
+            assertEquals(event.getInt("length"), encoded.length());
+            assertEquals(event.getInt("precision"), 6);
+            assertEquals(event.getString("thirdDimension"), "ALTITUDE");
+            assertTrue(event.getDuration("elapsed").toNanos() > 0);
+            // The caller is part of the stack trace
+            assertTrue(event.getStackTrace().getFrames().stream()
+                    .anyMatch(frame -> frame.getMethod().getName().equals("testRecordedEvents")));
+        }
+        assertEquals(events.get(0).getEventType().getName(), PolylineEncodeEvent.NAME);
+        assertEquals(events.get(1).getEventType().getName(), PolylineDecodeEvent.NAME);
+    }
+
+    private void testInvalidArguments() {
+        try {
+            new JfrPolylineMetrics(-1, null);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        throw new RuntimeException("Assert failed, No exception found!");
+    }
+
+    private static void assertEquals(Object lhs, Object rhs) {
+        if (lhs != rhs && !lhs.equals(rhs)) {
+            throw new RuntimeException("Assert failed, " + lhs + " != " + rhs);
+        }
+    }
+
+    private static void assertTrue(boolean value) {
+        if (!value) {
+            throw new RuntimeException("Assert failed");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        JfrPolylineMetricsTest test = new JfrPolylineMetricsTest();
+        test.testRecordedEvents();
+        test.testInvalidArguments();
+    }
+}
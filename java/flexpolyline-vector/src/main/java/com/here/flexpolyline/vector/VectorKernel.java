@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.vector;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+ * Vectorized classification of encoded chars, only loaded once the Vector API is known to be available.
+ *
+ * Each lane maps an ASCII char of the base64url alphabet to its 6 bit value with compares and blends
+ * instead of a table lookup, and the whole vector is rejected at once when any lane is outside the alphabet.
+ * The lanes holding the last char of a varint, without the 0x20 continuation bit, are collected into a bitmap.
+ */
+final class VectorKernel {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONG_SPECIES = VectorSpecies.of(long.class, SPECIES.vectorShape());
+
+    // Position of the bits of each group of 8 lanes: 0, 8, 16, ...
+    private static final LongVector GROUP_SHIFTS = LongVector.zero(LONG_SPECIES).addIndex(8);
+
+    private VectorKernel() {
+    }
+
+    static int laneCount() {
+        return SPECIES.length();
+    }
+
+    /*
+     * Write the value of each char of in[offset, offset + length) to values[0, length) and set bit i
+     * of `terminators` when char i ends a varint. Returns false as soon as a char outside the alphabet is found.
+     */
+    static boolean classify(byte[] in, int offset, int length, byte[] values, long[] terminators) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            ByteVector chars = ByteVector.fromArray(SPECIES, in, offset + i);
+            // Bytes are signed, so non-ASCII chars are negative and fail every range below
+            VectorMask<Byte> upper = chars.compare(VectorOperators.GE, (byte) 'A').and(chars.compare(VectorOperators.LE, (byte) 'Z'));
+            VectorMask<Byte> lower = chars.compare(VectorOperators.GE, (byte) 'a').and(chars.compare(VectorOperators.LE, (byte) 'z'));
+            VectorMask<Byte> digit = chars.compare(VectorOperators.GE, (byte) '0').and(chars.compare(VectorOperators.LE, (byte) '9'));
+            VectorMask<Byte> dash = chars.compare(VectorOperators.EQ, (byte) '-');
+            VectorMask<Byte> underscore = chars.compare(VectorOperators.EQ, (byte) '_');
+            if (!upper.or(lower).or(digit).or(dash).or(underscore).allTrue()) {
+                return false;
+            }
+            ByteVector decoded = chars.sub((byte) 'A')
+                    .blend(chars.sub((byte) ('a' - 26)), lower)
+                    .blend(chars.add((byte) (52 - '0')), digit)
+                    .blend((byte) 62, dash)
+                    .blend((byte) 63, underscore);
+            decoded.intoArray(values, i);
+            // The lane count divides 64, so the lanes of a vector never straddle two words
+            terminators[i >>> 6] |= terminatorBits(decoded) << (i & 63);
+        }
+        for (; i < length; i++) {
+            int value = decodeChar(in[offset + i]);
+            if (value < 0) {
+                return false;
+            }
+            values[i] = (byte) value;
+            if (value < 0x20) {
+                terminators[i >>> 6] |= 1L << (i & 63);
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Bit i set when lane i holds a value without the 0x20 continuation bit.
+     *
+     * Same as decoded.compare(LT, 0x20).toLong(), which is not compiled to vector instructions on all
+     * JDKs: each group of 8 lanes holding 0 or 1 is read as one long and its low bits are gathered into
+     * the top byte with a multiplication, then the bytes of all groups are shifted into place.
+     */
+    private static long terminatorBits(ByteVector decoded) {
+        LongVector groups = decoded.lanewise(VectorOperators.LSHR, 5).lanewise(VectorOperators.XOR, (byte) 1).reinterpretAsLongs();
+        return groups.mul(0x0102040810204080L)
+                .lanewise(VectorOperators.LSHR, 56)
+                .lanewise(VectorOperators.LSHL, GROUP_SHIFTS)
+                .reduceLanes(VectorOperators.OR);
+    }
+
+    private static int decodeChar(byte c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 26;
+        }
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 52;
+        }
+        if (c == '-') {
+            return 62;
+        }
+        return c == '_' ? 63 : -1;
+    }
+}
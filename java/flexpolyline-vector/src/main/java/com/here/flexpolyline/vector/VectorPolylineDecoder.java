@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.vector;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.here.flexpolyline.PolylineBuffer;
+import com.here.flexpolyline.PolylineEncoderDecoder;
+import com.here.flexpolyline.PolylineEncoderDecoder.Converter;
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * Decode engine validating and mapping the encoded chars with the incubating Vector API.
+ *
+ * A vectorized pre-pass maps many chars at once to their 6 bit values, rejects chars outside the
+ * alphabet and builds a bitmap of the chars ending a varint. Varints are then located from the bitmap
+ * and assembled with a few shifts each, without a branch per char. Results are the same as {@link PolylineEncoderDecoder#decodeBytes(byte[], int, int, PolylineBuffer)}.
+ *
+ * The Vector API needs {@code --add-modules jdk.incubator.vector}. Without it, for short inputs and for
+ * malformed inputs, decoding falls back to the scalar decoder of the library, so that exceptions are unchanged.
+ *
+ * Instances keep a scratch array between calls and are not thread-safe.
+ */
+public final class VectorPolylineDecoder {
+
+    // Below this many chars the pre-pass does not pay off
+    private static final int MIN_VECTOR_LENGTH = 64;
+
+    private static final boolean AVAILABLE = isVectorApiAvailable();
+
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    // Low 5 bits of the first n bytes of a long
+    private static final long[] PAYLOAD_MASKS = new long[9];
+
+    static {
+        for (int n = 1; n <= 8; n++) {
+            PAYLOAD_MASKS[n] = PAYLOAD_MASKS[n - 1] | (0x1FL << (8 * (n - 1)));
+        }
+    }
+
+    private byte[] values = new byte[0];
+    private long[] terminators = new long[1];
+    // Varint cursor: start of the next varint and the terminator bits not consumed yet
+    private int length;
+    private int start;
+    private int wordIndex;
+    private long word;
+
+    private static boolean isVectorApiAvailable() {
+        try {
+            // Loading the kernel fails when jdk.incubator.vector is not resolved
+            return VectorKernel.laneCount() > 1;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return whether the Vector API is available, otherwise every call uses the scalar decoder
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * Decode an encoded polyline stored as ASCII bytes into the columns of a {@link PolylineBuffer}.
+     *
+     * @param encoded array holding the encoded polyline
+     * @param offset index of the first byte of the encoded polyline
+     * @param length number of bytes of the encoded polyline
+     * @param buffer {@link PolylineBuffer} receiving the decoded coordinates
+     * @return the given buffer
+     */
+    public PolylineBuffer decodeBytes(byte[] encoded, int offset, int length, PolylineBuffer buffer) {
+        if (!AVAILABLE || encoded == null || buffer == null || length < MIN_VECTOR_LENGTH
+                || offset < 0 || offset > encoded.length - length
+                || !decodeVectorized(encoded, offset, length, buffer)) {
+            return PolylineEncoderDecoder.decodeBytes(encoded, offset, length, buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * Decode the encoded input {@link CharSequence} into the columns of a {@link PolylineBuffer}.
+     *
+     * The chars are copied to bytes first, which is cheap for {@link String} inputs.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @param buffer {@link PolylineBuffer} receiving the decoded coordinates
+     * @return the given buffer
+     */
+    public PolylineBuffer decode(CharSequence encoded, PolylineBuffer buffer) {
+        if (!AVAILABLE || encoded == null || buffer == null || encoded.length() < MIN_VECTOR_LENGTH) {
+            return PolylineEncoderDecoder.decode(encoded, buffer);
+        }
+        // Chars outside Latin-1 become '?', which is rejected like the original char
+        byte[] bytes = encoded.toString().getBytes(StandardCharsets.ISO_8859_1);
+        if (!decodeVectorized(bytes, 0, bytes.length, buffer)) {
+            return PolylineEncoderDecoder.decode(encoded, buffer);
+        }
+        return buffer;
+    }
+
+    /*
+     * Returns false when the input is malformed, leaving the exception to the scalar decoder.
+     */
+    private boolean decodeVectorized(byte[] encoded, int offset, int length, PolylineBuffer buffer) {
+        // Room for the 8 byte reads of gather() past the last value
+        if (values.length < length + 8) {
+            values = new byte[Math.max(length + 8, values.length + (values.length >> 1))];
+        }
+        int words = (length + 63) >>> 6;
+        if (terminators.length < words) {
+            terminators = new long[Math.max(words, terminators.length + (terminators.length >> 1))];
+        } else {
+            Arrays.fill(terminators, 0, words, 0);
+        }
+        if (!VectorKernel.classify(encoded, offset, length, values, terminators)) {
+            return false;
+        }
+
+        this.length = length;
+        this.start = 0;
+        this.wordIndex = 0;
+        this.word = terminators[0];
+        long version = nextVarint();
+        long header = nextVarint();
+        if (start < 0 || version != PolylineEncoderDecoder.FORMAT_VERSION) {
+            return false;
+        }
+        final int precision = (int) (header & 0x0f);
+        final ThirdDimension thirdDimension = ThirdDimension.fromNum((header >> 4) & 0x07);
+        final int thirdDimPrecision = (int) ((header >> 7) & 0x0f);
+        final boolean hasZ = thirdDimension != ThirdDimension.ABSENT;
+        // Same scale and arithmetic as the Converter of the library
+        final double scale = Converter.scaleOf(precision);
+        final double zScale = Converter.scaleOf(thirdDimPrecision);
+
+        buffer.clear(thirdDimension);
+        long lat = 0;
+        long lng = 0;
+        long z = 0;
+        while (start >= 0 && start < length) {
+            lat += Converter.decodeDelta(nextVarint());
+            lng += Converter.decodeDelta(nextVarint());
+            if (hasZ) {
+                z += Converter.decodeDelta(nextVarint());
+            }
+            if (start < 0) {
+                return false;
+            }
+            buffer.add(lat / scale, lng / scale, hasZ ? z / zScale : 0);
+        }
+        return start == length;
+    }
+
+    /*
+     * Next varint, ending at the next terminator bit. Sets start to -1 when there is none left.
+     */
+    private long nextVarint() {
+        long word = this.word;
+        while (word == 0) {
+            if (++wordIndex >= (length + 63) >>> 6) {
+                start = -1;
+                return 0;
+            }
+            word = terminators[wordIndex];
+        }
+        final int end = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+        this.word = word & (word - 1);
+        final int first = start;
+        start = end + 1;
+        return first < 0 ? 0 : gather(values, first, end + 1 - first);
+    }
+
+    /*
+     * Concatenate the 5 bit payloads of `count` values starting at `from`, first value lowest.
+     * Up to 8 values are read as one long and compacted with shifts instead of a loop.
+     */
+    private static long gather(byte[] values, int from, int count) {
+        if (count > 8) {
+            long result = 0;
+            for (int i = 0; i < count; i++) {
+                result |= (long) (values[from + i] & 0x1F) << (5 * i);
+            }
+            return result;
+        }
+        long x = (long) LONG_VIEW.get(values, from);
+        x &= PAYLOAD_MASKS[count];
+        x = (x & 0x00FF00FF00FF00FFL) | ((x & 0xFF00FF00FF00FF00L) >>> 3);
+        x = (x & 0x0000FFFF0000FFFFL) | ((x & 0xFFFF0000FFFF0000L) >>> 6);
+        return (x & 0xFFFFFFFFL) | ((x >>> 32) << 20);
+    }
+}
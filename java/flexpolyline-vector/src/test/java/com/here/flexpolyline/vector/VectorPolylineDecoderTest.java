@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline.vector;
+
+import static com.here.flexpolyline.PolylineEncoderDecoder.decode;
+import static com.here.flexpolyline.PolylineEncoderDecoder.decodeBytes;
+import static com.here.flexpolyline.PolylineEncoderDecoder.encode;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.here.flexpolyline.PolylineBuffer;
+import com.here.flexpolyline.PolylineEncoderDecoder.LatLngZ;
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * Validate the vectorized decoder against the scalar decoder of the library.
+ */
+public class VectorPolylineDecoderTest {
+
+    private final VectorPolylineDecoder decoder = new VectorPolylineDecoder();
+
+    private void testAvailable() {
+        // The test runs with --add-modules jdk.incubator.vector
+        assertTrue(VectorPolylineDecoder.isAvailable());
+    }
+
+    private void testRandomPolylines() {
+        Random random = new Random(29);
+        PolylineBuffer buffer = new PolylineBuffer();
+        for (int length : new int[] {1, 10, 11, 100, 1000, 50000}) {
+            for (ThirdDimension thirdDimension : Arrays.asList(ThirdDimension.ABSENT, ThirdDimension.ALTITUDE)) {
+                List<LatLngZ> coordinates = new ArrayList<>();
+                for (int i = 0; i < length; i++) {
+                    coordinates.add(new LatLngZ(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180, random.nextDouble() * 1000));
+                }
+                String encoded = encode(coordinates, random.nextInt(8), thirdDimension, random.nextInt(4));
+                assertDecodesLikeScalar(encoded, buffer);
+            }
+        }
+    }
+
+    private void testCorpus() throws IOException {
+        PolylineBuffer buffer = new PolylineBuffer();
+        for (String line : Files.readAllLines(Paths.get("..", "test", "round_half_up", "encoded.txt"))) {
+            assertDecodesLikeScalar(line.trim(), buffer);
+        }
+    }
+
+    private void testMalformedInput() {
+        StringBuilder valid = new StringBuilder("BF");
+        for (int i = 0; i < 20; i++) {
+            valid.append("oz5xJ67i1B1B7PzIhaxL7Y");
+        }
+        String encoded = valid.toString();
+        List<String> invalid = Arrays.asList(
+                encoded.substring(0, 200) + "*" + encoded.substring(201),
+                encoded.substring(0, 200) + "\u00e9" + encoded.substring(201),
+                encoded.substring(0, 200) + "\u4e2d" + encoded.substring(201),
+                encoded.substring(0, encoded.length() - 1),
+                encoded.substring(0, encoded.length() - 2),
+                "C" + encoded.substring(1),
+                encoded.substring(0, 100).replace('o', ' '));
+        for (String input : invalid) {
+            assertEquals(failure(() -> decoder.decode(input, new PolylineBuffer())), failure(() -> decode(input)));
+            byte[] bytes = input.getBytes(StandardCharsets.ISO_8859_1);
+            assertEquals(failure(() -> decoder.decodeBytes(bytes, 0, bytes.length, new PolylineBuffer())),
+                         failure(() -> decodeBytes(bytes, 0, bytes.length)));
+        }
+        assertEquals(failure(() -> decoder.decode(null, new PolylineBuffer())), "Invalid argument!");
+    }
+
+    private void assertDecodesLikeScalar(String encoded, PolylineBuffer buffer) {
+        List<LatLngZ> expected = decode(encoded);
+        decoder.decode(encoded, buffer);
+        assertBufferEquals(buffer, expected);
+
+        // Bytes within a larger array
+        byte[] bytes = ("xx" + encoded + "yy").getBytes(StandardCharsets.US_ASCII);
+        decoder.decodeBytes(bytes, 2, encoded.length(), buffer);
+        assertBufferEquals(buffer, expected);
+    }
+
+    private static void assertBufferEquals(PolylineBuffer buffer, List<LatLngZ> expected) {
+        assertEquals(buffer.size(), expected.size());
+        for (int i = 0; i < buffer.size(); i++) {
+            assertEquals(new LatLngZ(buffer.lat(i), buffer.lng(i), buffer.z(i)), expected.get(i));
+        }
+    }
+
+    private static String failure(Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        throw new RuntimeException("Assert failed, No exception found!");
+    }
+
+    private static void assertEquals(Object lhs, Object rhs) {
+        if (lhs != rhs && !lhs.equals(rhs)) {
+            throw new RuntimeException("Assert failed, " + lhs + " != " + rhs);
+        }
+    }
+
+    private static void assertTrue(boolean value) {
+        if (!value) {
+            throw new RuntimeException("Assert failed");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        VectorPolylineDecoderTest test = new VectorPolylineDecoderTest();
+        test.testAvailable();
+        test.testRandomPolylines();
+        test.testCorpus();
+        test.testMalformedInput();
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/*
+ * Runs an operation over a list of independent items in parallel, results in input order.
+ *
+ * Work is split by estimated cost (about one unit per encoded character) rather than by item count,
+ * so that runs of small items are processed by one task while large items get a task of their own.
+ */
+final class Batch<I, O> {
+
+    // Estimated cost below which a range of items is processed sequentially
+    static final int SPLIT_THRESHOLD = 1 << 14;
+
+    private final List<? extends I> inputs;
+    private final Function<? super I, ? extends O> operation;
+    private final long[] cumulativeCost;
+    private final BatchResult<O>[] results;
+
+    @SuppressWarnings("unchecked")
+    private Batch(List<? extends I> inputs, ToIntFunction<? super I> cost, Function<? super I, ? extends O> operation) {
+        this.inputs = inputs;
+        this.operation = operation;
+        this.cumulativeCost = new long[inputs.size() + 1];
+        for (int i = 0; i < inputs.size(); i++) {
+            cumulativeCost[i + 1] = cumulativeCost[i] + Math.max(1, cost.applyAsInt(inputs.get(i)));
+        }
+        this.results = new BatchResult[inputs.size()];
+    }
+
+    static <I, O> List<BatchResult<O>> run(List<? extends I> inputs, ToIntFunction<? super I> cost,
+                                           Function<? super I, ? extends O> operation, Executor executor) {
+        if (inputs == null) {
+            throw new IllegalArgumentException("Invalid inputs");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Invalid executor");
+        }
+        Batch<I, O> batch = new Batch<>(inputs, cost, operation);
+        if (executor instanceof ForkJoinPool) {
+            ((ForkJoinPool) executor).invoke(batch.new SplitTask(0, inputs.size()));
+        } else {
+            batch.runChunks(executor);
+        }
+        return Arrays.asList(batch.results);
+    }
+
+    private void process(int from, int to) {
+        for (int i = from; i < to; i++) {
+            try {
+                results[i] = BatchResult.success(operation.apply(inputs.get(i)));
+            } catch (RuntimeException e) {
+                results[i] = BatchResult.failure(e);
+            }
+        }
+    }
+
+    private long cost(int from, int to) {
+        return cumulativeCost[to] - cumulativeCost[from];
+    }
+
+    // Index splitting [from, to) into two ranges of about the same cost
+    private int split(int from, int to) {
+        long half = cumulativeCost[from] + cost(from, to) / 2;
+        int index = Arrays.binarySearch(cumulativeCost, from + 1, to, half);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return Math.min(Math.max(index, from + 1), to - 1);
+    }
+
+    /*
+     * Plain executors get one task per chunk of about SPLIT_THRESHOLD cost.
+     */
+    private void runChunks(Executor executor) {
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        int from = 0;
+        while (from < inputs.size()) {
+            int to = from + 1;
+            while (to < inputs.size() && cost(from, to + 1) <= SPLIT_THRESHOLD) {
+                to++;
+            }
+            final int chunkFrom = from;
+            final int chunkTo = to;
+            chunks.add(CompletableFuture.runAsync(() -> process(chunkFrom, chunkTo), executor));
+            from = to;
+        }
+        CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).join();
+    }
+
+    private final class SplitTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        SplitTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1 || cost(from, to) <= SPLIT_THRESHOLD) {
+                process(from, to);
+                return;
+            }
+            int middle = split(from, to);
+            invokeAll(new SplitTask(from, middle), new SplitTask(middle, to));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline;
+
+/**
+ * Outcome of a single item of a batch operation: either its value or the exception it failed with.
+ *
+ * @param <T> type of the value of successful items
+ */
+public final class BatchResult<T> {
+
+    private final T value;
+    private final RuntimeException error;
+
+    private BatchResult(T value, RuntimeException error) {
+        this.value = value;
+        this.error = error;
+    }
+
+    static <T> BatchResult<T> success(T value) {
+        return new BatchResult<>(value, null);
+    }
+
+    static <T> BatchResult<T> failure(RuntimeException error) {
+        return new BatchResult<>(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * @return value of the item
+     * @throws RuntimeException the exception the item failed with, e.g. {@link IllegalArgumentException} for malformed input
+     */
+    public T get() {
+        if (error != null) {
+            throw error;
+        }
+        return value;
+    }
+
+    /**
+     * @return exception the item failed with, null on success
+     */
+    public RuntimeException getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return error == null ? "BatchResult [value=" + value + "]" : "BatchResult [error=" + error + "]";
+    }
+}
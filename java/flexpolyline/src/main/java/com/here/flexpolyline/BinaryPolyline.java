@@ -0,0 +1,374 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.here.flexpolyline.PolylineEncoderDecoder.Converter;
+import com.here.flexpolyline.PolylineEncoderDecoder.Decoder;
+import com.here.flexpolyline.PolylineEncoderDecoder.Encoder;
+import com.here.flexpolyline.PolylineEncoderDecoder.LatLngZ;
+import com.here.flexpolyline.PolylineEncoderDecoder.StringEncoder;
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * Binary sibling of the flexible polyline format, for storage and transfer between services where
+ * URL-safe text is not needed.
+ *
+ * The content is the same sequence of unsigned varints as the text format: format version, header with
+ * precision, {@link ThirdDimension} and third dimension precision, then the zig-zag encoded deltas of the
+ * values. Each varint is written in bytes of 7 bits, least significant group first, with the high bit
+ * set on all bytes but the last one (LEB128), instead of chars of 5 bits. Polylines are about 20% smaller.
+ *
+ * {@link #fromEncoded(CharSequence)} and {@link #toEncoded(byte[], int, int)} convert between both forms
+ * without decoding the values, so conversions are lossless in both directions. Both reject values of 64 bits
+ * and headers with bits set above the third dimension precision, which the text format could not hold
+ * or which would be lost on the way.
+ */
+public final class BinaryPolyline {
+
+    private BinaryPolyline() {
+    }
+
+    /**
+     * Encode the list of coordinate triples to the binary format.
+     *
+     * @param coordinates {@link List} of coordinate triples that to be encoded.
+     * @param precision   Floating point precision of the coordinate to be encoded.
+     * @param thirdDimension {@link ThirdDimension} which may be a level, altitude, elevation or some other custom value
+     * @param thirdDimPrecision Floating point precision for thirdDimension value
+     * @return encoded bytes
+     */
+    public static byte[] encode(List<LatLngZ> coordinates, int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+        if (coordinates == null || coordinates.isEmpty()) {
+            throw new IllegalArgumentException("Invalid coordinates!");
+        }
+        if (thirdDimension == null) {
+            throw new IllegalArgumentException("Invalid thirdDimension");
+        }
+        BinaryEncoder enc = new BinaryEncoder(precision, thirdDimension, thirdDimPrecision, coordinates.size());
+        enc.addAll(coordinates);
+        return enc.toByteArray();
+    }
+
+    /**
+     * Encode the list of coordinate triples to the binary format into a heap or direct {@link ByteBuffer}.
+     *
+     * Bytes are written starting at the buffer position, which is advanced past the encoded polyline.
+     * On failure the position is left unchanged.
+     *
+     * @param coordinates {@link List} of coordinate triples that to be encoded.
+     * @param precision   Floating point precision of the coordinate to be encoded.
+     * @param thirdDimension {@link ThirdDimension} which may be a level, altitude, elevation or some other custom value
+     * @param thirdDimPrecision Floating point precision for thirdDimension value
+     * @param result buffer receiving the encoded polyline
+     * @return number of bytes written
+     * @throws BufferOverflowException if the encoded polyline does not fit into the remaining buffer
+     */
+    public static int encodeTo(List<LatLngZ> coordinates, int precision, ThirdDimension thirdDimension, int thirdDimPrecision,
+                               ByteBuffer result) {
+        if (result == null) {
+            throw new IllegalArgumentException("Invalid result");
+        }
+        byte[] encoded = encode(coordinates, precision, thirdDimension, thirdDimPrecision);
+        if (encoded.length > result.remaining()) {
+            throw new BufferOverflowException();
+        }
+        result.put(encoded);
+        return encoded.length;
+    }
+
+    /**
+     * Decode a binary polyline to {@link List} of coordinate triples.
+     *
+     * @param encoded encoded bytes
+     * @return {@link List} of coordinate triples that are decoded from input
+     */
+    public static List<LatLngZ> decode(byte[] encoded) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        return decode(encoded, 0, encoded.length);
+    }
+
+    /**
+     * Decode a binary polyline to {@link List} of coordinate triples.
+     *
+     * @param encoded array holding the encoded polyline
+     * @param offset index of the first byte of the encoded polyline
+     * @param length number of bytes of the encoded polyline
+     * @return {@link List} of coordinate triples that are decoded from input
+     */
+    public static List<LatLngZ> decode(byte[] encoded, int offset, int length) {
+        Reader reader = new Reader(encoded, offset, length);
+        List<LatLngZ> result = new ArrayList<>();
+        while (reader.hasNext()) {
+            double lat = reader.lat.decodeValue(reader.readVarint());
+            double lng = reader.lng.decodeValue(reader.readVarint());
+            if (reader.thirdDimension != ThirdDimension.ABSENT) {
+                result.add(new LatLngZ(lat, lng, reader.z.decodeValue(reader.readVarint())));
+            } else {
+                result.add(new LatLngZ(lat, lng));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Decode the bytes between position and limit of a {@link ByteBuffer} to {@link List} of coordinate triples.
+     *
+     * Works on heap and direct buffers alike, direct buffers are copied first. The position of the buffer is not modified.
+     *
+     * @param encoded buffer holding the encoded polyline
+     * @return {@link List} of coordinate triples that are decoded from input
+     */
+    public static List<LatLngZ> decode(ByteBuffer encoded) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        if (encoded.hasArray()) {
+            return decode(encoded.array(), encoded.arrayOffset() + encoded.position(), encoded.remaining());
+        }
+        byte[] bytes = new byte[encoded.remaining()];
+        encoded.duplicate().get(bytes);
+        return decode(bytes);
+    }
+
+    /**
+     * Decode a binary polyline into the columns of a {@link PolylineBuffer}.
+     * The previous content of the buffer is discarded.
+     *
+     * @param encoded array holding the encoded polyline
+     * @param offset index of the first byte of the encoded polyline
+     * @param length number of bytes of the encoded polyline
+     * @param buffer {@link PolylineBuffer} receiving the decoded coordinates
+     * @return the given buffer
+     */
+    public static PolylineBuffer decode(byte[] encoded, int offset, int length, PolylineBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("Invalid buffer");
+        }
+        Reader reader = new Reader(encoded, offset, length);
+        buffer.clear(reader.thirdDimension);
+        boolean hasZ = reader.thirdDimension != ThirdDimension.ABSENT;
+        while (reader.hasNext()) {
+            double lat = reader.lat.decodeValue(reader.readVarint());
+            double lng = reader.lng.decodeValue(reader.readVarint());
+            buffer.add(lat, lng, hasZ ? reader.z.decodeValue(reader.readVarint()) : 0);
+        }
+        return buffer;
+    }
+
+    /**
+     * Convert a URL-safe encoded polyline to the binary format, without decoding the values.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @return encoded bytes
+     */
+    public static byte[] fromEncoded(CharSequence encoded) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        Decoder dec = Decoder.of(encoded);
+        if (dec.isBlank()) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        dec.readStrictHeader();
+        final int dimensions = dec.hasThirdDimension() ? 3 : 2;
+        // Every char holds 5 bits, so the binary form is never longer than the text
+        BinaryEncoder enc = new BinaryEncoder(dec.getPrecision(), dec.getThirdDimension(), dec.getThirdDimPrecision(), 0);
+        enc.ensureCapacity(encoded.length());
+        long values = 0;
+        while (dec.hasNext()) {
+            final int start = dec.getPosition();
+            final long value = dec.decodeUnsignedVarint();
+            // Bits above the 63rd are dropped by the text decoder, the 64th cannot be written back as text
+            if (value < 0) {
+                throw new IllegalArgumentException("Invalid varint at index " + start);
+            }
+            enc.appendVarint(value);
+            values++;
+        }
+        if (values % dimensions != 0) {
+            throw new IllegalArgumentException("Unexpected end of encoded string");
+        }
+        return enc.toByteArray();
+    }
+
+    /**
+     * Convert a binary polyline to the URL-safe text format, without decoding the values.
+     *
+     * @param encoded encoded bytes
+     * @return URL-safe encoded {@link String}
+     */
+    public static String toEncoded(byte[] encoded) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        return toEncoded(encoded, 0, encoded.length);
+    }
+
+    /**
+     * Convert a binary polyline to the URL-safe text format, without decoding the values.
+     *
+     * @param encoded array holding the encoded polyline
+     * @param offset index of the first byte of the encoded polyline
+     * @param length number of bytes of the encoded polyline
+     * @return URL-safe encoded {@link String}
+     */
+    public static String toEncoded(byte[] encoded, int offset, int length) {
+        Reader reader = new Reader(encoded, offset, length);
+        final int dimensions = reader.thirdDimension != ThirdDimension.ABSENT ? 3 : 2;
+        StringEncoder enc = new StringEncoder(reader.precision, reader.thirdDimension, reader.thirdDimPrecision);
+        enc.getResult().ensureCapacity(length * 8 / 5 + 1);
+        long values = 0;
+        while (reader.hasNext()) {
+            enc.appendVarint(reader.readVarint());
+            values++;
+        }
+        if (values % dimensions != 0) {
+            throw new IllegalArgumentException("Unexpected end of encoded bytes");
+        }
+        return enc.getEncoded();
+    }
+
+    /*
+     * Encoder writing 7 bit varints to a growing array.
+     */
+    private static final class BinaryEncoder extends Encoder {
+
+        // Three varints of at most 10 bytes each
+        private static final int MAX_POINT_LENGTH = 30;
+
+        private byte[] result;
+        private int position;
+
+        BinaryEncoder(int precision, ThirdDimension thirdDimension, int thirdDimPrecision, int points) {
+            super(precision, thirdDimension, thirdDimPrecision);
+            // Room for a few bytes per value of most polylines, grown when needed
+            this.result = new byte[Math.max(16, Math.min(points, 1 << 20) * 8)];
+            writeHeader();
+        }
+
+        void ensureCapacity(int capacity) {
+            if (result.length < capacity) {
+                result = Arrays.copyOf(result, capacity);
+            }
+        }
+
+        @Override
+        void appendVarint(long value) {
+            if (position > result.length - MAX_POINT_LENGTH) {
+                result = Arrays.copyOf(result, result.length * 2 + MAX_POINT_LENGTH);
+            }
+            while ((value & ~0x7FL) != 0) {
+                result[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            result[position++] = (byte) value;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(result, position);
+        }
+    }
+
+    /*
+     * Reads the header on construction, then the varints of the values.
+     */
+    private static final class Reader {
+
+        private final byte[] bytes;
+        private final int begin;
+        private final int end;
+        private int position;
+
+        final int precision;
+        final ThirdDimension thirdDimension;
+        final int thirdDimPrecision;
+        final Converter lat;
+        final Converter lng;
+        final Converter z;
+
+        Reader(byte[] encoded, int offset, int length) {
+            if (encoded == null) {
+                throw new IllegalArgumentException("Invalid argument!");
+            }
+            if (offset < 0 || length < 0 || offset > encoded.length - length) {
+                throw new IllegalArgumentException("Invalid range");
+            }
+            if (length == 0) {
+                throw new IllegalArgumentException("Invalid argument!");
+            }
+            this.bytes = encoded;
+            this.begin = offset;
+            this.end = offset + length;
+            this.position = offset;
+            if (readVarint() != PolylineEncoderDecoder.FORMAT_VERSION) {
+                throw new IllegalArgumentException("Invalid format version");
+            }
+            long header = readVarint();
+            if (header > 0x7ff) {
+                throw new IllegalArgumentException("Invalid header");
+            }
+            this.precision = (int) (header & 0x0f);
+            this.thirdDimension = ThirdDimension.fromNum((header >> 4) & 0x07);
+            this.thirdDimPrecision = (int) ((header >> 7) & 0x0f);
+            this.lat = new Converter(precision);
+            this.lng = new Converter(precision);
+            this.z = new Converter(thirdDimPrecision);
+        }
+
+        boolean hasNext() {
+            return position < end;
+        }
+
+        long readVarint() {
+            int pos = position;
+            if (end - pos < 10) {
+                return readVarintChecked();
+            }
+            // Room for the longest varint, no bounds check per byte
+            long b = bytes[pos++];
+            long result = b & 0x7F;
+            for (int shift = 7; b < 0 && shift < 63; shift += 7) {
+                b = bytes[pos++];
+                result |= (b & 0x7F) << shift;
+            }
+            if (b < 0) {
+                // Only the 64th bit would be left, values are limited to 63 bits
+                if (bytes[pos++] != 0) {
+                    throw new IllegalArgumentException("Invalid varint at index " + (position - begin));
+                }
+            }
+            position = pos;
+            return result;
+        }
+
+        private long readVarintChecked() {
+            final int start = position;
+            long result = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (position >= end) {
+                    throw new IllegalArgumentException("Unexpected end of encoded bytes");
+                }
+                final byte b = bytes[position++];
+                if (shift == 63 && b != 0) {
+                    throw new IllegalArgumentException("Invalid varint at index " + (start - begin));
+                }
+                result |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return result;
+                }
+            }
+        }
+    }
+}
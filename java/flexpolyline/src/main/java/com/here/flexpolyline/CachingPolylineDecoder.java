@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.here.flexpolyline.PolylineEncoderDecoder.LatLngZ;
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * Decoder keeping the results of recently decoded polylines, for inputs where the same encoded
+ * string comes back often, such as popular routes or geofences.
+ *
+ * The cache is bounded either by number of entries or by an estimate of the bytes retained by keys
+ * and decoded points. It is split into stripes, each guarded by its own lock, so that threads decoding
+ * different polylines rarely contend. The bound is divided between the stripes and each stripe evicts
+ * its own least recently used entries first: eviction is LRU per stripe, not across the whole cache,
+ * so an entry may be evicted while older entries of other stripes are kept.
+ * Decoding happens outside the lock: threads missing on the same polyline at the same time may
+ * both decode it, and one of the results is kept.
+ *
+ * Cached results are unmodifiable lists of immutable {@link LatLngZ} and are shared between all callers.
+ * Malformed inputs are never cached and throw the same exceptions as {@link PolylineEncoderDecoder#decode(String)}.
+ *
+ * Instances can be shared between threads.
+ */
+public final class CachingPolylineDecoder {
+
+    // Estimated bytes of an entry: map node, key String and list, without chars and points
+    private static final long ENTRY_OVERHEAD = 128;
+    // Estimated bytes of a point: LatLngZ with 3 doubles and its reference in the list
+    private static final long POINT_BYTES = 48;
+
+    private static final int MAX_STRIPES = 16;
+
+    private final Stripe[] stripes;
+    private final long maximumEntries;
+    private final long maximumBytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private CachingPolylineDecoder(long maximumEntries, long maximumBytes, int stripeCount) {
+        this.maximumEntries = maximumEntries;
+        this.maximumBytes = maximumBytes;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            // The first stripes take the remainder, so that the shares add up to the requested capacity
+            stripes[i] = new Stripe(share(maximumEntries, stripeCount, i), share(maximumBytes, stripeCount, i));
+        }
+    }
+
+    /**
+     * Cache holding at most {@code maximumEntries} decoded polylines.
+     *
+     * @param maximumEntries maximum number of cached polylines
+     * @return the caching decoder
+     */
+    public static CachingPolylineDecoder withMaximumEntries(int maximumEntries) {
+        if (maximumEntries <= 0) {
+            throw new IllegalArgumentException("Invalid maximumEntries");
+        }
+        return new CachingPolylineDecoder(maximumEntries, Long.MAX_VALUE, stripeCount(maximumEntries));
+    }
+
+    /**
+     * Cache retaining an estimated {@code maximumBytes} at most for keys and decoded points.
+     * A polyline bigger than the share of a stripe is decoded but not cached.
+     *
+     * @param maximumBytes maximum estimated size of the cached polylines, in bytes
+     * @return the caching decoder
+     */
+    public static CachingPolylineDecoder withMaximumBytes(long maximumBytes) {
+        if (maximumBytes <= 0) {
+            throw new IllegalArgumentException("Invalid maximumBytes");
+        }
+        return new CachingPolylineDecoder(Long.MAX_VALUE, maximumBytes, stripeCount(maximumBytes / (1 << 16)));
+    }
+
+    private static long share(long capacity, int stripeCount, int stripe) {
+        return capacity / stripeCount + (stripe < capacity % stripeCount ? 1 : 0);
+    }
+
+    private static int stripeCount(long capacity) {
+        // Power of two, with a few entries per stripe at least
+        int count = 1;
+        while (count < MAX_STRIPES && count * 4L <= capacity) {
+            count <<= 1;
+        }
+        return count;
+    }
+
+    /**
+     * Decode the encoded input {@link CharSequence} to {@link List} of coordinate triples,
+     * returning the cached result when the same polyline was decoded recently.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @return unmodifiable {@link List} of coordinate triples that are decoded from input
+     */
+    public List<LatLngZ> decode(CharSequence encoded) {
+        return lookup(encoded).points;
+    }
+
+    /**
+     * Decode the encoded input {@link CharSequence} into the columns of a {@link PolylineBuffer},
+     * copying the cached result when the same polyline was decoded recently.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @param buffer {@link PolylineBuffer} receiving the decoded coordinates
+     * @return the given buffer
+     */
+    public PolylineBuffer decode(CharSequence encoded, PolylineBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("Invalid buffer");
+        }
+        final Entry entry = lookup(encoded);
+        buffer.clear(entry.thirdDimension);
+        buffer.ensureCapacity(entry.points.size());
+        for (LatLngZ point : entry.points) {
+            buffer.add(point.lat, point.lng, point.z);
+        }
+        return buffer;
+    }
+
+    /**
+     * @return number of calls answered from the cache
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of calls that decoded the polyline
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of polylines removed to make room for new ones
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return number of cached polylines
+     */
+    public long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return estimated bytes retained by the cached polylines
+     */
+    public long estimatedBytes() {
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            bytes += stripe.bytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return maximum number of cached polylines, {@link Long#MAX_VALUE} when bounded by bytes
+     */
+    public long getMaximumEntries() {
+        return maximumEntries;
+    }
+
+    /**
+     * @return maximum estimated bytes of the cached polylines, {@link Long#MAX_VALUE} when bounded by entries
+     */
+    public long getMaximumBytes() {
+        return maximumBytes;
+    }
+
+    /**
+     * Remove every cached polyline. Counters are kept.
+     */
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    private Entry lookup(CharSequence encoded) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        // Mutable sequences must not be used as keys
+        final String key = encoded.toString();
+        final Stripe stripe = stripes[spread(key.hashCode()) & (stripes.length - 1)];
+        final Entry cached = stripe.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        final List<LatLngZ> points = Collections.unmodifiableList(PolylineEncoderDecoder.decode(key));
+        final long weight = ENTRY_OVERHEAD + 2L * key.length() + POINT_BYTES * points.size();
+        return stripe.put(key, new Entry(points, PolylineEncoderDecoder.getThirdDimension(key), weight));
+    }
+
+    private static int spread(int hash) {
+        // Same bit mixing as HashMap, the low bits select the stripe
+        return hash ^ (hash >>> 16);
+    }
+
+    /*
+     * Access-ordered map guarded by its own lock, evicting from the eldest end.
+     */
+    private final class Stripe {
+        private final long maximumEntries;
+        private final long maximumBytes;
+        private final LinkedHashMap<String, Entry> map = new LinkedHashMap<>(16, 0.75f, true);
+        private long bytes;
+
+        Stripe(long maximumEntries, long maximumBytes) {
+            this.maximumEntries = maximumEntries;
+            this.maximumBytes = maximumBytes;
+        }
+
+        synchronized Entry get(String key) {
+            return map.get(key);
+        }
+
+        synchronized Entry put(String key, Entry entry) {
+            if (entry.weight > maximumBytes) {
+                return entry;
+            }
+            final Entry previous = map.get(key);
+            if (previous != null) {
+                // Decoded concurrently by another thread, keep the cached one
+                return previous;
+            }
+            map.put(key, entry);
+            bytes += entry.weight;
+            final Iterator<Map.Entry<String, Entry>> eldest = map.entrySet().iterator();
+            while (map.size() > maximumEntries || bytes > maximumBytes) {
+                bytes -= eldest.next().getValue().weight;
+                eldest.remove();
+                evictions.increment();
+            }
+            return entry;
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+
+        synchronized long bytes() {
+            return bytes;
+        }
+
+        synchronized void clear() {
+            map.clear();
+            bytes = 0;
+        }
+    }
+
+    private static final class Entry {
+        final List<LatLngZ> points;
+        final ThirdDimension thirdDimension;
+        final long weight;
+
+        Entry(List<LatLngZ> points, ThirdDimension thirdDimension, long weight) {
+            this.points = points;
+            this.thirdDimension = thirdDimension;
+            this.weight = weight;
+        }
+    }
+}
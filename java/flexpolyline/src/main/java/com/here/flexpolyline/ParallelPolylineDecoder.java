@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.here.flexpolyline.PolylineEncoderDecoder.Converter;
+import com.here.flexpolyline.PolylineEncoderDecoder.Decoder;
+import com.here.flexpolyline.PolylineEncoderDecoder.LatLngZ;
+
+/**
+ * Decoder splitting a single long encoded polyline across the threads of a {@link ForkJoinPool}.
+ *
+ * A value ends with the first char whose decoded value has the 0x20 continuation bit clear, so the input
+ * can be cut into chunks at value boundaries without decoding what comes before. Each chunk is decoded
+ * twice in parallel: first to sum its deltas per dimension, then, once the absolute values at the start of
+ * every chunk are known from the sums of the chunks before it, to write its points.
+ * All arithmetic is the same as in {@link PolylineEncoderDecoder#decode(String)}, so results are bit-identical.
+ *
+ * Inputs shorter than the configured threshold are decoded sequentially. Malformed inputs also fall back
+ * to sequential decoding, so that exceptions are the same as for {@link PolylineEncoderDecoder#decode(String)}.
+ *
+ * Instances hold no state besides their configuration and can be shared between threads.
+ */
+public final class ParallelPolylineDecoder {
+
+    /**
+     * Default minimum number of chars for an input to be decoded in parallel.
+     */
+    public static final int DEFAULT_MIN_PARALLEL_LENGTH = 1 << 18;
+
+    // Chunks smaller than this are not worth a task of their own
+    private static final int MIN_CHUNK_LENGTH = 1 << 14;
+
+    private final ForkJoinPool pool;
+    private final int minParallelLength;
+
+    /**
+     * Decoder running on the common {@link ForkJoinPool} with {@link #DEFAULT_MIN_PARALLEL_LENGTH}.
+     */
+    public ParallelPolylineDecoder() {
+        this(ForkJoinPool.commonPool(), DEFAULT_MIN_PARALLEL_LENGTH);
+    }
+
+    /**
+     * @param pool {@link ForkJoinPool} running the chunk tasks
+     * @param minParallelLength minimum number of chars for an input to be decoded in parallel
+     */
+    public ParallelPolylineDecoder(ForkJoinPool pool, int minParallelLength) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Invalid pool");
+        }
+        if (minParallelLength < 0) {
+            throw new IllegalArgumentException("Invalid minParallelLength");
+        }
+        this.pool = pool;
+        this.minParallelLength = minParallelLength;
+    }
+
+    /**
+     * Decode the encoded input {@link CharSequence} to {@link List} of coordinate triples.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @return {@link List} of coordinate triples that are decoded from input
+     */
+    public List<LatLngZ> decode(CharSequence encoded) {
+        if (encoded == null || encoded.length() < minParallelLength) {
+            return PolylineEncoderDecoder.decode(encoded);
+        }
+        final PolylineMetrics metrics = PolylineEncoderDecoder.getMetrics();
+        final long start = metrics == null ? 0 : System.nanoTime();
+        final PolylineBuffer buffer = new PolylineBuffer(0);
+        if (!decodeParallel(encoded, buffer)) {
+            return PolylineEncoderDecoder.decode(encoded);
+        }
+        final LatLngZ[] points = new LatLngZ[buffer.size()];
+        final boolean hasZ = buffer.hasThirdDimension();
+        pool.invoke(new RangeTask((from, to) -> {
+            for (int i = from; i < to; i++) {
+                points[i] = hasZ ? new LatLngZ(buffer.lat()[i], buffer.lng()[i], buffer.z()[i])
+                                 : new LatLngZ(buffer.lat()[i], buffer.lng()[i]);
+            }
+        }, 0, points.length, MIN_CHUNK_LENGTH));
+        decoded(metrics, encoded, points.length, start);
+        return new ArrayList<>(Arrays.asList(points));
+    }
+
+    /**
+     * Decode the encoded input {@link CharSequence} into the columns of a {@link PolylineBuffer}.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}, must not change while decoding
+     * @param buffer {@link PolylineBuffer} receiving the decoded coordinates
+     * @return the given buffer
+     */
+    public PolylineBuffer decode(CharSequence encoded, PolylineBuffer buffer) {
+        if (encoded == null || buffer == null || encoded.length() < minParallelLength) {
+            return PolylineEncoderDecoder.decode(encoded, buffer);
+        }
+        final PolylineMetrics metrics = PolylineEncoderDecoder.getMetrics();
+        final long start = metrics == null ? 0 : System.nanoTime();
+        if (!decodeParallel(encoded, buffer)) {
+            return PolylineEncoderDecoder.decode(encoded, buffer);
+        }
+        decoded(metrics, encoded, buffer.size(), start);
+        return buffer;
+    }
+
+    //Report a parallel decoding like the sequential decoder reports its own
+    private static void decoded(PolylineMetrics metrics, CharSequence encoded, int points, long start) {
+        if (metrics != null) {
+            // The header was read successfully by decodeParallel
+            final Decoder header = Decoder.of(encoded).readHeader();
+            metrics.decoded(points, encoded.length(), header.getPrecision(), header.getThirdDimension(),
+                    System.nanoTime() - start);
+        }
+    }
+
+    /*
+     * Returns false when the input is malformed, leaving the exception to the sequential decoder.
+     */
+    private boolean decodeParallel(final CharSequence encoded, final PolylineBuffer buffer) {
+        final Decoder header = Decoder.of(encoded);
+        if (header.isBlank()) {
+            return false;
+        }
+        try {
+            header.readHeader();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        final int dimensions = header.hasThirdDimension() ? 3 : 2;
+        final int dataStart = header.getPosition();
+        final int length = encoded.length();
+
+        final int[] bounds = chunkBounds(encoded, dataStart, length);
+        if (bounds == null) {
+            return false;
+        }
+        final int chunks = bounds.length - 1;
+
+        // Pass 1: count values and sum deltas per dimension, relative to the first value of the chunk
+        final int[] counts = new int[chunks];
+        final long[][] sums = new long[chunks][dimensions];
+        final boolean[] malformed = new boolean[1];
+        pool.invoke(new RangeTask((from, to) -> {
+            Decoder dec = Decoder.of(encoded);
+            for (int c = from; c < to; c++) {
+                dec.range(bounds[c], bounds[c + 1]);
+                long[] sum = sums[c];
+                int count = 0;
+                try {
+                    while (dec.hasNext()) {
+                        sum[count % dimensions] += Converter.decodeDelta(dec.decodeUnsignedVarint());
+                        count++;
+                    }
+                } catch (IllegalArgumentException e) {
+                    malformed[0] = true;
+                    return;
+                }
+                counts[c] = count;
+            }
+        }, 0, chunks, 1));
+        if (malformed[0]) {
+            return false;
+        }
+
+        // Absolute values and value index at the start of each chunk
+        final long[][] starts = new long[chunks][dimensions];
+        final long[] firstValue = new long[chunks];
+        long[] absolute = new long[dimensions];
+        long values = 0;
+        for (int c = 0; c < chunks; c++) {
+            firstValue[c] = values;
+            System.arraycopy(absolute, 0, starts[c], 0, dimensions);
+            int phase = (int) (values % dimensions);
+            for (int i = 0; i < dimensions; i++) {
+                absolute[(phase + i) % dimensions] += sums[c][i];
+            }
+            values += counts[c];
+        }
+        if (values % dimensions != 0 || values / dimensions > Integer.MAX_VALUE - 8) {
+            return false;
+        }
+
+        // Pass 2: decode again, now with the absolute start values
+        final int points = (int) (values / dimensions);
+        buffer.clear(header.getThirdDimension());
+        buffer.ensureCapacity(points);
+        final double[][] columns = dimensions == 3
+                ? new double[][] {buffer.lat(), buffer.lng(), buffer.z()}
+                : new double[][] {buffer.lat(), buffer.lng()};
+        final int precision = header.getPrecision();
+        final int thirdDimPrecision = header.getThirdDimPrecision();
+        pool.invoke(new RangeTask((from, to) -> {
+            Decoder dec = Decoder.of(encoded);
+            Converter[] converters = {new Converter(precision), new Converter(precision), new Converter(thirdDimPrecision)};
+            for (int c = from; c < to; c++) {
+                dec.range(bounds[c], bounds[c + 1]);
+                for (int i = 0; i < dimensions; i++) {
+                    converters[i].setLastValue(starts[c][i]);
+                }
+                long value = firstValue[c];
+                int dimension = (int) (value % dimensions);
+                int point = (int) (value / dimensions);
+                while (dec.hasNext()) {
+                    columns[dimension][point] = converters[dimension].decodeValue(dec.decodeUnsignedVarint());
+                    if (++dimension == dimensions) {
+                        dimension = 0;
+                        point++;
+                    }
+                }
+            }
+        }, 0, chunks, 1));
+        buffer.setSize(points);
+        return true;
+    }
+
+    /*
+     * Chunk boundaries in [dataStart, length), each moved forward to the start of a value.
+     * Returns null when an invalid char or a value longer than a long is found.
+     */
+    private int[] chunkBounds(CharSequence encoded, int dataStart, int length) {
+        int dataLength = length - dataStart;
+        int chunks = Math.max(1, Math.min(pool.getParallelism() * 4, dataLength / MIN_CHUNK_LENGTH));
+        int[] bounds = new int[chunks + 1];
+        bounds[0] = dataStart;
+        bounds[chunks] = length;
+        for (int c = 1; c < chunks; c++) {
+            int index = dataStart + (int) ((long) dataLength * c / chunks);
+            index = Math.max(index, bounds[c - 1]);
+            // The previous char either ends a value or continues one, skip to its end
+            int limit = index + 13;
+            while (index > dataStart && index < length) {
+                int value = PolylineEncoderDecoder.decodeChar(encoded.charAt(index - 1));
+                if (value < 0) {
+                    return null;
+                }
+                if ((value & 0x20) == 0) {
+                    break;
+                }
+                if (++index > limit) {
+                    return null;
+                }
+            }
+            bounds[c] = index;
+        }
+        return bounds;
+    }
+
+    private interface RangeBody {
+        void run(int from, int to);
+    }
+
+    /*
+     * Recursively splits [from, to) down to `grain` and runs the body on the pieces.
+     */
+    private static final class RangeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RangeBody body;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        RangeTask(RangeBody body, int from, int to, int grain) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                body.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(body, from, middle, grain), new RangeTask(body, middle, to, grain));
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline;
+
+import java.util.Arrays;
+
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * Growable columnar storage for decoded coordinates.
+ *
+ * Coordinates are kept in parallel primitive arrays instead of one {@link PolylineEncoderDecoder.LatLngZ}
+ * object per point. The third dimension column is only allocated when the decoded polyline has one.
+ * A buffer can be reused across decode calls: its arrays are kept and only grown when needed.
+ *
+ * Instances are not thread-safe.
+ */
+public class PolylineBuffer {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final double[] EMPTY = new double[0];
+
+    private double[] lat;
+    private double[] lng;
+    private double[] z;
+    private int size;
+    private ThirdDimension thirdDimension = ThirdDimension.ABSENT;
+
+    public PolylineBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PolylineBuffer(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Invalid capacity");
+        }
+        this.lat = new double[capacity];
+        this.lng = new double[capacity];
+        this.z = EMPTY;
+    }
+
+    /**
+     * Use caller supplied arrays as initial storage. They are replaced by larger copies if the
+     * decoded polyline does not fit, so always read the result back through {@link #lat()} etc.
+     *
+     * @param lat latitude column
+     * @param lng longitude column, same length as lat
+     * @param z third dimension column, may be null
+     */
+    public PolylineBuffer(double[] lat, double[] lng, double[] z) {
+        if (lat == null || lng == null || lat.length != lng.length) {
+            throw new IllegalArgumentException("Invalid arrays");
+        }
+        this.lat = lat;
+        this.lng = lng;
+        this.z = z == null ? EMPTY : z;
+    }
+
+    /**
+     * @return number of points held in this buffer
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return {@link ThirdDimension} of the last decoded polyline
+     */
+    public ThirdDimension getThirdDimension() {
+        return thirdDimension;
+    }
+
+    public boolean hasThirdDimension() {
+        return thirdDimension != ThirdDimension.ABSENT;
+    }
+
+    public double lat(int index) {
+        checkIndex(index);
+        return lat[index];
+    }
+
+    public double lng(int index) {
+        checkIndex(index);
+        return lng[index];
+    }
+
+    /**
+     * @return third dimension value, or 0 when the polyline has none
+     */
+    public double z(int index) {
+        checkIndex(index);
+        return hasThirdDimension() ? z[index] : 0;
+    }
+
+    /**
+     * @return backing latitude array, valid up to {@link #size()}
+     */
+    public double[] lat() {
+        return lat;
+    }
+
+    /**
+     * @return backing longitude array, valid up to {@link #size()}
+     */
+    public double[] lng() {
+        return lng;
+    }
+
+    /**
+     * @return backing third dimension array, valid up to {@link #size()} when {@link #hasThirdDimension()}
+     */
+    public double[] z() {
+        return z;
+    }
+
+    /**
+     * Remove all points and set the third dimension of the content to follow. Storage is kept.
+     *
+     * @param thirdDimension {@link ThirdDimension} of the points to be added
+     * @return this buffer
+     */
+    public PolylineBuffer clear(ThirdDimension thirdDimension) {
+        if (thirdDimension == null) {
+            throw new IllegalArgumentException("Invalid thirdDimension");
+        }
+        this.thirdDimension = thirdDimension;
+        this.size = 0;
+        return this;
+    }
+
+    public void add(double lat, double lng) {
+        add(lat, lng, 0);
+    }
+
+    public void add(double lat, double lng, double z) {
+        if (size == this.lat.length) {
+            grow();
+        }
+        this.lat[size] = lat;
+        this.lng[size] = lng;
+        if (hasThirdDimension()) {
+            if (this.z.length < this.lat.length) {
+                this.z = Arrays.copyOf(this.z, this.lat.length);
+            }
+            this.z[size] = z;
+        }
+        size++;
+    }
+
+    /**
+     * Make sure the buffer can hold {@code capacity} points without reallocating.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > lat.length) {
+            lat = Arrays.copyOf(lat, capacity);
+            lng = Arrays.copyOf(lng, capacity);
+        }
+        if (hasThirdDimension() && capacity > z.length) {
+            z = Arrays.copyOf(z, capacity);
+        }
+    }
+
+    /*
+     * Used by bulk writers filling the arrays directly, after ensureCapacity(size).
+     */
+    void setSize(int size) {
+        this.size = size;
+    }
+
+    private void grow() {
+        int capacity = lat.length;
+        ensureCapacity(capacity < DEFAULT_CAPACITY ? DEFAULT_CAPACITY : capacity + (capacity >> 1));
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
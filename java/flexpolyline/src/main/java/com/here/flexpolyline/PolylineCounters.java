@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * {@link PolylineMetrics} summing calls, points, chars and time of encode and decode calls.
+ *
+ * Counters are striped {@link LongAdder}s, so that threads encoding and decoding concurrently
+ * do not contend on a shared value. Reads are cheap enough to be polled by a metrics exporter.
+ */
+public final class PolylineCounters implements PolylineMetrics {
+
+    private final LongAdder encodeCalls = new LongAdder();
+    private final LongAdder encodedPoints = new LongAdder();
+    private final LongAdder encodedLength = new LongAdder();
+    private final LongAdder encodeNanos = new LongAdder();
+    private final LongAdder decodeCalls = new LongAdder();
+    private final LongAdder decodedPoints = new LongAdder();
+    private final LongAdder decodedLength = new LongAdder();
+    private final LongAdder decodeNanos = new LongAdder();
+
+    @Override
+    public void encoded(int points, int length, int precision, ThirdDimension thirdDimension, long nanos) {
+        encodeCalls.increment();
+        encodedPoints.add(points);
+        encodedLength.add(length);
+        encodeNanos.add(nanos);
+    }
+
+    @Override
+    public void decoded(int points, int length, int precision, ThirdDimension thirdDimension, long nanos) {
+        decodeCalls.increment();
+        decodedPoints.add(points);
+        decodedLength.add(length);
+        decodeNanos.add(nanos);
+    }
+
+    public long getEncodeCalls() {
+        return encodeCalls.sum();
+    }
+
+    public long getEncodedPoints() {
+        return encodedPoints.sum();
+    }
+
+    /**
+     * @return total number of chars or bytes written by encode calls
+     */
+    public long getEncodedLength() {
+        return encodedLength.sum();
+    }
+
+    public long getEncodeNanos() {
+        return encodeNanos.sum();
+    }
+
+    public long getDecodeCalls() {
+        return decodeCalls.sum();
+    }
+
+    public long getDecodedPoints() {
+        return decodedPoints.sum();
+    }
+
+    /**
+     * @return total number of chars or bytes read by decode calls
+     */
+    public long getDecodedLength() {
+        return decodedLength.sum();
+    }
+
+    public long getDecodeNanos() {
+        return decodeNanos.sum();
+    }
+
+    /**
+     * Set every counter back to zero. Calls running concurrently may be partially counted.
+     */
+    public void reset() {
+        encodeCalls.reset();
+        encodedPoints.reset();
+        encodedLength.reset();
+        encodeNanos.reset();
+        decodeCalls.reset();
+        decodedPoints.reset();
+        decodedLength.reset();
+        decodeNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "PolylineCounters [encodeCalls=" + getEncodeCalls() + ", encodedPoints=" + getEncodedPoints()
+                + ", encodedLength=" + getEncodedLength() + ", encodeNanos=" + getEncodeNanos()
+                + ", decodeCalls=" + getDecodeCalls() + ", decodedPoints=" + getDecodedPoints()
+                + ", decodedLength=" + getDecodedLength() + ", decodeNanos=" + getDecodeNanos() + "]";
+    }
+}
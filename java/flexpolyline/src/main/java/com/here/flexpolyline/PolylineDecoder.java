@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.here.flexpolyline.PolylineEncoderDecoder.Decoder;
+import com.here.flexpolyline.PolylineEncoderDecoder.LatLngZ;
+import com.here.flexpolyline.PolylineEncoderDecoder.PointSpliterator;
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * Reusable decoder for hot loops decoding many polylines.
+ *
+ * {@link #reset(CharSequence)} points the decoder at a new encoded polyline and reads its header;
+ * its points are then decoded with {@link #decode()}, {@link #decode(PolylineBuffer)}, lazily
+ * with {@link #stream()} or one at a time with the primitive cursor {@link #next()}.
+ * Internal state is kept across resets, so that a single instance decodes any number of
+ * polylines without allocating beyond the result.
+ *
+ * Instances are not thread-safe and must be confined to a single thread. Use {@link #local()}
+ * for an instance bound to the calling thread.
+ */
+public final class PolylineDecoder {
+
+    private static final ThreadLocal<PolylineDecoder> LOCAL = ThreadLocal.withInitial(PolylineDecoder::new);
+
+    private final Decoder decoder = new Decoder();
+    private boolean ready;
+
+    /**
+     * Decoder owned by the calling thread.
+     *
+     * The instance is shared by all callers on the same thread: use it within a single decoding
+     * and never hand it over to another thread.
+     *
+     * @return the decoder of the calling thread
+     */
+    public static PolylineDecoder local() {
+        return LOCAL.get();
+    }
+
+    /**
+     * Start decoding a new encoded polyline.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @return this decoder
+     */
+    public PolylineDecoder reset(CharSequence encoded) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        return start(decoder.reset(encoded));
+    }
+
+    /**
+     * Start decoding a new encoded polyline stored as ASCII bytes.
+     *
+     * @return this decoder
+     */
+    public PolylineDecoder reset(byte[] encoded, int offset, int length) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        if (offset < 0 || length < 0 || offset > encoded.length - length) {
+            throw new IllegalArgumentException("Invalid range");
+        }
+        return start(decoder.reset(encoded, offset, length));
+    }
+
+    /**
+     * Start decoding the ASCII bytes between position and limit of a {@link ByteBuffer}.
+     * The position of the buffer is not modified.
+     *
+     * @return this decoder
+     */
+    public PolylineDecoder reset(ByteBuffer encoded) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        return start(decoder.reset(encoded));
+    }
+
+    private PolylineDecoder start(Decoder dec) {
+        ready = false;
+        if (dec.isBlank()) {
+            dec.release();
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        dec.readHeader();
+        ready = true;
+        return this;
+    }
+
+    /**
+     * Drop the reference to the current input, e.g. before returning to a pool.
+     */
+    public void clear() {
+        decoder.release();
+        ready = false;
+    }
+
+    public ThirdDimension getThirdDimension() {
+        checkReady();
+        return decoder.getThirdDimension();
+    }
+
+    public int getPrecision() {
+        checkReady();
+        return decoder.getPrecision();
+    }
+
+    public int getThirdDimPrecision() {
+        checkReady();
+        return decoder.getThirdDimPrecision();
+    }
+
+    /**
+     * Decode the remaining points to {@link List} of coordinate triples.
+     */
+    public List<LatLngZ> decode() {
+        checkReady();
+        final PolylineMetrics metrics = PolylineEncoderDecoder.getMetrics();
+        final long start = metrics == null ? 0 : System.nanoTime();
+        List<LatLngZ> result = new ArrayList<>();
+        LatLngZ coord;
+        while ((coord = decoder.decodeOne()) != null) {
+            result.add(coord);
+        }
+        decoded(metrics, result.size(), start);
+        return result;
+    }
+
+    /**
+     * Decode the remaining points into a {@link PolylineBuffer}, replacing its content.
+     *
+     * @return the given buffer
+     */
+    public PolylineBuffer decode(PolylineBuffer buffer) {
+        checkReady();
+        if (buffer == null) {
+            throw new IllegalArgumentException("Invalid buffer");
+        }
+        final PolylineMetrics metrics = PolylineEncoderDecoder.getMetrics();
+        final long start = metrics == null ? 0 : System.nanoTime();
+        buffer.clear(decoder.getThirdDimension());
+        while (decoder.decodeOne(buffer)) {
+            // keep decoding
+        }
+        decoded(metrics, buffer.size(), start);
+        return buffer;
+    }
+
+    private void decoded(PolylineMetrics metrics, int points, long start) {
+        if (metrics != null) {
+            metrics.decoded(points, decoder.getLength(), decoder.getPrecision(), decoder.getThirdDimension(),
+                    System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Decode the next point, to be read with {@link #lat()}, {@link #lng()} and {@link #z()}.
+     *
+     * This primitive cursor allocates nothing, whatever the number of points.
+     *
+     * @return false when all points have been decoded
+     */
+    public boolean next() {
+        checkReady();
+        return decoder.advance();
+    }
+
+    /**
+     * @return latitude of the point decoded by the last successful {@link #next()}
+     */
+    public double lat() {
+        return decoder.lat();
+    }
+
+    /**
+     * @return longitude of the point decoded by the last successful {@link #next()}
+     */
+    public double lng() {
+        return decoder.lng();
+    }
+
+    /**
+     * @return third dimension of the point decoded by the last successful {@link #next()}, 0 when ABSENT
+     */
+    public double z() {
+        return decoder.z();
+    }
+
+    /**
+     * Lazily decode the remaining points as they are consumed.
+     *
+     * The stream reads from this decoder: do not reset or otherwise use it until the stream is consumed.
+     *
+     * @return sequential, ordered {@link Stream} of coordinate triples
+     */
+    public Stream<LatLngZ> stream() {
+        checkReady();
+        return StreamSupport.stream(new PointSpliterator(decoder), false);
+    }
+
+    private void checkReady() {
+        if (!ready) {
+            throw new IllegalStateException("No encoded polyline, call reset first");
+        }
+    }
+}
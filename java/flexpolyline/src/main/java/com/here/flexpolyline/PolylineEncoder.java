@@ -0,0 +1,325 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import com.here.flexpolyline.PolylineEncoderDecoder.Decoder;
+import com.here.flexpolyline.PolylineEncoderDecoder.LatLngZ;
+import com.here.flexpolyline.PolylineEncoderDecoder.StringEncoder;
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * Reusable encoder for hot loops encoding many polylines.
+ *
+ * Points are added one by one, the encoded polyline is then read with {@link #getEncoded()} or
+ * written to a byte destination. {@link #reset(int, ThirdDimension, int)} starts a new polyline
+ * while keeping the internal buffer, so that a single instance encodes any number of polylines
+ * without allocating beyond the result.
+ *
+ * An encoder can also extend an existing polyline, e.g. for live tracking: {@link #resume(CharSequence)} continues
+ * after the points of an encoded polyline, {@link #resume(State)} after a {@link State} saved with {@link #getState()}
+ * without needing the polyline at all. Either way the result is the same as encoding all points at once.
+ *
+ * Instances are not thread-safe and must be confined to a single thread. Use {@link #local(int, ThirdDimension, int)}
+ * for an instance bound to the calling thread.
+ */
+public final class PolylineEncoder {
+
+    private static final ThreadLocal<PolylineEncoder> LOCAL = ThreadLocal.withInitial(() -> new PolylineEncoder(5, ThirdDimension.ABSENT, 0));
+
+    private final StringEncoder encoder;
+
+    /**
+     * @param precision   Floating point precision of the coordinate to be encoded.
+     * @param thirdDimension {@link ThirdDimension} which may be a level, altitude, elevation or some other custom value
+     * @param thirdDimPrecision Floating point precision for thirdDimension value
+     */
+    public PolylineEncoder(int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+        if (thirdDimension == null) {
+            throw new IllegalArgumentException("Invalid thirdDimension");
+        }
+        this.encoder = new StringEncoder(precision, thirdDimension, thirdDimPrecision);
+    }
+
+    /**
+     * Encoder owned by the calling thread, reset to the given settings.
+     *
+     * The instance is shared by all callers on the same thread: use it within a single encoding
+     * and never hand it over to another thread.
+     *
+     * @param precision   Floating point precision of the coordinate to be encoded.
+     * @param thirdDimension {@link ThirdDimension} which may be a level, altitude, elevation or some other custom value
+     * @param thirdDimPrecision Floating point precision for thirdDimension value
+     * @return the encoder of the calling thread
+     */
+    public static PolylineEncoder local(int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+        return LOCAL.get().reset(precision, thirdDimension, thirdDimPrecision);
+    }
+
+    /**
+     * Encoder continuing an encoded polyline: points added to it are appended to a copy of {@code encoded},
+     * with their deltas relative to its last point.
+     *
+     * The polyline is scanned once for its header and last point, without converting values, so that
+     * extending it costs O(new points) from then on instead of a full decode and re-encode.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @return new encoder holding {@code encoded}
+     */
+    public static PolylineEncoder resume(CharSequence encoded) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        Decoder dec = Decoder.of(encoded);
+        if (dec.isBlank()) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        dec.readHeader();
+        while (dec.skip()) {
+            // only the last point matters
+        }
+        PolylineEncoder result = new PolylineEncoder(dec.getPrecision(), dec.getThirdDimension(), dec.getThirdDimPrecision());
+        result.encoder.resume(dec.getPrecision(), dec.getThirdDimension(), dec.getThirdDimPrecision(),
+                encoded, dec.scaledLat(), dec.scaledLng(), dec.scaledZ());
+        return result;
+    }
+
+    /**
+     * Encoder continuing the polyline a {@link State} was saved from, without the polyline itself.
+     *
+     * {@link #getEncoded()} then only returns the chars of the points added since, to be appended to the
+     * stored polyline; {@link #getState()} gives the state to continue from next time.
+     *
+     * @param state {@link State} saved with {@link #getState()}
+     * @return new encoder holding no chars
+     */
+    public static PolylineEncoder resume(State state) {
+        if (state == null) {
+            throw new IllegalArgumentException("Invalid state");
+        }
+        PolylineEncoder result = new PolylineEncoder(state.precision, state.thirdDimension, state.thirdDimPrecision);
+        result.encoder.resume(state.precision, state.thirdDimension, state.thirdDimPrecision, "",
+                state.lat, state.lng, state.z);
+        return result;
+    }
+
+    /**
+     * @return header and last point of the polyline, enough to append to it with {@link #resume(State)}
+     */
+    public State getState() {
+        return new State(encoder.getPrecision(), encoder.getThirdDimension(), encoder.getThirdDimPrecision(),
+                encoder.scaledLat(), encoder.scaledLng(), encoder.scaledZ());
+    }
+
+    /**
+     * Discard all points and start a new polyline with the given settings.
+     *
+     * @return this encoder
+     */
+    public PolylineEncoder reset(int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+        if (thirdDimension == null) {
+            throw new IllegalArgumentException("Invalid thirdDimension");
+        }
+        encoder.reset(precision, thirdDimension, thirdDimPrecision);
+        return this;
+    }
+
+    public ThirdDimension getThirdDimension() {
+        return encoder.getThirdDimension();
+    }
+
+    public PolylineEncoder add(double lat, double lng) {
+        encoder.add(lat, lng, 0);
+        return this;
+    }
+
+    /**
+     * Add a point. The third dimension value is ignored when the encoder was set up with ABSENT.
+     *
+     * @return this encoder
+     */
+    public PolylineEncoder add(double lat, double lng, double z) {
+        encoder.add(lat, lng, z);
+        return this;
+    }
+
+    public PolylineEncoder add(LatLngZ tuple) {
+        encoder.add(tuple);
+        return this;
+    }
+
+    public PolylineEncoder addAll(List<LatLngZ> coordinates) {
+        if (coordinates == null) {
+            throw new IllegalArgumentException("Invalid coordinates!");
+        }
+        encoder.addAll(coordinates);
+        return this;
+    }
+
+    /**
+     * @return number of characters of {@link #getEncoded()}
+     */
+    public int length() {
+        return encoder.getResult().length();
+    }
+
+    /**
+     * @return URL-safe encoded {@link String} for the points added since the last reset, or since
+     *         {@link #resume(State)} without header
+     */
+    public String getEncoded() {
+        return encoder.getEncoded();
+    }
+
+    /**
+     * Append the encoded polyline to a {@link StringBuilder} without creating an intermediate {@link String}.
+     *
+     * @return the given builder
+     */
+    public StringBuilder appendTo(StringBuilder out) {
+        return out.append(encoder.getResult());
+    }
+
+    /**
+     * Write the encoded polyline as ASCII bytes into an array.
+     *
+     * @return number of bytes written
+     * @throws BufferOverflowException if the encoded polyline does not fit into the array
+     */
+    public int writeTo(byte[] out, int offset) {
+        StringBuilder result = encoder.getResult();
+        int length = result.length();
+        if (offset < 0 || offset > out.length) {
+            throw new IllegalArgumentException("Invalid offset");
+        }
+        if (out.length - offset < length) {
+            throw new BufferOverflowException();
+        }
+        for (int i = 0; i < length; i++) {
+            out[offset + i] = (byte) result.charAt(i);
+        }
+        return length;
+    }
+
+    /**
+     * Write the encoded polyline as ASCII bytes at the position of a heap or direct {@link ByteBuffer},
+     * advancing the position.
+     *
+     * @return number of bytes written
+     * @throws BufferOverflowException if the encoded polyline does not fit into the remaining buffer
+     */
+    public int writeTo(ByteBuffer out) {
+        StringBuilder result = encoder.getResult();
+        int length = result.length();
+        if (out.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        for (int i = 0; i < length; i++) {
+            out.put((byte) result.charAt(i));
+        }
+        return length;
+    }
+
+    /**
+     * Header and scaled values of the last point of a polyline, all an encoder needs to append to it.
+     *
+     * {@link #serialize()} stores it as a polyline of that single point, with absolute values: a few
+     * dozen ASCII chars at most, whatever the length of the polyline.
+     */
+    public static final class State {
+
+        private final int precision;
+        private final ThirdDimension thirdDimension;
+        private final int thirdDimPrecision;
+        private final long lat;
+        private final long lng;
+        private final long z;
+
+        State(int precision, ThirdDimension thirdDimension, int thirdDimPrecision, long lat, long lng, long z) {
+            this.precision = precision;
+            this.thirdDimension = thirdDimension;
+            this.thirdDimPrecision = thirdDimPrecision;
+            this.lat = lat;
+            this.lng = lng;
+            this.z = z;
+        }
+
+        /**
+         * Read a state written by {@link #serialize()}.
+         *
+         * @param serialized URL-safe encoded single point polyline
+         * @return the state
+         */
+        public static State parse(CharSequence serialized) {
+            if (serialized == null) {
+                throw new IllegalArgumentException("Invalid argument!");
+            }
+            Decoder dec = Decoder.of(serialized);
+            if (dec.isBlank()) {
+                throw new IllegalArgumentException("Invalid argument!");
+            }
+            dec.readHeader();
+            if (!dec.skip() || dec.hasNext()) {
+                throw new IllegalArgumentException("Invalid state");
+            }
+            return new State(dec.getPrecision(), dec.getThirdDimension(), dec.getThirdDimPrecision(),
+                    dec.scaledLat(), dec.scaledLng(), dec.scaledZ());
+        }
+
+        /**
+         * @return URL-safe encoded polyline of the last point, read back by {@link #parse(CharSequence)}
+         */
+        public String serialize() {
+            StringEncoder enc = new StringEncoder(precision, thirdDimension, thirdDimPrecision);
+            enc.addScaled(lat, lng, z);
+            return enc.getEncoded();
+        }
+
+        public int getPrecision() {
+            return precision;
+        }
+
+        public ThirdDimension getThirdDimension() {
+            return thirdDimension;
+        }
+
+        public int getThirdDimPrecision() {
+            return thirdDimPrecision;
+        }
+
+        /**
+         * @return latitude of the last point multiplied by {@code 10^precision}, 0 without points
+         */
+        public long getScaledLat() {
+            return lat;
+        }
+
+        /**
+         * @return longitude of the last point multiplied by {@code 10^precision}, 0 without points
+         */
+        public long getScaledLng() {
+            return lng;
+        }
+
+        /**
+         * @return third dimension value of the last point multiplied by {@code 10^thirdDimPrecision},
+         *         0 without points or third dimension
+         */
+        public long getScaledZ() {
+            return z;
+        }
+
+        @Override
+        public String toString() {
+            return "State [precision=" + precision + ", thirdDimension=" + thirdDimension
+                    + ", thirdDimPrecision=" + thirdDimPrecision + ", lat=" + lat + ", lng=" + lng + ", z=" + z + "]";
+        }
+    }
+}
@@ -0,0 +1,2309 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.text.CharacterIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The polyline encoding is a lossy compressed representation of a list of coordinate pairs or coordinate triples.
+ * It achieves that by:
+ * <p><ol>
+ * <li>Reducing the decimal digits of each value.
+ * <li>Encoding only the offset from the previous point.
+ * <li>Using variable length for each coordinate delta.
+ * <li>Using 64 URL-safe characters to display the result.
+ * </ol><p>
+ *
+ * The advantage of this encoding are the following:
+ * <p><ul>
+ * <li> Output string is composed by only URL-safe characters
+ * <li> Floating point precision is configurable
+ * <li> It allows to encode a 3rd dimension with a given precision, which may be a level, altitude, elevation or some other custom value
+ * </ul><p>
+ */
+public class PolylineEncoderDecoder {
+
+    /**
+     * Header version
+     * A change in the version may affect the logic to encode and decode the rest of the header and data
+     */
+    public static final byte FORMAT_VERSION = 1;
+
+    //Base64 URL-safe characters
+    public static final char[] ENCODING_TABLE = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+    public static final  int[] DECODING_TABLE = {
+            62, -1, -1, 52, 53, 54, 55, 56, 57, 58, 59, 60, 61, -1, -1, -1, -1, -1, -1, -1,
+            0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21,
+            22, 23, 24, 25, -1, -1, -1, -1, 63, -1, 26, 27, 28, 29, 30, 31, 32, 33, 34, 35,
+            36, 37, 38, 39, 40, 41, 42, 43, 44, 45, 46, 47, 48, 49, 50, 51
+    };
+
+    // Decoded value for each ASCII/Latin-1 char, -1 when not part of ENCODING_TABLE
+    private static final byte[] DECODE_LOOKUP = new byte[256];
+
+    static {
+        Arrays.fill(DECODE_LOOKUP, (byte) -1);
+        for (int i = 0; i < ENCODING_TABLE.length; i++) {
+            DECODE_LOOKUP[ENCODING_TABLE[i]] = (byte) i;
+        }
+    }
+
+    // Null unless instrumentation is enabled, the only cost of disabled instrumentation is reading it
+    private static volatile PolylineMetrics metrics;
+
+    /**
+     * Report every successful encode and decode call of this class to {@code metrics}.
+     *
+     * Covers the static encode, encodeTo, encodeInterleaved, decode and decodeBytes methods and the
+     * batch methods built on them. Disabled by default.
+     *
+     * @param metrics receiver of the measurements, null to disable instrumentation
+     */
+    public static void setMetrics(PolylineMetrics metrics) {
+        PolylineEncoderDecoder.metrics = metrics;
+    }
+
+    /**
+     * @return the installed {@link PolylineMetrics}, null when instrumentation is disabled
+     */
+    public static PolylineMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Encode the list of coordinate triples.
+     *
+     * The third dimension value will be eligible for encoding only when ThirdDimension is other than ABSENT.
+     * This is lossy compression based on precision accuracy.
+     *
+     * @param coordinates {@link List} of coordinate triples that to be encoded.
+     * @param precision   Floating point precision of the coordinate to be encoded.
+     * @param thirdDimension {@link ThirdDimension} which may be a level, altitude, elevation or some other custom value
+     * @param thirdDimPrecision Floating point precision for thirdDimension value
+     * @return URL-safe encoded {@link String} for the given coordinates.
+     */
+    public static String encode(List<LatLngZ> coordinates, int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+        if (coordinates == null || coordinates.isEmpty()) {
+            throw new IllegalArgumentException("Invalid coordinates!");
+        }
+        if (thirdDimension == null) {
+            throw new IllegalArgumentException("Invalid thirdDimension");
+        }
+        final PolylineMetrics metrics = PolylineEncoderDecoder.metrics;
+        final long start = metrics == null ? 0 : System.nanoTime();
+        StringEncoder enc = new StringEncoder(precision, thirdDimension, thirdDimPrecision);
+        enc.addAll(coordinates);
+        return encoded(enc, coordinates.size(), metrics, start);
+    }
+
+    /**
+     * Encode the list of coordinate triples as ASCII bytes into a caller provided array.
+     *
+     * @param coordinates {@link List} of coordinate triples that to be encoded.
+     * @param precision   Floating point precision of the coordinate to be encoded.
+     * @param thirdDimension {@link ThirdDimension} which may be a level, altitude, elevation or some other custom value
+     * @param thirdDimPrecision Floating point precision for thirdDimension value
+     * @param result array receiving the encoded polyline
+     * @param offset index of the first byte to be written
+     * @return number of bytes written
+     * @throws BufferOverflowException if the encoded polyline does not fit into the array
+     */
+    public static int encodeTo(List<LatLngZ> coordinates, int precision, ThirdDimension thirdDimension, int thirdDimPrecision,
+                               byte[] result, int offset) {
+        if (coordinates == null || coordinates.isEmpty()) {
+            throw new IllegalArgumentException("Invalid coordinates!");
+        }
+        if (thirdDimension == null) {
+            throw new IllegalArgumentException("Invalid thirdDimension");
+        }
+        if (result == null) {
+            throw new IllegalArgumentException("Invalid result");
+        }
+        final PolylineMetrics metrics = PolylineEncoderDecoder.metrics;
+        final long start = metrics == null ? 0 : System.nanoTime();
+        ByteArrayEncoder enc = new ByteArrayEncoder(precision, thirdDimension, thirdDimPrecision, result, offset);
+        enc.addAll(coordinates);
+        int length = enc.getLength();
+        if (metrics != null) {
+            metrics.encoded(coordinates.size(), length, precision, thirdDimension, System.nanoTime() - start);
+        }
+        return length;
+    }
+
+    /**
+     * Encode the list of coordinate triples as ASCII bytes into a heap or direct {@link ByteBuffer}.
+     *
+     * Bytes are written starting at the buffer position, which is advanced past the encoded polyline.
+     * On failure the position is left unchanged.
+     *
+     * @param coordinates {@link List} of coordinate triples that to be encoded.
+     * @param precision   Floating point precision of the coordinate to be encoded.
+     * @param thirdDimension {@link ThirdDimension} which may be a level, altitude, elevation or some other custom value
+     * @param thirdDimPrecision Floating point precision for thirdDimension value
+     * @param result buffer receiving the encoded polyline
+     * @return number of bytes written
+     * @throws BufferOverflowException if the encoded polyline does not fit into the remaining buffer
+     */
+    public static int encodeTo(List<LatLngZ> coordinates, int precision, ThirdDimension thirdDimension, int thirdDimPrecision,
+                               ByteBuffer result) {
+        if (coordinates == null || coordinates.isEmpty()) {
+            throw new IllegalArgumentException("Invalid coordinates!");
+        }
+        if (thirdDimension == null) {
+            throw new IllegalArgumentException("Invalid thirdDimension");
+        }
+        if (result == null) {
+            throw new IllegalArgumentException("Invalid result");
+        }
+        final PolylineMetrics metrics = PolylineEncoderDecoder.metrics;
+        final long start = metrics == null ? 0 : System.nanoTime();
+        ByteBufferEncoder enc = new ByteBufferEncoder(precision, thirdDimension, thirdDimPrecision, result);
+        enc.addAll(coordinates);
+        int length = enc.commit();
+        if (metrics != null) {
+            metrics.encoded(coordinates.size(), length, precision, thirdDimension, System.nanoTime() - start);
+        }
+        return length;
+    }
+
+    /**
+     * Encode a range of coordinates held in parallel primitive arrays.
+     *
+     * No intermediate object is created per point.
+     *
+     * @param lat latitude column
+     * @param lng longitude column
+     * @param z third dimension column, may be null when thirdDimension is ABSENT
+     * @param offset index of the first coordinate to be encoded
+     * @param length number of coordinates to be encoded
+     * @param precision   Floating point precision of the coordinate to be encoded.
+     * @param thirdDimension {@link ThirdDimension} which may be a level, altitude, elevation or some other custom value
+     * @param thirdDimPrecision Floating point precision for thirdDimension value
+     * @return URL-safe encoded {@link String} for the given coordinates.
+     */
+    public static String encode(double[] lat, double[] lng, double[] z, int offset, int length,
+                                int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+        boolean hasZ = checkColumns(lat, lng, z, offset, length, thirdDimension);
+        final PolylineMetrics metrics = PolylineEncoderDecoder.metrics;
+        final long start = metrics == null ? 0 : System.nanoTime();
+        StringEncoder enc = new StringEncoder(precision, thirdDimension, thirdDimPrecision);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            enc.add(lat[i], lng[i], hasZ ? z[i] : 0);
+        }
+        return encoded(enc, length, metrics, start);
+    }
+
+    /**
+     * Encode fixed-point coordinates, already multiplied by {@code 10^precision}, and third dimension values,
+     * already multiplied by {@code 10^thirdDimPrecision}.
+     *
+     * The values are written as they are, without floating point math: decoding the result with
+     * {@link #decodeScaled(CharSequence, ScaledPolylineBuffer)} gives them back bit for bit. Values must be
+     * within &plusmn;(2^61 - 1), far beyond any coordinate at any precision.
+     *
+     * @param lat scaled latitude column
+     * @param lng scaled longitude column
+     * @param z scaled third dimension column, may be null when thirdDimension is ABSENT
+     * @param offset index of the first coordinate to be encoded
+     * @param length number of coordinates to be encoded
+     * @param precision   Floating point precision the coordinates are scaled with.
+     * @param thirdDimension {@link ThirdDimension} which may be a level, altitude, elevation or some other custom value
+     * @param thirdDimPrecision Floating point precision the thirdDimension values are scaled with
+     * @return URL-safe encoded {@link String} for the given coordinates.
+     */
+    public static String encodeScaled(long[] lat, long[] lng, long[] z, int offset, int length,
+                                      int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+        boolean hasZ = checkColumns(lat, lng, z, offset, length, thirdDimension);
+        final PolylineMetrics metrics = PolylineEncoderDecoder.metrics;
+        final long start = metrics == null ? 0 : System.nanoTime();
+        StringEncoder enc = new StringEncoder(precision, thirdDimension, thirdDimPrecision);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            enc.addScaled(lat[i], lng[i], hasZ ? z[i] : 0);
+        }
+        return encoded(enc, length, metrics, start);
+    }
+
+    /**
+     * Encode fixed-point coordinates held in {@code int} columns, e.g. degrees multiplied by 10^7 with precision 7.
+     *
+     * @see #encodeScaled(long[], long[], long[], int, int, int, ThirdDimension, int)
+     */
+    public static String encodeScaled(int[] lat, int[] lng, int[] z, int offset, int length,
+                                      int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+        boolean hasZ = checkColumns(lat, lng, z, offset, length, thirdDimension);
+        final PolylineMetrics metrics = PolylineEncoderDecoder.metrics;
+        final long start = metrics == null ? 0 : System.nanoTime();
+        StringEncoder enc = new StringEncoder(precision, thirdDimension, thirdDimPrecision);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            enc.addScaled(lat[i], lng[i], hasZ ? z[i] : 0);
+        }
+        return encoded(enc, length, metrics, start);
+    }
+
+    /**
+     * Encode the list of coordinate triples after dropping the points within one quantization step
+     * of the simplified line, i.e. {@code 10^-precision} in coordinate units and {@code 10^-thirdDimPrecision}
+     * for the third dimension.
+     *
+     * @see #encodeSimplified(List, int, ThirdDimension, int, double, double)
+     */
+    public static String encodeSimplified(List<LatLngZ> coordinates, int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+        return encodeSimplified(coordinates, precision, thirdDimension, thirdDimPrecision,
+                Math.pow(10, -precision), Math.pow(10, -thirdDimPrecision));
+    }
+
+    /**
+     * Encode the list of coordinate triples after simplifying the line with the given tolerance, keeping the
+     * third dimension within one quantization step, i.e. {@code 10^-thirdDimPrecision}.
+     *
+     * @see #encodeSimplified(List, int, ThirdDimension, int, double, double)
+     */
+    public static String encodeSimplified(List<LatLngZ> coordinates, int precision, ThirdDimension thirdDimension, int thirdDimPrecision,
+                                          double tolerance) {
+        return encodeSimplified(coordinates, precision, thirdDimension, thirdDimPrecision,
+                tolerance, Math.pow(10, -thirdDimPrecision));
+    }
+
+    /**
+     * Encode the list of coordinate triples after simplifying the line with the Douglas-Peucker algorithm.
+     *
+     * A point is dropped when it is within {@code tolerance} of the simplified line, measured in the lat/lng plane
+     * in coordinate units, and when its third dimension is within {@code thirdDimTolerance} of the value
+     * interpolated along the simplified line. The first and the last point are always kept.
+     *
+     * @param coordinates {@link List} of coordinate triples that to be encoded.
+     * @param precision   Floating point precision of the coordinate to be encoded.
+     * @param thirdDimension {@link ThirdDimension} which may be a level, altitude, elevation or some other custom value
+     * @param thirdDimPrecision Floating point precision for thirdDimension value
+     * @param tolerance maximum distance of a dropped point to the simplified line
+     * @param thirdDimTolerance maximum difference of the thirdDimension value of a dropped point to the
+     *                          simplified line, ignored when thirdDimension is ABSENT
+     * @return URL-safe encoded {@link String} for the simplified coordinates.
+     */
+    public static String encodeSimplified(List<LatLngZ> coordinates, int precision, ThirdDimension thirdDimension, int thirdDimPrecision,
+                                          double tolerance, double thirdDimTolerance) {
+        if (coordinates == null || coordinates.isEmpty()) {
+            throw new IllegalArgumentException("Invalid coordinates!");
+        }
+        if (thirdDimension == null) {
+            throw new IllegalArgumentException("Invalid thirdDimension");
+        }
+        if (!(tolerance >= 0) || !(thirdDimTolerance >= 0)) {
+            throw new IllegalArgumentException("Invalid tolerance");
+        }
+        final PolylineMetrics metrics = PolylineEncoderDecoder.metrics;
+        final long start = metrics == null ? 0 : System.nanoTime();
+        StringEncoder enc = new StringEncoder(precision, thirdDimension, thirdDimPrecision);
+        boolean hasZ = thirdDimension != ThirdDimension.ABSENT;
+        int size = coordinates.size();
+        double[] lat = new double[size];
+        double[] lng = new double[size];
+        double[] z = hasZ ? new double[size] : null;
+        int i = 0;
+        for (LatLngZ tuple : coordinates) {
+            if (tuple == null) {
+                throw new IllegalArgumentException("Invalid LatLngZ tuple");
+            }
+            lat[i] = tuple.lat;
+            lng[i] = tuple.lng;
+            if (hasZ) {
+                z[i] = tuple.z;
+            }
+            i++;
+        }
+        boolean[] keep = Simplifier.douglasPeucker(lat, lng, z, 0, size, tolerance, thirdDimTolerance);
+        int kept = 0;
+        i = 0;
+        for (LatLngZ tuple : coordinates) {
+            if (keep[i++]) {
+                enc.add(tuple);
+                kept++;
+            }
+        }
+        return encoded(enc, kept, metrics, start);
+    }
+
+    /**
+     * Encode a range of coordinates held in parallel primitive arrays after simplifying the line with the given
+     * tolerance, keeping the third dimension within one quantization step, i.e. {@code 10^-thirdDimPrecision}.
+     *
+     * @see #encodeSimplified(double[], double[], double[], int, int, int, ThirdDimension, int, double, double)
+     */
+    public static String encodeSimplified(double[] lat, double[] lng, double[] z, int offset, int length,
+                                          int precision, ThirdDimension thirdDimension, int thirdDimPrecision, double tolerance) {
+        return encodeSimplified(lat, lng, z, offset, length, precision, thirdDimension, thirdDimPrecision,
+                tolerance, Math.pow(10, -thirdDimPrecision));
+    }
+
+    /**
+     * Encode a range of coordinates held in parallel primitive arrays after simplifying the line with the
+     * Douglas-Peucker algorithm. No intermediate object is created per point.
+     *
+     * @param lat latitude column
+     * @param lng longitude column
+     * @param z third dimension column, may be null when thirdDimension is ABSENT
+     * @param offset index of the first coordinate to be encoded
+     * @param length number of coordinates to be encoded
+     * @param precision   Floating point precision of the coordinate to be encoded.
+     * @param thirdDimension {@link ThirdDimension} which may be a level, altitude, elevation or some other custom value
+     * @param thirdDimPrecision Floating point precision for thirdDimension value
+     * @param tolerance maximum distance of a dropped point to the simplified line
+     * @param thirdDimTolerance maximum difference of the thirdDimension value of a dropped point to the
+     *                          simplified line, ignored when thirdDimension is ABSENT
+     * @return URL-safe encoded {@link String} for the simplified coordinates.
+     * @see #encodeSimplified(List, int, ThirdDimension, int, double, double)
+     */
+    public static String encodeSimplified(double[] lat, double[] lng, double[] z, int offset, int length,
+                                          int precision, ThirdDimension thirdDimension, int thirdDimPrecision,
+                                          double tolerance, double thirdDimTolerance) {
+        boolean hasZ = checkColumns(lat, lng, z, offset, length, thirdDimension);
+        if (!(tolerance >= 0) || !(thirdDimTolerance >= 0)) {
+            throw new IllegalArgumentException("Invalid tolerance");
+        }
+        final PolylineMetrics metrics = PolylineEncoderDecoder.metrics;
+        final long start = metrics == null ? 0 : System.nanoTime();
+        StringEncoder enc = new StringEncoder(precision, thirdDimension, thirdDimPrecision);
+        boolean[] keep = Simplifier.douglasPeucker(lat, lng, hasZ ? z : null, offset, length, tolerance, thirdDimTolerance);
+        int kept = 0;
+        for (int i = 0; i < length; i++) {
+            if (keep[i]) {
+                enc.add(lat[offset + i], lng[offset + i], hasZ ? z[offset + i] : 0);
+                kept++;
+            }
+        }
+        return encoded(enc, kept, metrics, start);
+    }
+
+    /**
+     * Encode a range of coordinates interleaved in a single primitive array.
+     *
+     * Coordinate {@code i} is read from {@code coordinates[offset + i * stride]} (lat),
+     * the following element (lng) and, when thirdDimension is not ABSENT, the one after (z).
+     *
+     * @param coordinates interleaved coordinate values
+     * @param offset index of the first value of the first coordinate
+     * @param stride distance between the first values of two consecutive coordinates
+     * @param count number of coordinates to be encoded
+     * @param precision   Floating point precision of the coordinate to be encoded.
+     * @param thirdDimension {@link ThirdDimension} which may be a level, altitude, elevation or some other custom value
+     * @param thirdDimPrecision Floating point precision for thirdDimension value
+     * @return URL-safe encoded {@link String} for the given coordinates.
+     */
+    public static String encodeInterleaved(double[] coordinates, int offset, int stride, int count,
+                                           int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+        if (coordinates == null || count <= 0) {
+            throw new IllegalArgumentException("Invalid coordinates!");
+        }
+        if (thirdDimension == null) {
+            throw new IllegalArgumentException("Invalid thirdDimension");
+        }
+        boolean hasZ = thirdDimension != ThirdDimension.ABSENT;
+        checkInterleavedRange(coordinates.length, offset, stride, count, hasZ);
+        final PolylineMetrics metrics = PolylineEncoderDecoder.metrics;
+        final long start = metrics == null ? 0 : System.nanoTime();
+        StringEncoder enc = new StringEncoder(precision, thirdDimension, thirdDimPrecision);
+        for (int i = 0, pos = offset; i < count; i++, pos += stride) {
+            enc.add(coordinates[pos], coordinates[pos + 1], hasZ ? coordinates[pos + 2] : 0);
+        }
+        return encoded(enc, count, metrics, start);
+    }
+
+    /**
+     * Encode the coordinates between position and limit of parallel {@link DoubleBuffer} views.
+     *
+     * Works on heap and direct buffers alike. Positions of the buffers are not modified.
+     *
+     * @param lat latitude column
+     * @param lng longitude column, at least as many remaining values as lat
+     * @param z third dimension column, may be null when thirdDimension is ABSENT
+     * @param precision   Floating point precision of the coordinate to be encoded.
+     * @param thirdDimension {@link ThirdDimension} which may be a level, altitude, elevation or some other custom value
+     * @param thirdDimPrecision Floating point precision for thirdDimension value
+     * @return URL-safe encoded {@link String} for the given coordinates.
+     */
+    public static String encode(DoubleBuffer lat, DoubleBuffer lng, DoubleBuffer z,
+                                int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+        if (lat == null || lng == null || !lat.hasRemaining()) {
+            throw new IllegalArgumentException("Invalid coordinates!");
+        }
+        if (thirdDimension == null) {
+            throw new IllegalArgumentException("Invalid thirdDimension");
+        }
+        boolean hasZ = thirdDimension != ThirdDimension.ABSENT;
+        int length = lat.remaining();
+        if (lng.remaining() < length || (hasZ && (z == null || z.remaining() < length))) {
+            throw new IllegalArgumentException("Invalid coordinates!");
+        }
+        final PolylineMetrics metrics = PolylineEncoderDecoder.metrics;
+        final long start = metrics == null ? 0 : System.nanoTime();
+        StringEncoder enc = new StringEncoder(precision, thirdDimension, thirdDimPrecision);
+        int latPos = lat.position();
+        int lngPos = lng.position();
+        int zPos = hasZ ? z.position() : 0;
+        for (int i = 0; i < length; i++) {
+            enc.add(lat.get(latPos + i), lng.get(lngPos + i), hasZ ? z.get(zPos + i) : 0);
+        }
+        return encoded(enc, length, metrics, start);
+    }
+
+    /**
+     * Encode the coordinates interleaved between position and limit of a {@link DoubleBuffer}.
+     *
+     * Works on heap and direct buffers alike. The position of the buffer is not modified.
+     *
+     * @param coordinates interleaved coordinate values, see {@link #encodeInterleaved(double[], int, int, int, int, ThirdDimension, int)}
+     * @param stride distance between the first values of two consecutive coordinates
+     * @param count number of coordinates to be encoded
+     * @param precision   Floating point precision of the coordinate to be encoded.
+     * @param thirdDimension {@link ThirdDimension} which may be a level, altitude, elevation or some other custom value
+     * @param thirdDimPrecision Floating point precision for thirdDimension value
+     * @return URL-safe encoded {@link String} for the given coordinates.
+     */
+    public static String encodeInterleaved(DoubleBuffer coordinates, int stride, int count,
+                                           int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+        if (coordinates == null || count <= 0) {
+            throw new IllegalArgumentException("Invalid coordinates!");
+        }
+        if (thirdDimension == null) {
+            throw new IllegalArgumentException("Invalid thirdDimension");
+        }
+        boolean hasZ = thirdDimension != ThirdDimension.ABSENT;
+        int offset = coordinates.position();
+        checkInterleavedRange(coordinates.limit(), offset, stride, count, hasZ);
+        final PolylineMetrics metrics = PolylineEncoderDecoder.metrics;
+        final long start = metrics == null ? 0 : System.nanoTime();
+        StringEncoder enc = new StringEncoder(precision, thirdDimension, thirdDimPrecision);
+        for (int i = 0, pos = offset; i < count; i++, pos += stride) {
+            enc.add(coordinates.get(pos), coordinates.get(pos + 1), hasZ ? coordinates.get(pos + 2) : 0);
+        }
+        return encoded(enc, count, metrics, start);
+    }
+
+    /*
+     * Encoded result of `enc`, reported to `metrics` when instrumentation was enabled at `start`.
+     */
+    private static String encoded(StringEncoder enc, int points, PolylineMetrics metrics, long start) {
+        String encoded = enc.getEncoded();
+        if (metrics != null) {
+            metrics.encoded(points, encoded.length(), enc.getPrecision(), enc.getThirdDimension(), System.nanoTime() - start);
+        }
+        return encoded;
+    }
+
+    private static boolean checkColumns(double[] lat, double[] lng, double[] z, int offset, int length,
+                                        ThirdDimension thirdDimension) {
+        return checkColumns(lat == null ? -1 : lat.length, lng == null ? -1 : lng.length, z == null ? -1 : z.length,
+                offset, length, thirdDimension);
+    }
+
+    private static boolean checkColumns(long[] lat, long[] lng, long[] z, int offset, int length,
+                                        ThirdDimension thirdDimension) {
+        return checkColumns(lat == null ? -1 : lat.length, lng == null ? -1 : lng.length, z == null ? -1 : z.length,
+                offset, length, thirdDimension);
+    }
+
+    private static boolean checkColumns(int[] lat, int[] lng, int[] z, int offset, int length,
+                                        ThirdDimension thirdDimension) {
+        return checkColumns(lat == null ? -1 : lat.length, lng == null ? -1 : lng.length, z == null ? -1 : z.length,
+                offset, length, thirdDimension);
+    }
+
+    /*
+     * Checks of the lat, lng and z columns of a non empty range, given by their array lengths, -1 for null.
+     * Returns whether the z column is used.
+     */
+    private static boolean checkColumns(int latLength, int lngLength, int zLength, int offset, int length,
+                                        ThirdDimension thirdDimension) {
+        if (latLength < 0 || lngLength < 0 || length <= 0) {
+            throw new IllegalArgumentException("Invalid coordinates!");
+        }
+        if (thirdDimension == null) {
+            throw new IllegalArgumentException("Invalid thirdDimension");
+        }
+        boolean hasZ = thirdDimension != ThirdDimension.ABSENT;
+        if (hasZ && zLength < 0) {
+            throw new IllegalArgumentException("Invalid coordinates!");
+        }
+        checkRange(latLength, offset, length);
+        checkRange(lngLength, offset, length);
+        if (hasZ) {
+            checkRange(zLength, offset, length);
+        }
+        return hasZ;
+    }
+
+    private static void checkRange(int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > arrayLength - length) {
+            throw new IllegalArgumentException("Invalid range");
+        }
+    }
+
+    private static void checkInterleavedRange(int arrayLength, int offset, int stride, int count, boolean hasZ) {
+        int dimensions = hasZ ? 3 : 2;
+        if (stride < dimensions) {
+            throw new IllegalArgumentException("Invalid stride");
+        }
+        long last = offset + (long) (count - 1) * stride + dimensions;
+        if (offset < 0 || last > arrayLength) {
+            throw new IllegalArgumentException("Invalid range");
+        }
+    }
+
+    /**
+     * Decode the encoded input {@link String} to {@link List} of coordinate triples.
+     *
+     * @param encoded URL-safe encoded {@link String}
+     * @return {@link List} of coordinate triples that are decoded from input
+     *
+     * @see PolylineDecoder#getThirdDimension(String) getThirdDimension
+     * @see LatLngZ
+     */
+    public static List<LatLngZ> decode(String encoded) {
+        return decode((CharSequence) encoded);
+    }
+
+    /**
+     * Decode the encoded input {@link CharSequence} to {@link List} of coordinate triples.
+     *
+     * Characters are read in place, the input is not copied to a {@link String}.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @return {@link List} of coordinate triples that are decoded from input
+     */
+    public static List<LatLngZ> decode(CharSequence encoded) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        return decode(Decoder.of(encoded));
+    }
+
+    /**
+     * Decode the encoded input {@link CharSequence} into the columns of a {@link PolylineBuffer}.
+     *
+     * Unlike {@link #decode(String)} no object is allocated per point: the values are written into
+     * the primitive arrays of the buffer, which are reused across calls and only grown when needed.
+     * The previous content of the buffer is discarded.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @param buffer {@link PolylineBuffer} receiving the decoded coordinates
+     * @return the given buffer
+     */
+    public static PolylineBuffer decode(CharSequence encoded, PolylineBuffer buffer) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        return decode(Decoder.of(encoded), buffer);
+    }
+
+    /**
+     * Decode the encoded input {@link CharSequence} to fixed-point values, without floating point math.
+     *
+     * The buffer receives the integers stored in the polyline, i.e. the coordinates multiplied by
+     * {@code 10^precision} and the third dimension values multiplied by {@code 10^thirdDimPrecision},
+     * together with both precisions. Its previous content is discarded.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @param buffer {@link ScaledPolylineBuffer} receiving the decoded values
+     * @return the given buffer
+     */
+    public static ScaledPolylineBuffer decodeScaled(CharSequence encoded, ScaledPolylineBuffer buffer) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        Decoder dec = Decoder.of(encoded);
+        if (dec.isBlank()) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        if (buffer == null) {
+            throw new IllegalArgumentException("Invalid buffer");
+        }
+        final PolylineMetrics metrics = PolylineEncoderDecoder.metrics;
+        final long start = metrics == null ? 0 : System.nanoTime();
+        dec.readHeader();
+        buffer.clear(dec.getPrecision(), dec.getThirdDimension(), dec.getThirdDimPrecision());
+        dec.decodeScaled(buffer);
+        if (metrics != null) {
+            metrics.decoded(buffer.size(), dec.getLength(), dec.getPrecision(), dec.getThirdDimension(), System.nanoTime() - start);
+        }
+        return buffer;
+    }
+
+    /**
+     * Decode an encoded polyline stored as ASCII bytes to {@link List} of coordinate triples.
+     *
+     * Error messages and indexes are the same as for the {@link String} input, with
+     * indexes relative to {@code offset}.
+     *
+     * @param encoded array holding the encoded polyline
+     * @param offset index of the first byte of the encoded polyline
+     * @param length number of bytes of the encoded polyline
+     * @return {@link List} of coordinate triples that are decoded from input
+     */
+    public static List<LatLngZ> decodeBytes(byte[] encoded, int offset, int length) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        checkRange(encoded.length, offset, length);
+        return decode(Decoder.of(encoded, offset, length));
+    }
+
+    /**
+     * Decode an encoded polyline stored as ASCII bytes into the columns of a {@link PolylineBuffer}.
+     *
+     * @param encoded array holding the encoded polyline
+     * @param offset index of the first byte of the encoded polyline
+     * @param length number of bytes of the encoded polyline
+     * @param buffer {@link PolylineBuffer} receiving the decoded coordinates
+     * @return the given buffer
+     */
+    public static PolylineBuffer decodeBytes(byte[] encoded, int offset, int length, PolylineBuffer buffer) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        checkRange(encoded.length, offset, length);
+        return decode(Decoder.of(encoded, offset, length), buffer);
+    }
+
+    /**
+     * Decode the ASCII bytes between position and limit of a {@link ByteBuffer} to {@link List} of coordinate triples.
+     *
+     * Works on heap and direct buffers alike. The position of the buffer is not modified.
+     *
+     * @param encoded buffer holding the encoded polyline
+     * @return {@link List} of coordinate triples that are decoded from input
+     */
+    public static List<LatLngZ> decodeBytes(ByteBuffer encoded) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        return decode(Decoder.of(encoded));
+    }
+
+    /**
+     * Decode the ASCII bytes between position and limit of a {@link ByteBuffer} into the columns of a {@link PolylineBuffer}.
+     *
+     * Works on heap and direct buffers alike. The position of the buffer is not modified.
+     *
+     * @param encoded buffer holding the encoded polyline
+     * @param buffer {@link PolylineBuffer} receiving the decoded coordinates
+     * @return the given buffer
+     */
+    public static PolylineBuffer decodeBytes(ByteBuffer encoded, PolylineBuffer buffer) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        return decode(Decoder.of(encoded), buffer);
+    }
+
+    private static List<LatLngZ> decode(Decoder dec) {
+
+        if (dec.isBlank()) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        final PolylineMetrics metrics = PolylineEncoderDecoder.metrics;
+        final long start = metrics == null ? 0 : System.nanoTime();
+        List<LatLngZ> result = new ArrayList<>();
+        dec.readHeader();
+
+        LatLngZ coord;
+        while ((coord = dec.decodeOne()) != null) {
+            result.add(coord);
+        }
+        if (metrics != null) {
+            metrics.decoded(result.size(), dec.getLength(), dec.getPrecision(), dec.getThirdDimension(), System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    private static PolylineBuffer decode(Decoder dec, PolylineBuffer buffer) {
+
+        if (dec.isBlank()) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        if (buffer == null) {
+            throw new IllegalArgumentException("Invalid buffer");
+        }
+        final PolylineMetrics metrics = PolylineEncoderDecoder.metrics;
+        final long start = metrics == null ? 0 : System.nanoTime();
+        dec.readHeader();
+        buffer.clear(dec.getThirdDimension());
+        while (dec.decodeOne(buffer)) {
+            // keep decoding
+        }
+        if (metrics != null) {
+            metrics.decoded(buffer.size(), dec.getLength(), dec.getPrecision(), dec.getThirdDimension(), System.nanoTime() - start);
+        }
+        return buffer;
+    }
+
+    /**
+     * Decode many independent encoded polylines in parallel on the common {@link ForkJoinPool}.
+     *
+     * @param encoded URL-safe encoded polylines
+     * @return one {@link BatchResult} per input, in input order; malformed inputs fail individually
+     * @see #decodeAll(List, Executor)
+     */
+    public static List<BatchResult<List<LatLngZ>>> decodeAll(List<? extends CharSequence> encoded) {
+        return decodeAll(encoded, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Decode many independent encoded polylines in parallel.
+     *
+     * Inputs are grouped into tasks by length, so that short polylines are not scheduled one by one.
+     * A {@link ForkJoinPool} splits the work recursively, any other {@link Executor} gets one task per group.
+     * This call returns once all inputs are processed.
+     *
+     * @param encoded URL-safe encoded polylines
+     * @param executor {@link Executor} running the decoding tasks
+     * @return one {@link BatchResult} per input, in input order; malformed inputs fail individually
+     */
+    public static List<BatchResult<List<LatLngZ>>> decodeAll(List<? extends CharSequence> encoded, Executor executor) {
+        return Batch.run(encoded, PolylineEncoderDecoder::batchCost, PolylineEncoderDecoder::decode, executor);
+    }
+
+    /**
+     * Encode many independent lists of coordinates in parallel on the common {@link ForkJoinPool}.
+     *
+     * @param coordinates lists of coordinate triples, each encoded to one polyline
+     * @param precision   Floating point precision of the coordinate to be encoded.
+     * @param thirdDimension {@link ThirdDimension} which may be a level, altitude, elevation or some other custom value
+     * @param thirdDimPrecision Floating point precision for thirdDimension value
+     * @return one {@link BatchResult} per input, in input order; invalid inputs fail individually
+     * @see #encodeAll(List, int, ThirdDimension, int, Executor)
+     */
+    public static List<BatchResult<String>> encodeAll(List<? extends List<LatLngZ>> coordinates,
+                                                      int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+        return encodeAll(coordinates, precision, thirdDimension, thirdDimPrecision, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Encode many independent lists of coordinates in parallel, see {@link #decodeAll(List, Executor)} for the scheduling.
+     *
+     * @param coordinates lists of coordinate triples, each encoded to one polyline
+     * @param precision   Floating point precision of the coordinate to be encoded.
+     * @param thirdDimension {@link ThirdDimension} which may be a level, altitude, elevation or some other custom value
+     * @param thirdDimPrecision Floating point precision for thirdDimension value
+     * @param executor {@link Executor} running the encoding tasks
+     * @return one {@link BatchResult} per input, in input order; invalid inputs fail individually
+     */
+    public static List<BatchResult<String>> encodeAll(List<? extends List<LatLngZ>> coordinates,
+                                                      int precision, ThirdDimension thirdDimension, int thirdDimPrecision,
+                                                      Executor executor) {
+        return Batch.run(coordinates, PolylineEncoderDecoder::batchCost,
+                         list -> encode(list, precision, thirdDimension, thirdDimPrecision), executor);
+    }
+
+    // Estimated cost in encoded characters
+    private static int batchCost(CharSequence encoded) {
+        return encoded == null ? 1 : encoded.length();
+    }
+
+    private static int batchCost(List<LatLngZ> coordinates) {
+        return coordinates == null ? 1 : (int) Math.min(Integer.MAX_VALUE, coordinates.size() * 8L);
+    }
+
+    /**
+     * Lazily decode the encoded input {@link CharSequence}.
+     *
+     * Points are decoded one at a time while the stream is consumed, so memory use does not depend
+     * on the number of points and short-circuiting operations stop decoding early.
+     * The header is read immediately, errors in the rest of the input surface while consuming.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}, must not change while the stream is consumed
+     * @return sequential, ordered {@link Stream} of coordinate triples
+     */
+    public static Stream<LatLngZ> stream(CharSequence encoded) {
+        return StreamSupport.stream(spliterator(encoded), false);
+    }
+
+    /**
+     * Lazily decode the encoded input {@link CharSequence}, see {@link #stream(CharSequence)}.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}, must not change while iterating
+     * @return {@link Iterator} over the coordinate triples
+     */
+    public static Iterator<LatLngZ> iterator(CharSequence encoded) {
+        return Spliterators.iterator(spliterator(encoded));
+    }
+
+    /**
+     * Lazily decode the encoded input {@link CharSequence}, see {@link #stream(CharSequence)}.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}, must not change while traversing
+     * @return ordered {@link Spliterator} over the coordinate triples
+     */
+    public static Spliterator<LatLngZ> spliterator(CharSequence encoded) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        Decoder dec = Decoder.of(encoded);
+        if (dec.isBlank()) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        return new PointSpliterator(dec.readHeader());
+    }
+
+    /*
+     * Pulls points from a Decoder as they are requested.
+     */
+    static final class PointSpliterator extends Spliterators.AbstractSpliterator<LatLngZ> {
+
+        private final Decoder decoder;
+
+        PointSpliterator(Decoder decoder) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+            this.decoder = decoder;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super LatLngZ> action) {
+            LatLngZ coord = decoder.decodeOne();
+            if (coord == null) {
+                return false;
+            }
+            action.accept(coord);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super LatLngZ> action) {
+            LatLngZ coord;
+            while ((coord = decoder.decodeOne()) != null) {
+                action.accept(coord);
+            }
+        }
+    }
+
+    /**
+     * Re-encode an encoded polyline with other precisions and third dimension in a single pass.
+     *
+     * The output is the same as encoding the decoded points, including the round-half-up of the encoder,
+     * but no point is created: values are rescaled from their fixed-point form, with integer arithmetic
+     * wherever it gives the same result. Dropping the third dimension ignores the input values, adding one
+     * encodes 0 like for decoded points without third dimension.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @param precision   Floating point precision of the output coordinates
+     * @param thirdDimension {@link ThirdDimension} of the output
+     * @param thirdDimPrecision Floating point precision for the output thirdDimension value
+     * @return URL-safe encoded {@link String} with the new settings
+     */
+    public static String transcode(CharSequence encoded, int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        if (thirdDimension == null) {
+            throw new IllegalArgumentException("Invalid thirdDimension");
+        }
+        Decoder dec = Decoder.of(encoded);
+        if (dec.isBlank()) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        StringEncoder enc = new StringEncoder(precision, thirdDimension, thirdDimPrecision);
+        dec.readHeader();
+        if (!dec.hasNext()) {
+            // Like encoding the empty decoded list
+            throw new IllegalArgumentException("Invalid coordinates!");
+        }
+        while (dec.skip()) {
+            enc.addRescaled(dec);
+        }
+        return enc.getEncoded();
+    }
+
+    /**
+     * Join encoded polylines with the same header into one, without decoding their coordinates.
+     *
+     * The values of each polyline are stored as deltas, so only the first point of every polyline after
+     * the first one is re-encoded, relative to the last point of the polyline before it. All other
+     * chars are copied verbatim. The result is the same as encoding the concatenated decoded points.
+     *
+     * @param encoded URL-safe encoded polylines, all with the same precisions and third dimension
+     * @return URL-safe encoded {@link String} holding the points of all polylines
+     */
+    public static String concat(CharSequence... encoded) {
+        if (encoded == null || encoded.length == 0) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        StringBuilder result = new StringBuilder();
+        Decoder dec = new Decoder();
+        int precision = -1;
+        ThirdDimension thirdDimension = null;
+        int thirdDimPrecision = -1;
+        long lat = 0;
+        long lng = 0;
+        long z = 0;
+        for (CharSequence part : encoded) {
+            if (part == null) {
+                throw new IllegalArgumentException("Invalid argument!");
+            }
+            dec.reset(part);
+            if (dec.isBlank()) {
+                throw new IllegalArgumentException("Invalid argument!");
+            }
+            dec.readHeader();
+            int dataStart = dec.getPosition();
+            if (thirdDimension == null) {
+                precision = dec.getPrecision();
+                thirdDimension = dec.getThirdDimension();
+                thirdDimPrecision = dec.getThirdDimPrecision();
+                result.append(part, 0, dataStart);
+            } else if (dec.getPrecision() != precision || dec.getThirdDimension() != thirdDimension
+                    || dec.getThirdDimPrecision() != thirdDimPrecision) {
+                throw new IllegalArgumentException("Incompatible polyline headers");
+            }
+            if (!dec.skip()) {
+                continue;
+            }
+            appendPoint(result, dec, lat, lng, z);
+            int rest = dec.getPosition();
+            while (dec.skip()) {
+                // keep scanning for the last point
+            }
+            result.append(part, rest, dec.getPosition());
+            lat = dec.scaledLat();
+            lng = dec.scaledLng();
+            z = dec.scaledZ();
+        }
+        return result.toString();
+    }
+
+    /**
+     * Cut the points in [{@code fromPoint}, {@code toPoint}) out of an encoded polyline, without decoding their coordinates.
+     *
+     * Only the first point of the range is re-encoded, as it no longer follows the point before it.
+     * All other chars are copied verbatim, the points after the range are not read.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @param fromPoint index of the first point, inclusive
+     * @param toPoint index of the last point, exclusive
+     * @return URL-safe encoded {@link String} holding the points of the range
+     * @see PolylineIndex#slice(CharSequence, int, int)
+     */
+    public static String slice(CharSequence encoded, int fromPoint, int toPoint) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        if (fromPoint < 0 || fromPoint >= toPoint) {
+            throw new IllegalArgumentException("Invalid range");
+        }
+        Decoder dec = Decoder.of(encoded);
+        if (dec.isBlank()) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        dec.readHeader();
+        int headerEnd = dec.getPosition();
+        for (int i = 0; i < fromPoint; i++) {
+            if (!dec.skip()) {
+                throw new IllegalArgumentException("Invalid range");
+            }
+        }
+        return slice(encoded, headerEnd, dec, toPoint - fromPoint);
+    }
+
+    /*
+     * Header chars followed by `count` points, starting with the next point of `dec`.
+     */
+    static String slice(CharSequence encoded, int headerEnd, Decoder dec, int count) {
+        StringBuilder result = new StringBuilder().append(encoded, 0, headerEnd);
+        if (!dec.skip()) {
+            throw new IllegalArgumentException("Invalid range");
+        }
+        appendPoint(result, dec, 0, 0, 0);
+        int rest = dec.getPosition();
+        for (int i = 1; i < count; i++) {
+            if (!dec.skip()) {
+                throw new IllegalArgumentException("Invalid range");
+            }
+        }
+        return result.append(encoded, rest, dec.getPosition()).toString();
+    }
+
+    //Re-encode the last point skipped by `dec` relative to the given scaled values
+    private static void appendPoint(StringBuilder result, Decoder dec, long lat, long lng, long z) {
+        Converter.encodeUnsignedVarint(Converter.zigZag(dec.scaledLat() - lat), result);
+        Converter.encodeUnsignedVarint(Converter.zigZag(dec.scaledLng() - lng), result);
+        if (dec.hasThirdDimension()) {
+            Converter.encodeUnsignedVarint(Converter.zigZag(dec.scaledZ() - z), result);
+        }
+    }
+
+    /**
+     * ThirdDimension type from the encoded input {@link String}
+     * @param encoded URL-safe encoded coordinate triples {@link String}
+     * @return type of {@link ThirdDimension}
+     */
+    public static ThirdDimension getThirdDimension(String encoded) {
+        return Decoder.of(encoded).readHeader().getThirdDimension();
+    }
+
+    /**
+     * Read the header and count the points of an encoded polyline, without decoding the coordinates.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @return {@link PolylineInfo} without bounds
+     * @see #inspect(CharSequence, boolean)
+     */
+    public static PolylineInfo inspect(CharSequence encoded) {
+        return inspect(encoded, false);
+    }
+
+    /**
+     * Read the header, count the points and optionally compute the bounds of an encoded polyline.
+     *
+     * Nothing is allocated per point. Points are counted from the value terminators, bounds are
+     * computed on the scaled integer values and only converted once at the end. Malformed inputs
+     * fail with the same exceptions as {@link #decode(String)}.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @param withBounds whether to compute the min and max of each coordinate
+     * @return {@link PolylineInfo} of the encoded polyline
+     */
+    public static PolylineInfo inspect(CharSequence encoded, boolean withBounds) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        Decoder dec = Decoder.of(encoded);
+        if (dec.isBlank()) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        dec.readHeader();
+        if (!withBounds) {
+            return new PolylineInfo(dec.getPrecision(), dec.getThirdDimension(), dec.getThirdDimPrecision(), dec.countPoints());
+        }
+
+        long minLat = Long.MAX_VALUE, maxLat = Long.MIN_VALUE;
+        long minLng = Long.MAX_VALUE, maxLng = Long.MIN_VALUE;
+        long minZ = Long.MAX_VALUE, maxZ = Long.MIN_VALUE;
+        int size = 0;
+        while (dec.skip()) {
+            final long lat = dec.scaledLat();
+            final long lng = dec.scaledLng();
+            final long z = dec.scaledZ();
+            minLat = Math.min(minLat, lat);
+            maxLat = Math.max(maxLat, lat);
+            minLng = Math.min(minLng, lng);
+            maxLng = Math.max(maxLng, lng);
+            minZ = Math.min(minZ, z);
+            maxZ = Math.max(maxZ, z);
+            size++;
+        }
+        if (size == 0) {
+            return new PolylineInfo(dec.getPrecision(), dec.getThirdDimension(), dec.getThirdDimPrecision(), 0);
+        }
+        // Division by the positive scale keeps the order, so these are the bounds of the decoded values
+        return new PolylineInfo(dec.getPrecision(), dec.getThirdDimension(), dec.getThirdDimPrecision(), size,
+                dec.toLatLng(minLat), dec.toLatLng(maxLat), dec.toLatLng(minLng), dec.toLatLng(maxLng),
+                dec.toZ(minZ), dec.toZ(maxZ));
+    }
+
+    /**
+     * Check that an encoded polyline decodes, without decoding it.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @return {@link ValidationResult} of the input
+     * @see #validate(CharSequence, int, int)
+     */
+    public static ValidationResult validate(CharSequence encoded) {
+        return validate(encoded, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Check that an encoded polyline decodes within limits, without decoding it, e.g. before accepting
+     * untrusted input.
+     *
+     * The version, the header, the alphabet, the value terminators and the number of values of every point
+     * are checked in a single pass over the chars; no value is converted and nothing is allocated but the
+     * result. Inputs longer than {@code maxLength} are rejected before reading them, and reading stops at
+     * the first point past {@code maxPoints}. Malformed inputs are reported with the offset and the message
+     * of the exception {@link #decode(String)} would throw, instead of throwing it.
+     *
+     * The header is checked more strictly than decoding does: bits set above the third dimension precision,
+     * which {@link #decode(String)} ignores, are reported as {@link ValidationResult.Reason#INVALID_HEADER}
+     * with the message "Invalid header". Such inputs may still decode, or fail to decode with another message
+     * once the remaining bits are read as a different header; they are not produced by any encoder.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @param maxPoints maximum number of points
+     * @param maxLength maximum number of chars
+     * @return {@link ValidationResult} of the input
+     */
+    public static ValidationResult validate(CharSequence encoded, int maxPoints, int maxLength) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        checkLimits(maxPoints, maxLength);
+        return Decoder.of(encoded).validate(maxPoints, maxLength);
+    }
+
+    /**
+     * Check that an encoded polyline stored as ASCII bytes decodes, without decoding it.
+     * Offsets are relative to {@code offset}.
+     *
+     * @param encoded array holding the encoded polyline
+     * @param offset index of the first byte of the encoded polyline
+     * @param length number of bytes of the encoded polyline
+     * @return {@link ValidationResult} of the input
+     */
+    public static ValidationResult validateBytes(byte[] encoded, int offset, int length) {
+        return validateBytes(encoded, offset, length, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Check that an encoded polyline stored as ASCII bytes decodes within limits, without decoding it.
+     * Offsets are relative to {@code offset}.
+     *
+     * @param encoded array holding the encoded polyline
+     * @param offset index of the first byte of the encoded polyline
+     * @param length number of bytes of the encoded polyline
+     * @param maxPoints maximum number of points
+     * @param maxLength maximum number of bytes
+     * @return {@link ValidationResult} of the input
+     * @see #validate(CharSequence, int, int)
+     */
+    public static ValidationResult validateBytes(byte[] encoded, int offset, int length, int maxPoints, int maxLength) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        checkRange(encoded.length, offset, length);
+        checkLimits(maxPoints, maxLength);
+        return Decoder.of(encoded, offset, length).validate(maxPoints, maxLength);
+    }
+
+    /**
+     * Check that the ASCII bytes between position and limit of a {@link ByteBuffer} decode, without decoding them.
+     * Offsets are relative to the position, which is not modified.
+     *
+     * @param encoded buffer holding the encoded polyline
+     * @return {@link ValidationResult} of the input
+     */
+    public static ValidationResult validateBytes(ByteBuffer encoded) {
+        return validateBytes(encoded, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Check that the ASCII bytes between position and limit of a {@link ByteBuffer} decode within limits,
+     * without decoding them. Offsets are relative to the position, which is not modified.
+     *
+     * @param encoded buffer holding the encoded polyline
+     * @param maxPoints maximum number of points
+     * @param maxLength maximum number of bytes
+     * @return {@link ValidationResult} of the input
+     * @see #validate(CharSequence, int, int)
+     */
+    public static ValidationResult validateBytes(ByteBuffer encoded, int maxPoints, int maxLength) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        checkLimits(maxPoints, maxLength);
+        return Decoder.of(encoded).validate(maxPoints, maxLength);
+    }
+
+    private static void checkLimits(int maxPoints, int maxLength) {
+        if (maxPoints < 0 || maxLength < 0) {
+            throw new IllegalArgumentException("Invalid limit");
+        }
+    }
+
+    public byte getVersion() {
+        return FORMAT_VERSION;
+    }
+
+    /*
+     * Single instance for configuration, validation and encoding for an input request.
+     * Subclasses decide where the encoded characters are written to.
+     */
+    abstract static class Encoder {
+
+        private static final long MAX_SCALED_VALUE = (1L << 61) - 1;
+
+        private final Converter latConverter;
+        private final Converter lngConverter;
+        private final Converter zConverter;
+        private ThirdDimension thirdDimension;
+        private long header;
+
+        public Encoder(int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+            this.latConverter = new Converter(precision);
+            this.lngConverter = new Converter(precision);
+            this.zConverter = new Converter(thirdDimPrecision);
+            this.thirdDimension = thirdDimension;
+            this.header = encodeHeader(precision, this.thirdDimension.getNum(), thirdDimPrecision);
+        }
+
+        /*
+         * Start over with new settings, keeping the converters.
+         * Subclasses clear their output and write the header again.
+         */
+        void configure(int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+            this.header = encodeHeader(precision, thirdDimension.getNum(), thirdDimPrecision);
+            this.thirdDimension = thirdDimension;
+            this.latConverter.reset(precision);
+            this.lngConverter.reset(precision);
+            this.zConverter.reset(thirdDimPrecision);
+        }
+
+        ThirdDimension getThirdDimension() {
+            return thirdDimension;
+        }
+
+        int getPrecision() {
+            return (int) (header & 0x0f);
+        }
+
+        int getThirdDimPrecision() {
+            return (int) ((header >> 7) & 0x0f);
+        }
+
+        //Scaled values of the last added point, 0 before the first one
+        long scaledLat() {
+            return latConverter.getLastValue();
+        }
+
+        long scaledLng() {
+            return lngConverter.getLastValue();
+        }
+
+        long scaledZ() {
+            return zConverter.getLastValue();
+        }
+
+        //Continue the deltas after a point with the given scaled values
+        void setLastValues(long lat, long lng, long z) {
+            latConverter.setLastValue(lat);
+            lngConverter.setLastValue(lng);
+            zConverter.setLastValue(z);
+        }
+
+        private static long encodeHeader(int precision, int thirdDimensionValue, int thirdDimPrecision) {
+            /*
+             * Encode the `precision`, `third_dim` and `third_dim_precision` into one encoded char
+             */
+            if (precision < 0 || precision > 15) {
+                throw new IllegalArgumentException("precision out of range");
+            }
+
+            if (thirdDimPrecision < 0 || thirdDimPrecision > 15) {
+                throw new IllegalArgumentException("thirdDimPrecision out of range");
+            }
+
+            if (thirdDimensionValue < 0 || thirdDimensionValue > 7) {
+                throw new IllegalArgumentException("thirdDimensionValue out of range");
+            }
+            return (thirdDimPrecision << 7) | (thirdDimensionValue << 4) | precision;
+        }
+
+        /*
+         * Called by subclasses once their output is ready to be written to.
+         */
+        final void writeHeader() {
+            appendVarint(PolylineEncoderDecoder.FORMAT_VERSION);
+            appendVarint(header);
+        }
+
+        abstract void appendVarint(long value);
+
+        void add(double lat, double lng) {
+            appendVarint(latConverter.encodeDelta(lat));
+            appendVarint(lngConverter.encodeDelta(lng));
+        }
+
+        void add(double lat, double lng, double z) {
+            add(lat, lng);
+            if (this.thirdDimension != ThirdDimension.ABSENT) {
+                appendVarint(zConverter.encodeDelta(z));
+            }
+        }
+
+        //Add a point already scaled to the precisions of this encoder
+        void addScaled(long lat, long lng, long z) {
+            appendVarint(latConverter.encodeScaledDelta(checkScaled(lat)));
+            appendVarint(lngConverter.encodeScaledDelta(checkScaled(lng)));
+            if (this.thirdDimension != ThirdDimension.ABSENT) {
+                appendVarint(zConverter.encodeScaledDelta(checkScaled(z)));
+            }
+        }
+
+        //Deltas between values in range stay within the 63 bits of a zig-zag encoded varint
+        private static long checkScaled(long value) {
+            if (value < -MAX_SCALED_VALUE || value > MAX_SCALED_VALUE) {
+                throw new IllegalArgumentException("Invalid coordinates!");
+            }
+            return value;
+        }
+
+        //Add the point last decoded or skipped by `dec`, rescaled to the precisions of this encoder
+        void addRescaled(Decoder dec) {
+            appendVarint(latConverter.encodeScaledDelta(latConverter.rescale(dec.scaledLat(), dec.latConverter)));
+            appendVarint(lngConverter.encodeScaledDelta(lngConverter.rescale(dec.scaledLng(), dec.lngConverter)));
+            if (this.thirdDimension != ThirdDimension.ABSENT) {
+                appendVarint(zConverter.encodeScaledDelta(zConverter.rescale(dec.scaledZ(), dec.zConverter)));
+            }
+        }
+
+        void add(LatLngZ tuple) {
+            if(tuple == null) {
+                throw new IllegalArgumentException("Invalid LatLngZ tuple");
+            }
+            add(tuple.lat, tuple.lng, tuple.z);
+        }
+
+        void addAll(List<LatLngZ> coordinates) {
+            Iterator<LatLngZ> iter = coordinates.iterator();
+            while (iter.hasNext()) {
+                add(iter.next());
+            }
+        }
+    }
+
+    /*
+     * Encoder building the result in a StringBuilder.
+     */
+    static class StringEncoder extends Encoder {
+
+        private final StringBuilder result;
+
+        public StringEncoder(int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+            super(precision, thirdDimension, thirdDimPrecision);
+            this.result = new StringBuilder();
+            writeHeader();
+        }
+
+        @Override
+        void appendVarint(long value) {
+            Converter.encodeUnsignedVarint(value, result);
+        }
+
+        void reset(int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+            configure(precision, thirdDimension, thirdDimPrecision);
+            result.setLength(0);
+            writeHeader();
+        }
+
+        /*
+         * Continue after `prefix`, whose last point has the given scaled values. The header is not written:
+         * it is part of `prefix`, unless only the appended chars are wanted.
+         */
+        void resume(int precision, ThirdDimension thirdDimension, int thirdDimPrecision,
+                    CharSequence prefix, long lat, long lng, long z) {
+            configure(precision, thirdDimension, thirdDimPrecision);
+            result.setLength(0);
+            result.append(prefix);
+            setLastValues(lat, lng, z);
+        }
+
+        StringBuilder getResult() {
+            return result;
+        }
+
+        String getEncoded() {
+            return this.result.toString();
+        }
+    }
+
+    /*
+     * Encoder writing ASCII bytes straight into a caller provided array.
+     */
+    private static class ByteArrayEncoder extends Encoder {
+
+        private final byte[] result;
+        private final int offset;
+        private int position;
+
+        public ByteArrayEncoder(int precision, ThirdDimension thirdDimension, int thirdDimPrecision, byte[] result, int offset) {
+            super(precision, thirdDimension, thirdDimPrecision);
+            if (offset < 0 || offset > result.length) {
+                throw new IllegalArgumentException("Invalid offset");
+            }
+            this.result = result;
+            this.offset = offset;
+            this.position = offset;
+            writeHeader();
+        }
+
+        @Override
+        void appendVarint(long value) {
+            position = Converter.encodeUnsignedVarint(value, result, position, result.length);
+        }
+
+        private int getLength() {
+            return position - offset;
+        }
+    }
+
+    /*
+     * Encoder writing ASCII bytes straight into a heap or direct ByteBuffer.
+     * The buffer position is only moved once encoding completed.
+     */
+    private static class ByteBufferEncoder extends Encoder {
+
+        private final ByteBuffer result;
+        private int position;
+
+        public ByteBufferEncoder(int precision, ThirdDimension thirdDimension, int thirdDimPrecision, ByteBuffer result) {
+            super(precision, thirdDimension, thirdDimPrecision);
+            this.result = result;
+            this.position = result.position();
+            writeHeader();
+        }
+
+        @Override
+        void appendVarint(long value) {
+            position = Converter.encodeUnsignedVarint(value, result, position);
+        }
+
+        private int commit() {
+            int length = position - result.position();
+            result.position(position);
+            return length;
+        }
+    }
+
+    /*
+     * Single instance for decoding an input request.
+     *
+     * The input is read through an explicit index. Each input type has its own tight varint loop
+     * which the JIT can compile without virtual calls per character; the type is dispatched once per value.
+     */
+    static final class Decoder {
+
+        private static final int STRING = 0;
+        private static final int CHAR_SEQUENCE = 1;
+        private static final int BYTE_ARRAY = 2;
+        private static final int BYTE_BUFFER = 3;
+
+        // Errors of scanVarint()
+        private static final long INVALID_CHAR = -1;
+        private static final long TRUNCATED = -2;
+        // Precision, third dimension and third dimension precision
+        private static final long MAX_HEADER = 0x7FF;
+        private static final String UNEXPECTED_END = "Unexpected end of encoded string";
+
+        private int kind;
+        private String string;
+        private CharSequence charSequence;
+        private byte[] bytes;
+        private ByteBuffer byteBuffer;
+        // Reported indexes are relative to `begin`
+        private int begin;
+        private int end;
+        private int position;
+
+        private final Converter latConverter = new Converter(0);
+        private final Converter lngConverter = new Converter(0);
+        private final Converter zConverter = new Converter(0);
+
+        private ThirdDimension thirdDimension;
+        private int precision;
+        private int thirdDimPrecision;
+
+        // Last point decoded by advance()
+        private double lat;
+        private double lng;
+        private double z;
+
+        static Decoder of(CharSequence encoded) {
+            return new Decoder().reset(encoded);
+        }
+
+        static Decoder of(byte[] encoded, int offset, int length) {
+            return new Decoder().reset(encoded, offset, length);
+        }
+
+        static Decoder of(ByteBuffer encoded) {
+            return new Decoder().reset(encoded);
+        }
+
+        /*
+         * Point the decoder at new input. readHeader() has to be called before decoding points.
+         */
+        Decoder reset(CharSequence encoded) {
+            if (encoded instanceof String) {
+                return reset(STRING, (String) encoded, null, null, null, 0, encoded.length());
+            }
+            return reset(CHAR_SEQUENCE, null, encoded, null, null, 0, encoded.length());
+        }
+
+        Decoder reset(byte[] encoded, int offset, int length) {
+            return reset(BYTE_ARRAY, null, null, encoded, null, offset, offset + length);
+        }
+
+        Decoder reset(ByteBuffer encoded) {
+            return reset(BYTE_BUFFER, null, null, null, encoded, encoded.position(), encoded.limit());
+        }
+
+        private Decoder reset(int kind, String string, CharSequence charSequence, byte[] bytes, ByteBuffer byteBuffer, int begin, int end) {
+            this.kind = kind;
+            this.string = string;
+            this.charSequence = charSequence;
+            this.bytes = bytes;
+            this.byteBuffer = byteBuffer;
+            this.begin = begin;
+            this.end = end;
+            this.position = begin;
+            this.thirdDimension = null;
+            return this;
+        }
+
+        // Drop references to the input so that a pooled decoder does not retain it
+        void release() {
+            reset(STRING, null, null, null, null, 0, 0);
+        }
+
+        //Same semantic as String.trim().isEmpty()
+        boolean isBlank() {
+            for (int i = begin; i < end; i++) {
+                if (charAt(i) > ' ') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private char charAt(int index) {
+            switch (kind) {
+                case STRING:
+                    return string.charAt(index);
+                case CHAR_SEQUENCE:
+                    return charSequence.charAt(index);
+                case BYTE_ARRAY:
+                    return (char) (bytes[index] & 0xFF);
+                default:
+                    return (char) (byteBuffer.get(index) & 0xFF);
+            }
+        }
+
+        Decoder readHeader() {
+            return setHeader(decodeHeader());
+        }
+
+        //Same as readHeader, rejecting bits set above the header fields instead of ignoring them
+        Decoder readStrictHeader() {
+            if (decodeUnsignedVarint() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Invalid format version");
+            }
+            final long header = decodeUnsignedVarint();
+            if (header < 0 || header > MAX_HEADER) {
+                throw new IllegalArgumentException("Invalid header");
+            }
+            return setHeader((int) header);
+        }
+
+        private Decoder setHeader(int header) {
+            precision = header & 0x0f;
+            thirdDimension = ThirdDimension.fromNum((header >> 4) & 0x07);
+            thirdDimPrecision = ((header >> 7) & 0x0f);
+            this.latConverter.reset(precision);
+            this.lngConverter.reset(precision);
+            this.zConverter.reset(thirdDimPrecision);
+            return this;
+        }
+
+        boolean hasThirdDimension() {
+            return thirdDimension != ThirdDimension.ABSENT;
+        }
+
+        ThirdDimension getThirdDimension() {
+            return thirdDimension;
+        }
+
+        int getPrecision() {
+            return precision;
+        }
+
+        int getThirdDimPrecision() {
+            return thirdDimPrecision;
+        }
+
+        private int decodeHeader() {
+
+            long version = decodeUnsignedVarint();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Invalid format version");
+            }
+
+            // Decode the polyline header
+            return (int) decodeUnsignedVarint();
+        }
+
+        //Number of chars of the input
+        int getLength() {
+            return end - begin;
+        }
+
+        //Absolute index of the next char to be decoded
+        int getPosition() {
+            return position;
+        }
+
+        //Restrict decoding to [from, to), e.g. to a chunk of the data
+        Decoder range(int from, int to) {
+            this.position = from;
+            this.end = to;
+            return this;
+        }
+
+        boolean hasNext() {
+            return position < end;
+        }
+
+        //Continue at `position`, after a point with the given absolute scaled values, e.g. from a checkpoint
+        Decoder seek(int position, long lat, long lng, long z) {
+            this.position = position;
+            latConverter.setLastValue(lat);
+            lngConverter.setLastValue(lng);
+            zConverter.setLastValue(z);
+            return this;
+        }
+
+        /*
+         * Move past the next point, only keeping track of its scaled values.
+         */
+        boolean skip() {
+            if (position >= end) {
+                return false;
+            }
+
+            latConverter.skipValue(decodeUnsignedVarint());
+            lngConverter.skipValue(decodeUnsignedVarint());
+            if (hasThirdDimension()) {
+                zConverter.skipValue(decodeUnsignedVarint());
+            }
+            return true;
+        }
+
+        /*
+         * Number of points left, counted from the value terminators without decoding the values.
+         * Fails like decoding on invalid chars and on a truncated last point.
+         */
+        int countPoints() {
+            long values = 0;
+            boolean pending = false;
+            for (int pos = position; pos < end; pos++) {
+                final char c = charAt(pos);
+                final int value = decodeChar(c);
+                if (value < 0) {
+                    throw unexpectedValue(c, pos + 1);
+                }
+                pending = (value & 0x20) != 0;
+                if (!pending) {
+                    values++;
+                }
+            }
+            final int dimensions = hasThirdDimension() ? 3 : 2;
+            if (pending || values % dimensions != 0) {
+                throw unexpectedEnd();
+            }
+            position = end;
+            return (int) (values / dimensions);
+        }
+
+        /*
+         * Check the input from its start like decoding it would, without throwing nor converting values.
+         * Stricter than decoding on one point: header bits above the third dimension precision are rejected.
+         */
+        ValidationResult validate(int maxPoints, int maxLength) {
+            final int length = end - begin;
+            if (length > maxLength) {
+                return invalid(ValidationResult.Reason.TOO_LONG, maxLength,
+                        "Encoded length " + length + " exceeds " + maxLength, 0);
+            }
+            if (isBlank()) {
+                return invalid(ValidationResult.Reason.BLANK, 0, "Invalid argument!", 0);
+            }
+            position = begin;
+            final long version = scanVarint();
+            if (version < 0) {
+                return invalidVarint(version, begin);
+            }
+            if (version != FORMAT_VERSION) {
+                return invalid(ValidationResult.Reason.INVALID_VERSION, 0, "Invalid format version", 0);
+            }
+            final int headerStart = position;
+            final long header = scanVarint();
+            if (header < 0) {
+                return invalidVarint(header, headerStart);
+            }
+            if (header > MAX_HEADER) {
+                return invalid(ValidationResult.Reason.INVALID_HEADER, headerStart - begin, "Invalid header", 0);
+            }
+            setHeader((int) header);
+
+            final int dimensions = hasThirdDimension() ? 3 : 2;
+            int values = 0;
+            int size = 0;
+            int pointStart = position;
+            for (int pos = position; pos < end; pos++) {
+                final char c = charAt(pos);
+                final int value = decodeChar(c);
+                if (value < 0) {
+                    return invalid(ValidationResult.Reason.INVALID_CHAR, pos - begin, unexpectedValueMessage(c, pos + 1), size);
+                }
+                if ((value & 0x20) == 0 && ++values == dimensions) {
+                    if (size == maxPoints) {
+                        return invalid(ValidationResult.Reason.TOO_MANY_POINTS, pointStart - begin,
+                                "More than " + maxPoints + " points", size);
+                    }
+                    values = 0;
+                    size++;
+                    pointStart = pos + 1;
+                }
+            }
+            position = end;
+            if (pointStart != end) {
+                return invalid(ValidationResult.Reason.TRUNCATED, pointStart - begin, UNEXPECTED_END, size);
+            }
+            return new ValidationResult(null, -1, null, precision, thirdDimension, thirdDimPrecision, size);
+        }
+
+        /*
+         * Header varint at `position`, capped to Long.MAX_VALUE. On errors returns INVALID_CHAR with `position`
+         * at the offending char, or TRUNCATED.
+         */
+        private long scanVarint() {
+            long result = 0;
+            int shift = 0;
+            while (position < end) {
+                final int value = decodeChar(charAt(position));
+                if (value < 0) {
+                    return INVALID_CHAR;
+                }
+                position++;
+                result = shift < 35 ? result | (long) (value & 0x1F) << shift : Long.MAX_VALUE;
+                if ((value & 0x20) == 0) {
+                    return result;
+                }
+                shift += 5;
+            }
+            return TRUNCATED;
+        }
+
+        private ValidationResult invalidVarint(long error, int start) {
+            if (error == INVALID_CHAR) {
+                final char c = charAt(position);
+                return invalid(ValidationResult.Reason.INVALID_CHAR, position - begin, unexpectedValueMessage(c, position + 1), 0);
+            }
+            return invalid(ValidationResult.Reason.TRUNCATED, start - begin, UNEXPECTED_END, 0);
+        }
+
+        private ValidationResult invalid(ValidationResult.Reason reason, int offset, String message, int size) {
+            return new ValidationResult(reason, offset, message, thirdDimension == null ? -1 : precision,
+                    thirdDimension, thirdDimension == null ? -1 : thirdDimPrecision, size);
+        }
+
+        //Scaled values of the last decoded or skipped point
+        long scaledLat() {
+            return latConverter.getLastValue();
+        }
+
+        long scaledLng() {
+            return lngConverter.getLastValue();
+        }
+
+        long scaledZ() {
+            return zConverter.getLastValue();
+        }
+
+        //Coordinate of a scaled lat or lng value, the same as when decoding it
+        double toLatLng(long scaledValue) {
+            return latConverter.toDouble(scaledValue);
+        }
+
+        double toZ(long scaledValue) {
+            return zConverter.toDouble(scaledValue);
+        }
+
+        /*
+         * Decode the remaining points into `buffer` as scaled values, summing the deltas in locals.
+         */
+        void decodeScaled(ScaledPolylineBuffer buffer) {
+            final boolean hasZ = hasThirdDimension();
+            long lat = latConverter.getLastValue();
+            long lng = lngConverter.getLastValue();
+            long z = zConverter.getLastValue();
+            while (position < end) {
+                lat += Converter.decodeDelta(decodeUnsignedVarint());
+                lng += Converter.decodeDelta(decodeUnsignedVarint());
+                if (hasZ) {
+                    z += Converter.decodeDelta(decodeUnsignedVarint());
+                }
+                buffer.add(lat, lng, z);
+            }
+            latConverter.setLastValue(lat);
+            lngConverter.setLastValue(lng);
+            zConverter.setLastValue(z);
+        }
+
+        LatLngZ decodeOne() {
+            if (position >= end) {
+                return null;
+            }
+
+            final double lat = latConverter.decodeValue(decodeUnsignedVarint());
+            final double lng = lngConverter.decodeValue(decodeUnsignedVarint());
+
+            if (hasThirdDimension()) {
+                final double z = zConverter.decodeValue(decodeUnsignedVarint());
+                return new LatLngZ(lat, lng, z);
+            }
+            return new LatLngZ(lat, lng);
+        }
+
+        /*
+         * Decode the next point into lat, lng and z, without allocating.
+         */
+        boolean advance() {
+            if (position >= end) {
+                return false;
+            }
+
+            lat = latConverter.decodeValue(decodeUnsignedVarint());
+            lng = lngConverter.decodeValue(decodeUnsignedVarint());
+            z = hasThirdDimension() ? zConverter.decodeValue(decodeUnsignedVarint()) : 0;
+            return true;
+        }
+
+        double lat() {
+            return lat;
+        }
+
+        double lng() {
+            return lng;
+        }
+
+        double z() {
+            return z;
+        }
+
+        boolean decodeOne(PolylineBuffer buffer) {
+            if (position >= end) {
+                return false;
+            }
+
+            final double lat = latConverter.decodeValue(decodeUnsignedVarint());
+            final double lng = lngConverter.decodeValue(decodeUnsignedVarint());
+            final double z = hasThirdDimension() ? zConverter.decodeValue(decodeUnsignedVarint()) : 0;
+            buffer.add(lat, lng, z);
+            return true;
+        }
+
+        long decodeUnsignedVarint() {
+            switch (kind) {
+                case STRING:
+                    return decodeUnsignedVarint(string);
+                case CHAR_SEQUENCE:
+                    return decodeUnsignedVarint(charSequence);
+                case BYTE_ARRAY:
+                    return decodeUnsignedVarint(bytes);
+                default:
+                    return decodeUnsignedVarint(byteBuffer);
+            }
+        }
+
+        private long decodeUnsignedVarint(String encoded) {
+            final int end = this.end;
+            int pos = position;
+            int shift = 0;
+            long result = 0;
+            while (pos < end) {
+                final char c = encoded.charAt(pos++);
+                final int value = c < DECODE_LOOKUP.length ? DECODE_LOOKUP[c] : -1;
+                if (value < 0) {
+                    throw unexpectedValue(c, pos);
+                }
+                result |= (long) (value & 0x1F) << shift;
+                if ((value & 0x20) == 0) {
+                    position = pos;
+                    return result;
+                }
+                shift += 5;
+            }
+            throw unexpectedEnd();
+        }
+
+        private long decodeUnsignedVarint(CharSequence encoded) {
+            final int end = this.end;
+            int pos = position;
+            int shift = 0;
+            long result = 0;
+            while (pos < end) {
+                final char c = encoded.charAt(pos++);
+                final int value = c < DECODE_LOOKUP.length ? DECODE_LOOKUP[c] : -1;
+                if (value < 0) {
+                    throw unexpectedValue(c, pos);
+                }
+                result |= (long) (value & 0x1F) << shift;
+                if ((value & 0x20) == 0) {
+                    position = pos;
+                    return result;
+                }
+                shift += 5;
+            }
+            throw unexpectedEnd();
+        }
+
+        private long decodeUnsignedVarint(byte[] encoded) {
+            final int end = this.end;
+            int pos = position;
+            int shift = 0;
+            long result = 0;
+            while (pos < end) {
+                final int c = encoded[pos++] & 0xFF;
+                final int value = DECODE_LOOKUP[c];
+                if (value < 0) {
+                    throw unexpectedValue((char) c, pos);
+                }
+                result |= (long) (value & 0x1F) << shift;
+                if ((value & 0x20) == 0) {
+                    position = pos;
+                    return result;
+                }
+                shift += 5;
+            }
+            throw unexpectedEnd();
+        }
+
+        private long decodeUnsignedVarint(ByteBuffer encoded) {
+            final int end = this.end;
+            int pos = position;
+            int shift = 0;
+            long result = 0;
+            while (pos < end) {
+                final int c = encoded.get(pos++) & 0xFF;
+                final int value = DECODE_LOOKUP[c];
+                if (value < 0) {
+                    throw unexpectedValue((char) c, pos);
+                }
+                result |= (long) (value & 0x1F) << shift;
+                if ((value & 0x20) == 0) {
+                    position = pos;
+                    return result;
+                }
+                shift += 5;
+            }
+            throw unexpectedEnd();
+        }
+
+        // Kept out of the loops above so that they stay small enough to be inlined
+        private IllegalArgumentException unexpectedValue(char c, int pos) {
+            return new IllegalArgumentException(unexpectedValueMessage(c, pos));
+        }
+
+        private String unexpectedValueMessage(char c, int pos) {
+            return "Unexpected value found '" + c + "' at index " + (pos - begin);
+        }
+
+        private static IllegalArgumentException unexpectedEnd() {
+            return new IllegalArgumentException(UNEXPECTED_END);
+        }
+    }
+
+    //Decode a single char to the corresponding value
+    static int decodeChar(char charValue) {
+        return charValue < DECODE_LOOKUP.length ? DECODE_LOOKUP[charValue] : -1;
+    }
+
+    /*
+     * Stateful instance for encoding and decoding on a sequence of Coordinates part of an request.
+     * Instance should be specific to type of coordinates (e.g. Lat, Lng)
+     * so that specific type delta is computed for encoding.
+     * Lat0 Lng0 3rd0 (Lat1-Lat0) (Lng1-Lng0) (3rdDim1-3rdDim0)
+     */
+    public static class Converter {
+
+        private static final long EXACT_RESCALE_LIMIT = 1L << 50;
+
+        private long multiplier;
+        // Same value as multiplier, exact for all supported precisions, saves a conversion per value
+        private double scale;
+        private long lastValue = 0;
+
+        public Converter(int precision) {
+            reset(precision);
+        }
+
+        //Start a new sequence of values with the given precision
+        void reset(int precision) {
+            multiplier = scaleOf(precision);
+            scale = multiplier;
+            lastValue = 0;
+        }
+
+        /**
+         * Factor between a coordinate and its fixed-point form, for decoders of their own that need
+         * the exact same values as this library.
+         *
+         * @param precision precision of the header
+         * @return 10^precision
+         */
+        public static long scaleOf(int precision) {
+            return (long) Math.pow(10, precision);
+        }
+
+        private static void encodeUnsignedVarint(long value, StringBuilder result) {
+            while (value > 0x1F) {
+                byte pos =  (byte) ((value & 0x1F) | 0x20);
+                result.append(ENCODING_TABLE[pos]);
+                value >>= 5;
+            }
+            result.append(ENCODING_TABLE[(byte) value]);
+        }
+
+        //Encode into `out` starting at `position`, returns the position after the last written byte
+        private static int encodeUnsignedVarint(long value, byte[] out, int position, int limit) {
+            while (value > 0x1F) {
+                byte pos =  (byte) ((value & 0x1F) | 0x20);
+                if (position >= limit) {
+                    throw new BufferOverflowException();
+                }
+                out[position++] = (byte) ENCODING_TABLE[pos];
+                value >>= 5;
+            }
+            if (position >= limit) {
+                throw new BufferOverflowException();
+            }
+            out[position++] = (byte) ENCODING_TABLE[(byte) value];
+            return position;
+        }
+
+        //Encode into `out` at absolute `position`, returns the position after the last written byte
+        private static int encodeUnsignedVarint(long value, ByteBuffer out, int position) {
+            final int limit = out.limit();
+            while (value > 0x1F) {
+                byte pos =  (byte) ((value & 0x1F) | 0x20);
+                if (position >= limit) {
+                    throw new BufferOverflowException();
+                }
+                out.put(position++, (byte) ENCODING_TABLE[pos]);
+                value >>= 5;
+            }
+            if (position >= limit) {
+                throw new BufferOverflowException();
+            }
+            out.put(position++, (byte) ENCODING_TABLE[(byte) value]);
+            return position;
+        }
+
+        void encodeValue(double value, StringBuilder result) {
+            encodeUnsignedVarint(encodeDelta(value), result);
+        }
+
+        //Advance to `value` and return the delta to the previous value, ready to be written as unsigned varint
+        long encodeDelta(double value) {
+            /*
+             * Round-half-up
+             * round(-1.4) --> -1
+             * round(-1.5) --> -2
+             * round(-2.5) --> -3
+             */
+            long scaledValue = Math.round(Math.abs(value * scale)) * Math.round(Math.signum(value));
+            long delta = scaledValue - lastValue;
+            boolean negative = delta < 0;
+
+            lastValue = scaledValue;
+
+            // make room on lowest bit
+            delta <<= 1;
+
+            // invert bits if the value is negative
+            if (negative) {
+                delta = ~delta;
+            }
+            return delta;
+        }
+
+        private static long decodeUnsignedVarint(CharacterIterator encoded) {
+            short shift = 0;
+            long result = 0;
+            char c;
+
+            while ((c = encoded.current()) != CharacterIterator.DONE) {
+                encoded.next();
+                final long value = decodeChar(c);
+                if (value < 0) {
+                    throw new IllegalArgumentException("Unexpected value found '" + c + "' at index " + encoded.getIndex());
+                }
+                result |= (value & 0x1F) << shift;
+                if ((value & 0x20) == 0) {
+                    return result;
+                } else {
+                    shift += 5;
+                }
+
+            }
+            throw new IllegalArgumentException("Unexpected end of encoded string");
+        }
+
+        //Decode single coordinate (say lat|lng) starting at index
+        double decodeValue(CharacterIterator encoded) {
+            return decodeValue(decodeUnsignedVarint(encoded));
+        }
+
+        //Decode single coordinate from its unsigned varint value
+        double decodeValue(long varint) {
+            lastValue += decodeDelta(varint);
+            return lastValue / scale;
+        }
+
+        double toDouble(long scaledValue) {
+            return scaledValue / scale;
+        }
+
+        //Same as encodeDelta for a value that is already scaled to this precision
+        long encodeScaledDelta(long scaledValue) {
+            long delta = scaledValue - lastValue;
+            lastValue = scaledValue;
+            return zigZag(delta);
+        }
+
+        /*
+         * Rescale a value scaled by `from` to this precision, with the same result as encodeDelta
+         * gives for the value decoded by `from`. Integer arithmetic is used where the double
+         * expression is known to round to the exact result: below 2^50 its error stays under 0.5.
+         */
+        long rescale(long value, Converter from) {
+            if (multiplier >= from.multiplier) {
+                long factor = multiplier / from.multiplier;
+                if (Math.abs(value) < EXACT_RESCALE_LIMIT / factor) {
+                    return value * factor;
+                }
+            } else {
+                long divisor = from.multiplier / multiplier;
+                if (value % divisor == 0 && Math.abs(value) < EXACT_RESCALE_LIMIT) {
+                    return value / divisor;
+                }
+            }
+            double decoded = value / from.scale;
+            return Math.round(Math.abs(decoded * scale)) * Math.round(Math.signum(decoded));
+        }
+
+        //Unsigned varint value of a signed delta, the inverse of decodeDelta
+        static long zigZag(long delta) {
+            return delta < 0 ? ~(delta << 1) : delta << 1;
+        }
+
+        //Advance past a value without converting it
+        void skipValue(long varint) {
+            lastValue += decodeDelta(varint);
+        }
+
+        /**
+         * Signed delta held by an unsigned varint value, the inverse of the zig-zag encoding.
+         *
+         * @param varint value of a decoded varint
+         * @return delta to the previous fixed-point value
+         */
+        public static long decodeDelta(long varint) {
+            long l = varint;
+            if ((l & 1) != 0) {
+                l = ~l;
+            }
+            return l >> 1;
+        }
+
+        long getLastValue() {
+            return lastValue;
+        }
+
+        //Continue a sequence from a known absolute scaled value
+        void setLastValue(long lastValue) {
+            this.lastValue = lastValue;
+        }
+    }
+
+    /**
+     * 	3rd dimension specification.
+     *  Example a level, altitude, elevation or some other custom value.
+     *  ABSENT is default when there is no third dimension en/decoding required.
+     */
+    public enum ThirdDimension {
+        ABSENT(0),
+        LEVEL(1),
+        ALTITUDE(2),
+        ELEVATION(3),
+        RESERVED1(4),
+        RESERVED2(5),
+        CUSTOM1(6),
+        CUSTOM2(7);
+
+        // values() returns a new array on every call
+        private static final ThirdDimension[] VALUES = values();
+
+        private final int num;
+
+        ThirdDimension(int num) {
+            this.num = num;
+        }
+
+        public int getNum() {
+            return num;
+        }
+
+        public static ThirdDimension fromNum(long value) {
+            for (ThirdDimension dim : VALUES) {
+                if (dim.getNum() == value) {
+                    return dim;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Coordinate triple
+     */
+    public static class LatLngZ {
+        public final double lat;
+        public final double lng;
+        public final double z;
+
+        public LatLngZ (double latitude, double longitude) {
+            this(latitude, longitude, 0);
+        }
+
+        public LatLngZ (double latitude, double longitude, double thirdDimension) {
+            this.lat = latitude;
+            this.lng = longitude;
+            this.z   = thirdDimension;
+        }
+
+        @Override
+        public String toString() {
+            return "LatLngZ [lat=" + lat + ", lng=" + lng + ", z=" + z + "]";
+        }
+
+        @Override
+        public boolean equals(Object anObject) {
+            if (this == anObject) {
+                return true;
+            }
+            if (anObject instanceof LatLngZ) {
+                LatLngZ passed = (LatLngZ)anObject;
+                if (passed.lat == this.lat && passed.lng == this.lng && passed.z == this.z) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline;
+
+import com.here.flexpolyline.PolylineEncoderDecoder.Decoder;
+
+/**
+ * Geometry computed while decoding an encoded polyline, without creating any point.
+ *
+ * Every operation is a single pass over the chars with the same delta decoding as
+ * {@link PolylineEncoderDecoder#decode(CharSequence)}, keeping only the previous point in local
+ * variables. Operations answering at a given point stop decoding there: malformed chars after it
+ * are not detected. Otherwise malformed inputs fail with the same exceptions as decoding.
+ *
+ * Distances are great-circle distances in meters on a sphere of the mean Earth radius, computed with
+ * the haversine formula. Bounding boxes are in degrees, inclusive, and do not cross the antimeridian.
+ */
+public final class PolylineGeometry {
+
+    /**
+     * Mean Earth radius in meters used for distances.
+     */
+    public static final double EARTH_RADIUS = 6_371_008.8;
+
+    private PolylineGeometry() {
+    }
+
+    /**
+     * Vertex of a polyline closest to a position, as found by {@link #nearestVertex(CharSequence, double, double)}.
+     */
+    public static final class NearestVertex {
+
+        private final int index;
+        private final double lat;
+        private final double lng;
+        private final double z;
+        private final double distance;
+
+        NearestVertex(int index, double lat, double lng, double z, double distance) {
+            this.index = index;
+            this.lat = lat;
+            this.lng = lng;
+            this.z = z;
+            this.distance = distance;
+        }
+
+        /**
+         * @return index of the vertex within the polyline
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public double getLat() {
+            return lat;
+        }
+
+        public double getLng() {
+            return lng;
+        }
+
+        /**
+         * @return third dimension value, or 0 when the polyline has none
+         */
+        public double getZ() {
+            return z;
+        }
+
+        /**
+         * @return distance in meters from the position to the vertex
+         */
+        public double getDistance() {
+            return distance;
+        }
+
+        @Override
+        public String toString() {
+            return "NearestVertex [index=" + index + ", lat=" + lat + ", lng=" + lng + ", z=" + z
+                    + ", distance=" + distance + "]";
+        }
+    }
+
+    /**
+     * Length of a polyline along the surface of the Earth, ignoring the third dimension.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @return length in meters, 0 for less than two points
+     */
+    public static double length(CharSequence encoded) {
+        Decoder dec = start(encoded);
+        if (!dec.advance()) {
+            return 0;
+        }
+        double lat = Math.toRadians(dec.lat());
+        double lng = Math.toRadians(dec.lng());
+        double cosLat = Math.cos(lat);
+        double sum = 0;
+        while (dec.advance()) {
+            final double nextLat = Math.toRadians(dec.lat());
+            final double nextLng = Math.toRadians(dec.lng());
+            final double nextCosLat = Math.cos(nextLat);
+            sum += centralAngle(haversine(nextLat - lat, nextLng - lng, cosLat, nextCosLat));
+            lat = nextLat;
+            lng = nextLng;
+            cosLat = nextCosLat;
+        }
+        return sum * EARTH_RADIUS;
+    }
+
+    /**
+     * Vertex of a polyline closest to a position. Only vertices are considered, not the segments between them.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @param lat latitude of the position
+     * @param lng longitude of the position
+     * @return first of the closest vertices, null for a polyline without points
+     */
+    public static NearestVertex nearestVertex(CharSequence encoded, double lat, double lng) {
+        checkPosition(lat, lng);
+        Decoder dec = start(encoded);
+        final double latRad = Math.toRadians(lat);
+        final double lngRad = Math.toRadians(lng);
+        final double cosLat = Math.cos(latRad);
+        // The haversine grows with the distance, so the conversion to meters is only needed once
+        double best = Double.POSITIVE_INFINITY;
+        int bestIndex = -1;
+        double bestLat = 0, bestLng = 0, bestZ = 0;
+        for (int index = 0; dec.advance(); index++) {
+            final double vertexLat = Math.toRadians(dec.lat());
+            final double h = haversine(vertexLat - latRad, Math.toRadians(dec.lng()) - lngRad, cosLat, Math.cos(vertexLat));
+            if (h < best) {
+                best = h;
+                bestIndex = index;
+                bestLat = dec.lat();
+                bestLng = dec.lng();
+                bestZ = dec.z();
+            }
+        }
+        if (bestIndex < 0) {
+            return null;
+        }
+        return new NearestVertex(bestIndex, bestLat, bestLng, bestZ, centralAngle(best) * EARTH_RADIUS);
+    }
+
+    /**
+     * Index of the first point outside a bounding box, decoding no further.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @return index of the first point outside, -1 when all points are inside
+     */
+    public static int firstOutside(CharSequence encoded, double minLat, double minLng, double maxLat, double maxLng) {
+        checkBounds(minLat, minLng, maxLat, maxLng);
+        Decoder dec = start(encoded);
+        for (int index = 0; dec.advance(); index++) {
+            if (!contains(minLat, minLng, maxLat, maxLng, dec.lat(), dec.lng())) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Index of the first segment of a polyline intersecting a bounding box, decoding no further.
+     *
+     * Segments are straight lines in degrees, which is how they are drawn on most maps. A polyline of a
+     * single point intersects the box when the point is inside.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @return index of the first point of the first intersecting segment, -1 when none intersects
+     */
+    public static int firstIntersecting(CharSequence encoded, double minLat, double minLng, double maxLat, double maxLng) {
+        checkBounds(minLat, minLng, maxLat, maxLng);
+        Decoder dec = start(encoded);
+        if (!dec.advance()) {
+            return -1;
+        }
+        double lat = dec.lat();
+        double lng = dec.lng();
+        if (contains(minLat, minLng, maxLat, maxLng, lat, lng)) {
+            return 0;
+        }
+        for (int index = 0; dec.advance(); index++) {
+            final double nextLat = dec.lat();
+            final double nextLng = dec.lng();
+            if (intersects(minLat, minLng, maxLat, maxLng, lat, lng, nextLat, nextLng)) {
+                return index;
+            }
+            lat = nextLat;
+            lng = nextLng;
+        }
+        return -1;
+    }
+
+    /**
+     * Whether any segment of a polyline intersects a bounding box, decoding no further than the first one.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @return whether a segment or the single point of the polyline intersects the box
+     * @see #firstIntersecting(CharSequence, double, double, double, double)
+     */
+    public static boolean intersects(CharSequence encoded, double minLat, double minLng, double maxLat, double maxLng) {
+        return firstIntersecting(encoded, minLat, minLng, maxLat, maxLng) >= 0;
+    }
+
+    private static Decoder start(CharSequence encoded) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        Decoder dec = Decoder.of(encoded);
+        if (dec.isBlank()) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        return dec.readHeader();
+    }
+
+    //Haversine of the central angle between two points, from their differences in radians
+    private static double haversine(double deltaLat, double deltaLng, double cosLat1, double cosLat2) {
+        final double sinLat = Math.sin(deltaLat / 2);
+        final double sinLng = Math.sin(deltaLng / 2);
+        return sinLat * sinLat + cosLat1 * cosLat2 * sinLng * sinLng;
+    }
+
+    private static double centralAngle(double haversine) {
+        return 2 * Math.asin(Math.sqrt(Math.min(1, haversine)));
+    }
+
+    private static boolean contains(double minLat, double minLng, double maxLat, double maxLng, double lat, double lng) {
+        return lat >= minLat && lat <= maxLat && lng >= minLng && lng <= maxLng;
+    }
+
+    /*
+     * Slab test: the part of the segment lat1 + t * dLat within [minLat, maxLat] is an interval of t, the
+     * same for the longitudes, and the segment intersects the box when both overlap within t in [0, 1].
+     */
+    private static boolean intersects(double minLat, double minLng, double maxLat, double maxLng,
+                                      double lat1, double lng1, double lat2, double lng2) {
+        double from = 0;
+        double to = 1;
+        final double dLat = lat2 - lat1;
+        if (dLat == 0) {
+            if (lat1 < minLat || lat1 > maxLat) {
+                return false;
+            }
+        } else {
+            final double t1 = (minLat - lat1) / dLat;
+            final double t2 = (maxLat - lat1) / dLat;
+            from = Math.max(from, Math.min(t1, t2));
+            to = Math.min(to, Math.max(t1, t2));
+        }
+        final double dLng = lng2 - lng1;
+        if (dLng == 0) {
+            if (lng1 < minLng || lng1 > maxLng) {
+                return false;
+            }
+        } else {
+            final double t1 = (minLng - lng1) / dLng;
+            final double t2 = (maxLng - lng1) / dLng;
+            from = Math.max(from, Math.min(t1, t2));
+            to = Math.min(to, Math.max(t1, t2));
+        }
+        return from <= to;
+    }
+
+    private static void checkPosition(double lat, double lng) {
+        if (Double.isNaN(lat) || Double.isNaN(lng) || Double.isInfinite(lat) || Double.isInfinite(lng)) {
+            throw new IllegalArgumentException("Invalid position");
+        }
+    }
+
+    private static void checkBounds(double minLat, double minLng, double maxLat, double maxLng) {
+        // Also rejects NaN
+        if (!(minLat <= maxLat) || !(minLng <= maxLng)) {
+            throw new IllegalArgumentException("Invalid bounds");
+        }
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.here.flexpolyline.PolylineEncoderDecoder.Decoder;
+import com.here.flexpolyline.PolylineEncoderDecoder.LatLngZ;
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * Checkpoint index for random access into a long encoded polyline.
+ *
+ * Values are stored as deltas to the previous point, so reading point N normally means decoding
+ * every point before it. The index records, every {@code interval} points, the char offset of the
+ * point and the absolute scaled values of the point before it. Decoding a range of points then
+ * starts at the closest checkpoint and skips at most {@code interval - 1} points.
+ *
+ * The index is built with one scan over the encoded polyline, which decodes no coordinates, and
+ * can be stored next to it with {@link #toLongArray()}. It only matches the polyline it was built
+ * from; a polyline with a different length or header is rejected.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+public final class PolylineIndex {
+
+    // interval, size, header, encoded length, then position, lat, lng, z per checkpoint
+    private static final int HEADER_LONGS = 4;
+    private static final int CHECKPOINT_LONGS = 4;
+
+    private final int interval;
+    private final int size;
+    private final int precision;
+    private final ThirdDimension thirdDimension;
+    private final int thirdDimPrecision;
+    private final int length;
+    private final long[] checkpoints;
+
+    private PolylineIndex(int interval, int size, int precision, ThirdDimension thirdDimension,
+                          int thirdDimPrecision, int length, long[] checkpoints) {
+        this.interval = interval;
+        this.size = size;
+        this.precision = precision;
+        this.thirdDimension = thirdDimension;
+        this.thirdDimPrecision = thirdDimPrecision;
+        this.length = length;
+        this.checkpoints = checkpoints;
+    }
+
+    /**
+     * Build the index of an encoded polyline.
+     *
+     * @param encoded URL-safe encoded {@link CharSequence}
+     * @param interval number of points between two checkpoints
+     * @return index of the encoded polyline
+     */
+    public static PolylineIndex build(CharSequence encoded, int interval) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Invalid interval");
+        }
+        Decoder dec = Decoder.of(encoded);
+        if (dec.isBlank()) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        dec.readHeader();
+
+        long[] checkpoints = new long[CHECKPOINT_LONGS * 16];
+        int count = 0;
+        int size = 0;
+        while (dec.hasNext()) {
+            if (size % interval == 0) {
+                if (count == checkpoints.length) {
+                    checkpoints = Arrays.copyOf(checkpoints, count * 2);
+                }
+                checkpoints[count++] = dec.getPosition();
+                checkpoints[count++] = dec.scaledLat();
+                checkpoints[count++] = dec.scaledLng();
+                checkpoints[count++] = dec.scaledZ();
+            }
+            dec.skip();
+            size++;
+        }
+        return new PolylineIndex(interval, size, dec.getPrecision(), dec.getThirdDimension(),
+                dec.getThirdDimPrecision(), encoded.length(), Arrays.copyOf(checkpoints, count));
+    }
+
+    /**
+     * Restore an index saved with {@link #toLongArray()}.
+     *
+     * @param values saved index
+     * @return the restored index
+     */
+    public static PolylineIndex fromLongArray(long[] values) {
+        if (values == null || values.length < HEADER_LONGS) {
+            throw new IllegalArgumentException("Invalid index");
+        }
+        long interval = values[0];
+        long size = values[1];
+        long header = values[2];
+        long length = values[3];
+        if (interval <= 0 || interval > Integer.MAX_VALUE || size < 0 || size > Integer.MAX_VALUE
+                || header < 0 || header > 0x7ff || length < 0 || length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid index");
+        }
+        long count = (size + interval - 1) / interval;
+        if (values.length != HEADER_LONGS + count * CHECKPOINT_LONGS) {
+            throw new IllegalArgumentException("Invalid index");
+        }
+        // Checkpoint positions are past the header, strictly increasing and within the polyline
+        long previous = 0;
+        for (int i = HEADER_LONGS; i < values.length; i += CHECKPOINT_LONGS) {
+            if (values[i] <= previous || values[i] >= length) {
+                throw new IllegalArgumentException("Invalid index");
+            }
+            previous = values[i];
+        }
+        return new PolylineIndex((int) interval, (int) size, (int) (header & 0x0f),
+                ThirdDimension.fromNum((header >> 4) & 0x07), (int) ((header >> 7) & 0x0f), (int) length,
+                Arrays.copyOfRange(values, HEADER_LONGS, values.length));
+    }
+
+    /**
+     * @return the index as a compact array, to be restored with {@link #fromLongArray(long[])}
+     */
+    public long[] toLongArray() {
+        long[] values = new long[HEADER_LONGS + checkpoints.length];
+        values[0] = interval;
+        values[1] = size;
+        values[2] = (thirdDimPrecision << 7) | (thirdDimension.getNum() << 4) | precision;
+        values[3] = length;
+        System.arraycopy(checkpoints, 0, values, HEADER_LONGS, checkpoints.length);
+        return values;
+    }
+
+    /**
+     * @return number of points of the indexed polyline
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of points between two checkpoints
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    public ThirdDimension getThirdDimension() {
+        return thirdDimension;
+    }
+
+    /**
+     * Decode the point at {@code index}.
+     *
+     * @param encoded the encoded polyline this index was built from
+     * @param index index of the point
+     * @return the decoded point
+     */
+    public LatLngZ get(CharSequence encoded, int index) {
+        if (index < 0 || index >= size) {
+            throw new IllegalArgumentException("Invalid range");
+        }
+        LatLngZ result = seek(encoded, index).decodeOne();
+        if (result == null) {
+            throw mismatch();
+        }
+        return result;
+    }
+
+    /**
+     * Decode the points in [{@code from}, {@code to}) to {@link List} of coordinate triples.
+     *
+     * @param encoded the encoded polyline this index was built from
+     * @param from index of the first point, inclusive
+     * @param to index of the last point, exclusive
+     * @return {@link List} of the decoded points
+     */
+    public List<LatLngZ> decode(CharSequence encoded, int from, int to) {
+        checkRange(from, to);
+        List<LatLngZ> result = new ArrayList<>(to - from);
+        if (from == to) {
+            return result;
+        }
+        Decoder dec = seek(encoded, from);
+        for (int i = from; i < to; i++) {
+            LatLngZ point = dec.decodeOne();
+            if (point == null) {
+                throw mismatch();
+            }
+            result.add(point);
+        }
+        return result;
+    }
+
+    /**
+     * Decode the points in [{@code from}, {@code to}) into the columns of a {@link PolylineBuffer}.
+     * The previous content of the buffer is discarded.
+     *
+     * @param encoded the encoded polyline this index was built from
+     * @param from index of the first point, inclusive
+     * @param to index of the last point, exclusive
+     * @param buffer {@link PolylineBuffer} receiving the decoded coordinates
+     * @return the given buffer
+     */
+    public PolylineBuffer decode(CharSequence encoded, int from, int to, PolylineBuffer buffer) {
+        checkRange(from, to);
+        if (buffer == null) {
+            throw new IllegalArgumentException("Invalid buffer");
+        }
+        buffer.clear(thirdDimension);
+        if (from == to) {
+            return buffer;
+        }
+        Decoder dec = seek(encoded, from);
+        buffer.ensureCapacity(to - from);
+        for (int i = from; i < to; i++) {
+            if (!dec.decodeOne(buffer)) {
+                throw mismatch();
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Cut the points in [{@code from}, {@code to}) out of the encoded polyline, seeking to the range
+     * from the closest checkpoint.
+     *
+     * @param encoded the encoded polyline this index was built from
+     * @param from index of the first point, inclusive
+     * @param to index of the last point, exclusive
+     * @return URL-safe encoded {@link String} holding the points of the range
+     * @see PolylineEncoderDecoder#slice(CharSequence, int, int)
+     */
+    public String slice(CharSequence encoded, int from, int to) {
+        if (from < 0 || from >= to || to > size) {
+            throw new IllegalArgumentException("Invalid range");
+        }
+        // The first checkpoint is right after the header
+        return PolylineEncoderDecoder.slice(encoded, (int) checkpoints[0], seek(encoded, from), to - from);
+    }
+
+    private void checkRange(int from, int to) {
+        if (from < 0 || from > to || to > size) {
+            throw new IllegalArgumentException("Invalid range");
+        }
+    }
+
+    /*
+     * Decoder positioned right before point `index`, which must exist.
+     */
+    private Decoder seek(CharSequence encoded, int index) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Invalid argument!");
+        }
+        if (encoded.length() != length) {
+            throw mismatch();
+        }
+        Decoder dec = Decoder.of(encoded).readHeader();
+        if (dec.getPrecision() != precision || dec.getThirdDimension() != thirdDimension
+                || dec.getThirdDimPrecision() != thirdDimPrecision || dec.getPosition() != checkpoints[0]) {
+            throw mismatch();
+        }
+        int checkpoint = index / interval;
+        int base = checkpoint * CHECKPOINT_LONGS;
+        dec.seek((int) checkpoints[base], checkpoints[base + 1], checkpoints[base + 2], checkpoints[base + 3]);
+        for (int i = checkpoint * interval; i < index; i++) {
+            if (!dec.skip()) {
+                throw mismatch();
+            }
+        }
+        return dec;
+    }
+
+    //Polyline other than the indexed one, e.g. with a different header or ending before the indexed points
+    private static IllegalArgumentException mismatch() {
+        return new IllegalArgumentException("Index does not match encoded polyline");
+    }
+}
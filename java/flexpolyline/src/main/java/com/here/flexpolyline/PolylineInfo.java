@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline;
+
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * Header, point count and optional bounds of an encoded polyline, as read by
+ * {@link PolylineEncoderDecoder#inspect(CharSequence, boolean)}.
+ *
+ * Bounds are NaN when they were not requested or the polyline has no points. The third dimension
+ * bounds are 0 when the polyline has no third dimension, like the decoded values.
+ */
+public final class PolylineInfo {
+
+    private final int precision;
+    private final ThirdDimension thirdDimension;
+    private final int thirdDimPrecision;
+    private final int size;
+    private final double minLat;
+    private final double maxLat;
+    private final double minLng;
+    private final double maxLng;
+    private final double minZ;
+    private final double maxZ;
+
+    PolylineInfo(int precision, ThirdDimension thirdDimension, int thirdDimPrecision, int size) {
+        this(precision, thirdDimension, thirdDimPrecision, size,
+                Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+    }
+
+    PolylineInfo(int precision, ThirdDimension thirdDimension, int thirdDimPrecision, int size,
+                 double minLat, double maxLat, double minLng, double maxLng, double minZ, double maxZ) {
+        this.precision = precision;
+        this.thirdDimension = thirdDimension;
+        this.thirdDimPrecision = thirdDimPrecision;
+        this.size = size;
+        this.minLat = minLat;
+        this.maxLat = maxLat;
+        this.minLng = minLng;
+        this.maxLng = maxLng;
+        this.minZ = minZ;
+        this.maxZ = maxZ;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public ThirdDimension getThirdDimension() {
+        return thirdDimension;
+    }
+
+    public int getThirdDimPrecision() {
+        return thirdDimPrecision;
+    }
+
+    /**
+     * @return number of points of the polyline
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return whether the bounds were computed, false when not requested or for a polyline without points
+     */
+    public boolean hasBounds() {
+        return !Double.isNaN(minLat);
+    }
+
+    public double getMinLat() {
+        return minLat;
+    }
+
+    public double getMaxLat() {
+        return maxLat;
+    }
+
+    public double getMinLng() {
+        return minLng;
+    }
+
+    public double getMaxLng() {
+        return maxLng;
+    }
+
+    public double getMinZ() {
+        return minZ;
+    }
+
+    public double getMaxZ() {
+        return maxZ;
+    }
+
+    @Override
+    public String toString() {
+        return "PolylineInfo [precision=" + precision + ", thirdDimension=" + thirdDimension
+                + ", thirdDimPrecision=" + thirdDimPrecision + ", size=" + size
+                + (hasBounds() ? ", lat=[" + minLat + ", " + maxLat + "], lng=[" + minLng + ", " + maxLng
+                + "], z=[" + minZ + ", " + maxZ + "]" : "") + "]";
+    }
+}
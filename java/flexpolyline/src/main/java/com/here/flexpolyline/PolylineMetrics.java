@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline;
+
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * Receiver of measurements of the encode and decode calls of {@link PolylineEncoderDecoder},
+ * installed with {@link PolylineEncoderDecoder#setMetrics(PolylineMetrics)}.
+ *
+ * Whole polyline decodings of {@link PolylineDecoder} and {@link ParallelPolylineDecoder} are reported as well,
+ * whichever path the parallel decoder takes. Incremental APIs are not: {@link PolylineEncoder},
+ * {@link PolylineWriter} and the cursor and stream of {@link PolylineDecoder} spread their work over calls
+ * of the caller, so there is no single call to measure.
+ *
+ * Callbacks run synchronously on the calling thread after each successful call, so implementations
+ * must be thread-safe and cheap. Calls failing with an exception are not reported.
+ *
+ * @see PolylineCounters
+ */
+public interface PolylineMetrics {
+
+    /**
+     * A polyline was encoded.
+     *
+     * @param points number of encoded points
+     * @param length number of chars or bytes of the encoded polyline
+     * @param precision precision of the coordinates
+     * @param thirdDimension {@link ThirdDimension} of the polyline
+     * @param nanos elapsed time of the call, in nanoseconds
+     */
+    void encoded(int points, int length, int precision, ThirdDimension thirdDimension, long nanos);
+
+    /**
+     * A polyline was decoded.
+     *
+     * @param points number of decoded points
+     * @param length number of chars or bytes of the encoded polyline
+     * @param precision precision of the coordinates
+     * @param thirdDimension {@link ThirdDimension} of the polyline
+     * @param nanos elapsed time of the call, in nanoseconds
+     */
+    void decoded(int points, int length, int precision, ThirdDimension thirdDimension, long nanos);
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+import com.here.flexpolyline.PolylineEncoderDecoder.Encoder;
+import com.here.flexpolyline.PolylineEncoderDecoder.LatLngZ;
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * Streaming encoder writing the encoded polyline to an {@link Appendable} (e.g. a {@link Writer})
+ * or an {@link OutputStream} while points are added.
+ *
+ * Encoded characters go through a fixed size internal buffer which is written out whenever it fills up,
+ * so memory use does not depend on the number of points. The header is encoded on construction but only
+ * written out with the first point: a writer closed without points leaves the target empty, the same way
+ * {@link PolylineEncoderDecoder#encode(java.util.List, int, ThirdDimension, int)} rejects an empty list.
+ * Call {@link #flush()} to push buffered characters out and {@link #close()} once all points are added.
+ *
+ * Instances are not thread-safe.
+ */
+public final class PolylineWriter implements Closeable, Flushable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    // Three varints of at most 13 chars each
+    private static final int MAX_POINT_LENGTH = 39;
+
+    private final Appendable appendable;
+    private final OutputStream outputStream;
+    private final BufferEncoder encoder;
+    private final char[] buffer;
+    private final byte[] bytes;
+    private int count;
+    private boolean hasPoints;
+    private boolean closed;
+
+    /**
+     * @param out target of the encoded characters; when it is {@link Flushable} or {@link Closeable}
+     *            it is flushed or closed together with this writer
+     * @param precision   Floating point precision of the coordinate to be encoded.
+     * @param thirdDimension {@link ThirdDimension} which may be a level, altitude, elevation or some other custom value
+     * @param thirdDimPrecision Floating point precision for thirdDimension value
+     */
+    public PolylineWriter(Appendable out, int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+        this(out, null, DEFAULT_BUFFER_SIZE, precision, thirdDimension, thirdDimPrecision);
+    }
+
+    /**
+     * @param out target of the encoded ASCII bytes, flushed or closed together with this writer
+     * @param precision   Floating point precision of the coordinate to be encoded.
+     * @param thirdDimension {@link ThirdDimension} which may be a level, altitude, elevation or some other custom value
+     * @param thirdDimPrecision Floating point precision for thirdDimension value
+     */
+    public PolylineWriter(OutputStream out, int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+        this(null, out, DEFAULT_BUFFER_SIZE, precision, thirdDimension, thirdDimPrecision);
+    }
+
+    private PolylineWriter(Appendable appendable, OutputStream outputStream, int bufferSize,
+                           int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+        if (appendable == null && outputStream == null) {
+            throw new IllegalArgumentException("Invalid output");
+        }
+        if (thirdDimension == null) {
+            throw new IllegalArgumentException("Invalid thirdDimension");
+        }
+        this.appendable = appendable;
+        this.outputStream = outputStream;
+        this.buffer = new char[bufferSize];
+        this.bytes = outputStream != null ? new byte[bufferSize] : null;
+        this.encoder = new BufferEncoder(precision, thirdDimension, thirdDimPrecision);
+    }
+
+    public PolylineWriter add(double lat, double lng) throws IOException {
+        return add(lat, lng, 0);
+    }
+
+    /**
+     * Encode a point. The third dimension value is ignored when the writer was set up with ABSENT.
+     *
+     * @return this writer
+     */
+    public PolylineWriter add(double lat, double lng, double z) throws IOException {
+        ensureOpen();
+        if (count > buffer.length - MAX_POINT_LENGTH) {
+            flushBuffer();
+        }
+        encoder.add(lat, lng, z);
+        hasPoints = true;
+        return this;
+    }
+
+    public PolylineWriter add(LatLngZ tuple) throws IOException {
+        if (tuple == null) {
+            throw new IllegalArgumentException("Invalid LatLngZ tuple");
+        }
+        return add(tuple.lat, tuple.lng, tuple.z);
+    }
+
+    public PolylineWriter addAll(Iterable<LatLngZ> coordinates) throws IOException {
+        if (coordinates == null) {
+            throw new IllegalArgumentException("Invalid coordinates!");
+        }
+        for (LatLngZ tuple : coordinates) {
+            add(tuple);
+        }
+        return this;
+    }
+
+    /**
+     * Write buffered characters to the target and flush it if it is {@link Flushable}.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        flushBuffer();
+        if (outputStream != null) {
+            outputStream.flush();
+        } else if (appendable instanceof Flushable) {
+            ((Flushable) appendable).flush();
+        }
+    }
+
+    /**
+     * Write buffered characters to the target and close it if it is {@link Closeable}.
+     * Nothing is written when no point was added.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flushBuffer();
+        } finally {
+            closed = true;
+            if (outputStream != null) {
+                outputStream.close();
+            } else if (appendable instanceof Closeable) {
+                ((Closeable) appendable).close();
+            }
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        // The header alone is not a valid polyline
+        if (count == 0 || !hasPoints) {
+            return;
+        }
+        if (outputStream != null) {
+            for (int i = 0; i < count; i++) {
+                bytes[i] = (byte) buffer[i];
+            }
+            outputStream.write(bytes, 0, count);
+        } else if (appendable instanceof Writer) {
+            ((Writer) appendable).write(buffer, 0, count);
+        } else {
+            appendable.append(CharBuffer.wrap(buffer, 0, count));
+        }
+        count = 0;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Writer closed");
+        }
+    }
+
+    /*
+     * Encoder filling the character buffer, callers make room for a whole point beforehand.
+     */
+    private final class BufferEncoder extends Encoder {
+
+        BufferEncoder(int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+            super(precision, thirdDimension, thirdDimPrecision);
+            writeHeader();
+        }
+
+        @Override
+        void appendVarint(long value) {
+            final char[] buffer = PolylineWriter.this.buffer;
+            int pos = count;
+            while (value > 0x1F) {
+                buffer[pos++] = PolylineEncoderDecoder.ENCODING_TABLE[(int) ((value & 0x1F) | 0x20)];
+                value >>= 5;
+            }
+            buffer[pos++] = PolylineEncoderDecoder.ENCODING_TABLE[(int) value];
+            count = pos;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline;
+
+import java.util.Arrays;
+
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * Growable columnar storage for decoded fixed-point coordinates, as filled by
+ * {@link PolylineEncoderDecoder#decodeScaled(CharSequence, ScaledPolylineBuffer)}.
+ *
+ * Values are the integers stored in the encoded polyline, i.e. the coordinates multiplied by
+ * {@code 10^precision}, and the third dimension values multiplied by {@code 10^thirdDimPrecision}.
+ * Like {@link PolylineBuffer}, the third dimension column is only allocated when needed and a buffer
+ * can be reused across decode calls.
+ *
+ * Instances are not thread-safe.
+ */
+public class ScaledPolylineBuffer {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final long[] EMPTY = new long[0];
+
+    private long[] lat;
+    private long[] lng;
+    private long[] z;
+    private int size;
+    private ThirdDimension thirdDimension = ThirdDimension.ABSENT;
+    private int precision;
+    private int thirdDimPrecision;
+
+    public ScaledPolylineBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ScaledPolylineBuffer(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Invalid capacity");
+        }
+        this.lat = new long[capacity];
+        this.lng = new long[capacity];
+        this.z = EMPTY;
+    }
+
+    /**
+     * @return number of points held in this buffer
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return {@link ThirdDimension} of the last decoded polyline
+     */
+    public ThirdDimension getThirdDimension() {
+        return thirdDimension;
+    }
+
+    public boolean hasThirdDimension() {
+        return thirdDimension != ThirdDimension.ABSENT;
+    }
+
+    /**
+     * @return number of decimal digits of the lat and lng values, from the header of the last decoded polyline
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * @return number of decimal digits of the third dimension values, from the header of the last decoded polyline
+     */
+    public int getThirdDimPrecision() {
+        return thirdDimPrecision;
+    }
+
+    public long lat(int index) {
+        checkIndex(index);
+        return lat[index];
+    }
+
+    public long lng(int index) {
+        checkIndex(index);
+        return lng[index];
+    }
+
+    /**
+     * @return third dimension value, or 0 when the polyline has none
+     */
+    public long z(int index) {
+        checkIndex(index);
+        return hasThirdDimension() ? z[index] : 0;
+    }
+
+    /**
+     * @return backing latitude array, valid up to {@link #size()}
+     */
+    public long[] lat() {
+        return lat;
+    }
+
+    /**
+     * @return backing longitude array, valid up to {@link #size()}
+     */
+    public long[] lng() {
+        return lng;
+    }
+
+    /**
+     * @return backing third dimension array, valid up to {@link #size()} when {@link #hasThirdDimension()}
+     */
+    public long[] z() {
+        return z;
+    }
+
+    /**
+     * Remove all points and set the header of the content to follow. Storage is kept.
+     *
+     * @param precision number of decimal digits of the lat and lng values
+     * @param thirdDimension {@link ThirdDimension} of the points to be added
+     * @param thirdDimPrecision number of decimal digits of the third dimension values
+     * @return this buffer
+     */
+    public ScaledPolylineBuffer clear(int precision, ThirdDimension thirdDimension, int thirdDimPrecision) {
+        if (thirdDimension == null) {
+            throw new IllegalArgumentException("Invalid thirdDimension");
+        }
+        this.precision = precision;
+        this.thirdDimension = thirdDimension;
+        this.thirdDimPrecision = thirdDimPrecision;
+        this.size = 0;
+        return this;
+    }
+
+    public void add(long lat, long lng) {
+        add(lat, lng, 0);
+    }
+
+    public void add(long lat, long lng, long z) {
+        if (size == this.lat.length) {
+            grow();
+        }
+        this.lat[size] = lat;
+        this.lng[size] = lng;
+        if (hasThirdDimension()) {
+            if (this.z.length < this.lat.length) {
+                this.z = Arrays.copyOf(this.z, this.lat.length);
+            }
+            this.z[size] = z;
+        }
+        size++;
+    }
+
+    /**
+     * Make sure the buffer can hold {@code capacity} points without reallocating.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > lat.length) {
+            lat = Arrays.copyOf(lat, capacity);
+            lng = Arrays.copyOf(lng, capacity);
+        }
+        if (hasThirdDimension() && capacity > z.length) {
+            z = Arrays.copyOf(z, capacity);
+        }
+    }
+
+    private void grow() {
+        int capacity = lat.length;
+        ensureCapacity(capacity < DEFAULT_CAPACITY ? DEFAULT_CAPACITY : capacity + (capacity >> 1));
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
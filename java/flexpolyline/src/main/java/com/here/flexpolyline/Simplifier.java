@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline;
+
+import java.util.Arrays;
+
+/*
+ * Douglas-Peucker line simplification on primitive coordinate arrays.
+ *
+ * Iterative with an explicit stack of index ranges, so that long polylines cannot overflow the call stack.
+ * Distances are measured to the segment between the kept points, in the lat/lng plane and in coordinate
+ * units. The third dimension has its own tolerance: it is compared to the value interpolated along the
+ * segment at the closest point, so that a point is kept when either its position or its z deviates.
+ */
+final class Simplifier {
+
+    private Simplifier() {
+    }
+
+    /*
+     * Marks the points of [offset, offset + length) to keep, relative to offset.
+     * The first and the last point are always kept. The third dimension is ignored when z is null.
+     */
+    static boolean[] douglasPeucker(double[] lat, double[] lng, double[] z, int offset, int length,
+                                    double tolerance, double zTolerance) {
+        boolean[] keep = new boolean[length];
+        keep[0] = true;
+        keep[length - 1] = true;
+        double toleranceSquared = tolerance * tolerance;
+
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = length - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            if (last - first < 2) {
+                continue;
+            }
+            double ax = lat[offset + first];
+            double ay = lng[offset + first];
+            double dx = lat[offset + last] - ax;
+            double dy = lng[offset + last] - ay;
+            double lengthSquared = dx * dx + dy * dy;
+            double az = z == null ? 0 : z[offset + first];
+            double dz = z == null ? 0 : z[offset + last] - az;
+            double maxDistance = -1;
+            int farthest = -1;
+            double maxDeviation = -1;
+            int deviating = -1;
+            for (int i = first + 1; i < last; i++) {
+                double px = lat[offset + i];
+                double py = lng[offset + i];
+                double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+                t = Math.max(0, Math.min(1, t));
+                double ex = ax + t * dx - px;
+                double ey = ay + t * dy - py;
+                double distance = ex * ex + ey * ey;
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+                if (z != null) {
+                    double deviation = Math.abs(az + t * dz - z[offset + i]);
+                    if (deviation > maxDeviation) {
+                        maxDeviation = deviation;
+                        deviating = i;
+                    }
+                }
+            }
+            // The position decides where to split first, the third dimension only on a flat enough range
+            int split = maxDistance > toleranceSquared ? farthest : maxDeviation > zTolerance ? deviating : -1;
+            if (split >= 0) {
+                keep[split] = true;
+                if (top + 4 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = first;
+                stack[top++] = split;
+                stack[top++] = split;
+                stack[top++] = last;
+            }
+        }
+        return keep;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline;
+
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * Outcome of {@link PolylineEncoderDecoder#validate(CharSequence, int, int)}: whether the input decodes,
+ * and otherwise why and where it does not. Valid inputs always decode; the only invalid inputs that may
+ * decode as well are those with an {@link Reason#INVALID_HEADER}.
+ *
+ * The header fields are set once the header could be read, i.e. for valid inputs and for errors after
+ * the header; they are -1 and null otherwise.
+ */
+public final class ValidationResult {
+
+    /**
+     * Reason of a failed validation.
+     */
+    public enum Reason {
+        /** Empty or whitespace only input */
+        BLANK,
+        /** Input longer than the allowed length */
+        TOO_LONG,
+        /** Char outside of the URL-safe encoding table */
+        INVALID_CHAR,
+        /** Format version other than the supported one */
+        INVALID_VERSION,
+        /**
+         * Header with bits set above the precision, third dimension and third dimension precision.
+         * Stricter than decoding, which ignores these bits.
+         */
+        INVALID_HEADER,
+        /** Input ending within a value or a point */
+        TRUNCATED,
+        /** More points than allowed */
+        TOO_MANY_POINTS
+    }
+
+    private final Reason reason;
+    private final int offset;
+    private final String message;
+    private final int precision;
+    private final ThirdDimension thirdDimension;
+    private final int thirdDimPrecision;
+    private final int size;
+
+    ValidationResult(Reason reason, int offset, String message,
+                     int precision, ThirdDimension thirdDimension, int thirdDimPrecision, int size) {
+        this.reason = reason;
+        this.offset = offset;
+        this.message = message;
+        this.precision = precision;
+        this.thirdDimension = thirdDimension;
+        this.thirdDimPrecision = thirdDimPrecision;
+        this.size = size;
+    }
+
+    public boolean isValid() {
+        return reason == null;
+    }
+
+    /**
+     * @return reason of the failure, null when valid
+     */
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * @return index of the offending char, of the first char of a truncated or exceeding point,
+     *         or of the first char past the allowed length; -1 when valid
+     */
+    public int getErrorOffset() {
+        return offset;
+    }
+
+    /**
+     * @return message of the {@link IllegalArgumentException} decoding the input would throw,
+     *         or describing the exceeded limit; "Invalid header" for {@link Reason#INVALID_HEADER},
+     *         which decoding does not check; null when valid
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public ThirdDimension getThirdDimension() {
+        return thirdDimension;
+    }
+
+    public int getThirdDimPrecision() {
+        return thirdDimPrecision;
+    }
+
+    /**
+     * @return number of points of a valid input, or of the complete points before the error
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        if (isValid()) {
+            return "ValidationResult [valid, precision=" + precision + ", thirdDimension=" + thirdDimension
+                    + ", thirdDimPrecision=" + thirdDimPrecision + ", size=" + size + "]";
+        }
+        return "ValidationResult [reason=" + reason + ", offset=" + offset + ", message=" + message + "]";
+    }
+}
@@ -0,0 +1,1498 @@
+/*
+ * Copyright (C) 2019 HERE Europe B.V.
+ * Licensed under MIT, see full license in LICENSE
+ * SPDX-License-Identifier: MIT
+ * License-Filename: LICENSE
+ */
+package com.here.flexpolyline;
+
+import static com.here.flexpolyline.PolylineEncoderDecoder.concat;
+import static com.here.flexpolyline.PolylineEncoderDecoder.decode;
+import static com.here.flexpolyline.PolylineEncoderDecoder.decodeAll;
+import static com.here.flexpolyline.PolylineEncoderDecoder.decodeBytes;
+import static com.here.flexpolyline.PolylineEncoderDecoder.encode;
+import static com.here.flexpolyline.PolylineEncoderDecoder.encodeAll;
+import static com.here.flexpolyline.PolylineEncoderDecoder.encodeInterleaved;
+import static com.here.flexpolyline.PolylineEncoderDecoder.encodeSimplified;
+import static com.here.flexpolyline.PolylineEncoderDecoder.encodeTo;
+import static com.here.flexpolyline.PolylineEncoderDecoder.getThirdDimension;
+import static com.here.flexpolyline.PolylineEncoderDecoder.inspect;
+import static com.here.flexpolyline.PolylineEncoderDecoder.iterator;
+import static com.here.flexpolyline.PolylineEncoderDecoder.slice;
+import static com.here.flexpolyline.PolylineEncoderDecoder.stream;
+import static com.here.flexpolyline.PolylineEncoderDecoder.transcode;
+import static com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension.ABSENT;
+import static com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension.ALTITUDE;
+import static com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension.ELEVATION;
+import static com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension.LEVEL;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.StringCharacterIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import com.here.flexpolyline.PolylineEncoderDecoder.Converter;
+import com.here.flexpolyline.PolylineEncoderDecoder.LatLngZ;
+import com.here.flexpolyline.PolylineEncoderDecoder.ThirdDimension;
+
+/**
+ * Validate polyline encoding with different input combinations.
+ */
+public class PolylineEncoderDecoderTest {
+
+    private void testInvalidCoordinates() {
+
+        //Null coordinates
+        assertThrows(IllegalArgumentException.class,
+                     () -> { encode(null, 5, ThirdDimension.ABSENT, 0); });
+
+
+        //Empty coordinates list test
+        assertThrows(IllegalArgumentException.class,
+                     () -> { encode(new ArrayList<LatLngZ>(), 5, ThirdDimension.ABSENT, 0); });
+    }
+
+    private void testInvalidThirdDimension() {
+
+        List<LatLngZ> pairs = new ArrayList<>();
+        pairs.add(new LatLngZ(50.1022829, 8.6982122));
+        ThirdDimension invalid = null;
+
+        //Invalid Third Dimension
+        assertThrows(IllegalArgumentException.class,
+                     () -> { encode(pairs, 5, invalid, 0); });
+    }
+
+    private void testConvertValue() {
+
+        PolylineEncoderDecoder.Converter conv = new PolylineEncoderDecoder.Converter(5);
+        StringBuilder result = new StringBuilder();
+        conv.encodeValue(-179.98321, result);
+        assertEquals(result.toString(), "h_wqiB");
+    }
+
+    private void testSimpleLatLngEncoding() {
+
+        List<LatLngZ> pairs = new ArrayList<>();
+        pairs.add(new LatLngZ(50.1022829, 8.6982122));
+        pairs.add(new LatLngZ(50.1020076, 8.6956695));
+        pairs.add(new LatLngZ(50.1006313, 8.6914960));
+        pairs.add(new LatLngZ(50.0987800, 8.6875156));
+
+        String expected = "BFoz5xJ67i1B1B7PzIhaxL7Y";
+        String computed = encode(pairs, 5, ThirdDimension.ABSENT, 0);
+        assertEquals(computed, expected);
+    }
+
+    private void testComplexLatLngEncoding() {
+
+        List<LatLngZ> pairs = new ArrayList<>();
+        pairs.add(new LatLngZ(52.5199356, 13.3866272));
+        pairs.add(new LatLngZ(52.5100899, 13.2816896));
+        pairs.add(new LatLngZ(52.4351807, 13.1935196));
+        pairs.add(new LatLngZ(52.4107285, 13.1964502));
+        pairs.add(new LatLngZ(52.38871,   13.1557798));
+        pairs.add(new LatLngZ(52.3727798, 13.1491003));
+        pairs.add(new LatLngZ(52.3737488, 13.1154604));
+        pairs.add(new LatLngZ(52.3875198, 13.0872202));
+        pairs.add(new LatLngZ(52.4029388, 13.0706196));
+        pairs.add(new LatLngZ(52.4105797, 13.0755529));
+
+        String expected = "BF05xgKuy2xCx9B7vUl0OhnR54EqSzpEl-HxjD3pBiGnyGi2CvwFsgD3nD4vB6e";
+        String computed = encode(pairs, 5, ThirdDimension.ABSENT, 0);
+        assertEquals(computed, expected);
+    }
+
+    private void testLatLngZEncode() {
+
+        List<LatLngZ> tuples = new ArrayList<>();
+        tuples.add(new LatLngZ(50.1022829, 8.6982122, 10));
+        tuples.add(new LatLngZ(50.1020076, 8.6956695, 20));
+        tuples.add(new LatLngZ(50.1006313, 8.6914960, 30));
+        tuples.add(new LatLngZ(50.0987800, 8.6875156, 40));
+
+        String expected = "BlBoz5xJ67i1BU1B7PUzIhaUxL7YU";
+        String computed = encode(tuples, 5, ThirdDimension.ALTITUDE, 0);
+        assertEquals(computed, expected);
+    }
+
+    private void testPrimitiveEncoding() {
+
+        double[] lat = {0, 50.1022829, 50.1020076, 50.1006313, 50.0987800};
+        double[] lng = {0, 8.6982122, 8.6956695, 8.6914960, 8.6875156};
+        double[] z = {0, 10, 20, 30, 40};
+        assertEquals(encode(lat, lng, null, 1, 4, 5, ThirdDimension.ABSENT, 0), "BFoz5xJ67i1B1B7PzIhaxL7Y");
+        assertEquals(encode(lat, lng, z, 1, 4, 5, ThirdDimension.ALTITUDE, 0), "BlBoz5xJ67i1BU1B7PUzIhaUxL7YU");
+
+        // Interleaved with padding after each triple
+        double[] interleaved = new double[1 + 4 * 4];
+        for (int i = 0; i < 4; i++) {
+            interleaved[1 + i * 4] = lat[i + 1];
+            interleaved[2 + i * 4] = lng[i + 1];
+            interleaved[3 + i * 4] = z[i + 1];
+        }
+        assertEquals(encodeInterleaved(interleaved, 1, 4, 4, 5, ThirdDimension.ALTITUDE, 0), "BlBoz5xJ67i1BU1B7PUzIhaUxL7YU");
+        assertEquals(encodeInterleaved(interleaved, 1, 4, 4, 5, ThirdDimension.ABSENT, 0), "BFoz5xJ67i1B1B7PzIhaxL7Y");
+
+        // Direct buffers
+        DoubleBuffer latBuffer = ByteBuffer.allocateDirect(lat.length * 8).asDoubleBuffer().put(lat);
+        DoubleBuffer lngBuffer = ByteBuffer.allocateDirect(lng.length * 8).asDoubleBuffer().put(lng);
+        DoubleBuffer zBuffer = DoubleBuffer.wrap(z);
+        latBuffer.position(1);
+        lngBuffer.position(1);
+        zBuffer.position(1);
+        assertEquals(encode(latBuffer, lngBuffer, zBuffer, 5, ThirdDimension.ALTITUDE, 0), "BlBoz5xJ67i1BU1B7PUzIhaUxL7YU");
+        assertEquals(latBuffer.position(), 1);
+        DoubleBuffer interleavedBuffer = DoubleBuffer.wrap(interleaved);
+        interleavedBuffer.position(1);
+        assertEquals(encodeInterleaved(interleavedBuffer, 4, 4, 5, ThirdDimension.ALTITUDE, 0), "BlBoz5xJ67i1BU1B7PUzIhaUxL7YU");
+
+        // PolylineBuffer round trip
+        PolylineBuffer buffer = decode("BlBoz5xJ67i1BU1B7PUzIhaUxL7YU", new PolylineBuffer());
+        assertEquals(encode(buffer.lat(), buffer.lng(), buffer.z(), 0, buffer.size(), 5, ThirdDimension.ALTITUDE, 0), "BlBoz5xJ67i1BU1B7PUzIhaUxL7YU");
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> { encode(lat, lng, null, 1, 4, 5, ThirdDimension.ALTITUDE, 0); });
+        assertThrows(IllegalArgumentException.class,
+                     () -> { encode(lat, lng, z, 2, 4, 5, ThirdDimension.ABSENT, 0); });
+        assertThrows(IllegalArgumentException.class,
+                     () -> { encodeInterleaved(interleaved, 1, 2, 4, 5, ThirdDimension.ALTITUDE, 0); });
+        assertThrows(IllegalArgumentException.class,
+                     () -> { encodeInterleaved(interleaved, 3, 4, 4, 5, ThirdDimension.ALTITUDE, 0); });
+    }
+
+    private void testSimplifiedEncoding() {
+        // Points on a straight line, with repeated points, collapse to the end points
+        List<LatLngZ> line = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            line.add(new LatLngZ(50 + i * 0.001, 8 + i * 0.002, i));
+            line.add(new LatLngZ(50 + i * 0.001, 8 + i * 0.002, i));
+        }
+        assertEquals(decode(encodeSimplified(line, 5, ThirdDimension.ALTITUDE, 0)),
+                     Arrays.asList(new LatLngZ(50, 8, 0), new LatLngZ(50.1, 8.2, 100)));
+
+        // The third dimension has its own tolerance: a climb in the middle of a straight line is kept
+        List<LatLngZ> climb = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            climb.add(new LatLngZ(50 + i * 0.001, 8 + i * 0.002, i < 40 ? 0 : i > 60 ? 100 : (i - 40) * 5));
+        }
+        assertEquals(decode(encodeSimplified(climb, 5, ThirdDimension.ALTITUDE, 0)),
+                     Arrays.asList(new LatLngZ(50, 8, 0), new LatLngZ(50.04, 8.08, 0),
+                                   new LatLngZ(50.06, 8.12, 100), new LatLngZ(50.1, 8.2, 100)));
+        assertEquals(decode(encodeSimplified(climb, 5, ThirdDimension.ALTITUDE, 0, 0.00001, 50)).size(), 2);
+        assertEquals(decode(encodeSimplified(climb, 5, ThirdDimension.ABSENT, 0)).size(), 2);
+        double[] climbLat = new double[climb.size()];
+        double[] climbLng = new double[climb.size()];
+        double[] climbZ = new double[climb.size()];
+        for (int i = 0; i < climb.size(); i++) {
+            climbLat[i] = climb.get(i).lat;
+            climbLng[i] = climb.get(i).lng;
+            climbZ[i] = climb.get(i).z;
+        }
+        assertEquals(encodeSimplified(climbLat, climbLng, climbZ, 0, climb.size(), 5, ThirdDimension.ALTITUDE, 0, 0.00001),
+                     encodeSimplified(climb, 5, ThirdDimension.ALTITUDE, 0, 0.00001));
+
+        // Deviations larger than the tolerance are kept
+        List<LatLngZ> zigzag = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            zigzag.add(new LatLngZ(50 + i * 0.01, 8 + (i % 2) * 0.01));
+        }
+        assertEquals(encodeSimplified(zigzag, 5, ThirdDimension.ABSENT, 0), encode(zigzag, 5, ThirdDimension.ABSENT, 0));
+        assertEquals(decode(encodeSimplified(zigzag, 5, ThirdDimension.ABSENT, 0, 0.1)).size(), 2);
+
+        // Random walk: kept points are a subsequence of the original ones
+        Random random = new Random(17);
+        List<LatLngZ> walk = new ArrayList<>();
+        double[] lat = new double[5000];
+        double[] lng = new double[5000];
+        for (int i = 0; i < lat.length; i++) {
+            lat[i] = i == 0 ? 50 : lat[i - 1] + (random.nextDouble() - 0.5) * 0.0001;
+            lng[i] = i == 0 ? 8 : lng[i - 1] + 0.00005;
+            walk.add(new LatLngZ(lat[i], lng[i]));
+        }
+        String simplified = encodeSimplified(walk, 6, ThirdDimension.ABSENT, 0, 0.00002);
+        assertEquals(encodeSimplified(lat, lng, null, 0, lat.length, 6, ThirdDimension.ABSENT, 0, 0.00002), simplified);
+        assertTrue(simplified.length() < encode(walk, 6, ThirdDimension.ABSENT, 0).length() / 2);
+        List<LatLngZ> kept = decode(simplified);
+        List<LatLngZ> all = decode(encode(walk, 6, ThirdDimension.ABSENT, 0));
+        assertEquals(kept.get(0), all.get(0));
+        assertEquals(kept.get(kept.size() - 1), all.get(all.size() - 1));
+        int next = 0;
+        for (LatLngZ point : kept) {
+            while (!all.get(next).equals(point)) {
+                next++;
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> encodeSimplified(walk, 6, ThirdDimension.ABSENT, 0, -1));
+        assertThrows(IllegalArgumentException.class, () -> encodeSimplified(walk, 6, ThirdDimension.ABSENT, 0, Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> encodeSimplified(walk, 6, ThirdDimension.ABSENT, 0, 0, -1));
+        assertThrows(IllegalArgumentException.class, () -> encodeSimplified(new ArrayList<LatLngZ>(), 6, ThirdDimension.ABSENT, 0));
+        assertThrows(IllegalArgumentException.class, () -> encodeSimplified(lat, lng, null, 0, lat.length, 6, ThirdDimension.LEVEL, 0, 0));
+    }
+
+    private void testConcatAndSlice() {
+        Random random = new Random(19);
+        for (ThirdDimension thirdDimension : Arrays.asList(ThirdDimension.ABSENT, ThirdDimension.ALTITUDE)) {
+            List<LatLngZ> coordinates = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                coordinates.add(new LatLngZ(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180,
+                        thirdDimension == ThirdDimension.ABSENT ? 0 : random.nextDouble() * 100));
+            }
+            String encoded = encode(coordinates, 6, thirdDimension, 1);
+            String first = encode(coordinates.subList(0, 100), 6, thirdDimension, 1);
+            String second = encode(coordinates.subList(100, 101), 6, thirdDimension, 1);
+            String third = encode(coordinates.subList(101, 300), 6, thirdDimension, 1);
+
+            assertEquals(concat(first, second, third), encoded);
+            assertEquals(concat(new StringBuilder(first), third), encode(concatenate(coordinates.subList(0, 100), coordinates.subList(101, 300)), 6, thirdDimension, 1));
+            assertEquals(concat(encoded), encoded);
+
+            assertEquals(slice(encoded, 0, 100), first);
+            assertEquals(slice(encoded, 100, 101), second);
+            assertEquals(slice(encoded, 101, 300), third);
+            assertEquals(slice(encoded, 0, 300), encoded);
+            assertEquals(PolylineIndex.build(encoded, 16).slice(encoded, 101, 300), third);
+            assertEquals(PolylineIndex.build(encoded, 16).slice(encoded, 37, 38), slice(encoded, 37, 38));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> concat("BFoz5xJ67i1B1B7PzIhaxL7Y", "BlBoz5xJ67i1BU1B7PUzIhaUxL7YU"));
+        assertThrows(IllegalArgumentException.class, () -> concat());
+        assertThrows(IllegalArgumentException.class, () -> slice("BFoz5xJ67i1B1B7PzIhaxL7Y", 2, 2));
+        assertThrows(IllegalArgumentException.class, () -> slice("BFoz5xJ67i1B1B7PzIhaxL7Y", 2, 5));
+        assertEquals(decodeFailure(() -> concat("BFoz5xJ67i1B1B7PzIhaxL7Y", "BFoz5xJ67i1B1B7P*IhaxL7Y")), "Unexpected value found '*' at index 17");
+    }
+
+    private void testTranscoding() {
+        Random random = new Random(23);
+        List<LatLngZ> coordinates = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            coordinates.add(new LatLngZ(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180, random.nextDouble() * 20000 - 10000));
+        }
+        // Half-way values, rounded away from zero
+        coordinates.add(new LatLngZ(0.000015, -0.000015, 0.5));
+        coordinates.add(new LatLngZ(50.1234550, -8.1234550, -2.5));
+
+        List<ThirdDimension> dimensions = Arrays.asList(ThirdDimension.ABSENT, ThirdDimension.ALTITUDE);
+        for (int inPrecision : new int[] {0, 5, 7, 15}) {
+            for (ThirdDimension inDimension : dimensions) {
+                String encoded = encode(coordinates, inPrecision, inDimension, 3);
+                for (int outPrecision : new int[] {0, 4, 5, 7, 12, 15}) {
+                    for (ThirdDimension outDimension : dimensions) {
+                        for (int outThirdDimPrecision : new int[] {0, 3, 6}) {
+                            assertEquals(transcode(encoded, outPrecision, outDimension, outThirdDimPrecision),
+                                         encode(decode(encoded), outPrecision, outDimension, outThirdDimPrecision));
+                        }
+                    }
+                }
+            }
+        }
+        assertEquals(transcode(new StringBuilder("BlBoz5xJ67i1BU1B7PUzIhaUxL7YU"), 5, ThirdDimension.ABSENT, 0), "BFoz5xJ67i1B1B7PzIhaxL7Y");
+
+        assertEquals(decodeFailure(() -> transcode("BFoz5xJ67i1B1B7P*IhaxL7Y", 5, ThirdDimension.ABSENT, 0)), "Unexpected value found '*' at index 17");
+        assertEquals(decodeFailure(() -> transcode("BF", 5, ThirdDimension.ABSENT, 0)), "Invalid coordinates!");
+        assertThrows(IllegalArgumentException.class, () -> transcode("BFoz5xJ67i1B1B7PzIhaxL7Y", 16, ThirdDimension.ABSENT, 0));
+        assertThrows(IllegalArgumentException.class, () -> transcode("BFoz5xJ67i1B1B7PzIhaxL7Y", 5, null, 0));
+    }
+
+    private static List<LatLngZ> concatenate(List<LatLngZ> first, List<LatLngZ> second) {
+        List<LatLngZ> result = new ArrayList<>(first);
+        result.addAll(second);
+        return result;
+    }
+
+    private void testByteEncoding() {
+
+        List<LatLngZ> tuples = decode("BlBoz5xJ67i1BU1B7PUzIhaUxL7YU");
+        String expected = encode(tuples, 5, ThirdDimension.ALTITUDE, 0);
+
+        byte[] array = new byte[64];
+        int length = encodeTo(tuples, 5, ThirdDimension.ALTITUDE, 0, array, 3);
+        assertEquals(new String(array, 3, length, StandardCharsets.US_ASCII), expected);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(64);
+        direct.position(5);
+        length = encodeTo(tuples, 5, ThirdDimension.ALTITUDE, 0, direct);
+        assertEquals(length, expected.length());
+        assertEquals(direct.position(), 5 + length);
+        direct.flip().position(5);
+        assertEquals(StandardCharsets.US_ASCII.decode(direct).toString(), expected);
+
+        // Too small destinations
+        assertThrows(BufferOverflowException.class,
+                     () -> { encodeTo(tuples, 5, ThirdDimension.ALTITUDE, 0, new byte[64], 60); });
+        ByteBuffer small = ByteBuffer.allocate(8);
+        assertThrows(BufferOverflowException.class,
+                     () -> { encodeTo(tuples, 5, ThirdDimension.ALTITUDE, 0, small); });
+        assertEquals(small.position(), 0);
+    }
+
+    private void testReusableEncoder() {
+
+        PolylineEncoder encoder = new PolylineEncoder(5, ThirdDimension.ALTITUDE, 0);
+        encoder.add(50.1022829, 8.6982122, 10)
+               .add(50.1020076, 8.6956695, 20)
+               .add(50.1006313, 8.6914960, 30)
+               .add(50.0987800, 8.6875156, 40);
+        assertEquals(encoder.getEncoded(), "BlBoz5xJ67i1BU1B7PUzIhaUxL7YU");
+
+        // Reset restarts deltas and header
+        encoder.reset(5, ThirdDimension.ABSENT, 0)
+               .add(50.1022829, 8.6982122)
+               .add(50.1020076, 8.6956695)
+               .add(50.1006313, 8.6914960)
+               .add(50.0987800, 8.6875156);
+        assertEquals(encoder.getEncoded(), "BFoz5xJ67i1B1B7PzIhaxL7Y");
+        assertEquals(encoder.length(), 24);
+        assertEquals(encoder.appendTo(new StringBuilder("x")).toString(), "xBFoz5xJ67i1B1B7PzIhaxL7Y");
+
+        byte[] bytes = new byte[30];
+        assertEquals(encoder.writeTo(bytes, 6), 24);
+        assertEquals(new String(bytes, 6, 24, StandardCharsets.US_ASCII), "BFoz5xJ67i1B1B7PzIhaxL7Y");
+        assertThrows(BufferOverflowException.class, () -> { encoder.writeTo(bytes, 7); });
+
+        List<LatLngZ> tuples = decode("BlBoz5xJ67i1BU1B7PUzIhaUxL7YU");
+        assertEquals(PolylineEncoder.local(5, ThirdDimension.ALTITUDE, 0).addAll(tuples).getEncoded(), "BlBoz5xJ67i1BU1B7PUzIhaUxL7YU");
+        assertEquals(PolylineEncoder.local(5, ThirdDimension.ALTITUDE, 0).addAll(tuples).getEncoded(), "BlBoz5xJ67i1BU1B7PUzIhaUxL7YU");
+
+        assertThrows(IllegalArgumentException.class, () -> { encoder.reset(16, ThirdDimension.ABSENT, 0); });
+        assertThrows(IllegalArgumentException.class, () -> { encoder.reset(5, null, 0); });
+    }
+
+    private void testResumableEncoder() {
+        Random random = new Random(37);
+        List<LatLngZ> coordinates = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            coordinates.add(new LatLngZ(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180, random.nextInt(5000)));
+        }
+        String full = encode(coordinates, 6, ALTITUDE, 1);
+
+        // From the encoded polyline
+        PolylineEncoder resumed = PolylineEncoder.resume(encode(coordinates.subList(0, 100), 6, ALTITUDE, 1));
+        assertEquals(resumed.getThirdDimension(), ALTITUDE);
+        assertEquals(resumed.addAll(coordinates.subList(100, 300)).getEncoded(), full);
+        assertEquals(PolylineEncoder.resume(new StringBuilder("BF")).add(50.1022829, 8.6982122).add(50.1020076, 8.6956695)
+                .getEncoded(), "BFoz5xJ67i1B1B7P");
+        assertEquals(PolylineEncoder.resume("BFoz5xJ67i1B").add(50.1020076, 8.6956695).getEncoded(), "BFoz5xJ67i1B1B7P");
+
+        // From a saved state, only storing the appended chars
+        StringBuilder stored = new StringBuilder(encode(coordinates.subList(0, 10), 6, ALTITUDE, 1));
+        String state = PolylineEncoder.resume(stored).getState().serialize();
+        for (int from = 10; from < 300; from += 7) {
+            PolylineEncoder.State restored = PolylineEncoder.State.parse(state);
+            PolylineEncoder live = PolylineEncoder.resume(restored);
+            assertEquals(live.getEncoded(), "");
+            live.addAll(coordinates.subList(from, Math.min(300, from + 7)));
+            stored.append(live.getEncoded());
+            state = live.getState().serialize();
+            assertTrue(state.length() < 32);
+        }
+        assertEquals(stored.toString(), full);
+
+        PolylineEncoder.State last = PolylineEncoder.State.parse(state);
+        assertEquals(last.getPrecision(), 6);
+        assertEquals(last.getThirdDimension(), ALTITUDE);
+        assertEquals(last.getThirdDimPrecision(), 1);
+        assertEquals(last.getScaledLat(), Math.round(coordinates.get(299).lat * 1e6));
+        assertEquals(last.getScaledLng(), Math.round(coordinates.get(299).lng * 1e6));
+        assertEquals(last.getScaledZ(), Math.round(coordinates.get(299).z * 10));
+        assertEquals(new PolylineEncoder(5, ABSENT, 0).getState().serialize(), "BFAA");
+
+        assertThrows(IllegalArgumentException.class, () -> PolylineEncoder.resume((CharSequence) null));
+        assertThrows(IllegalArgumentException.class, () -> PolylineEncoder.resume((PolylineEncoder.State) null));
+        assertThrows(IllegalArgumentException.class, () -> PolylineEncoder.resume(" "));
+        assertEquals(decodeFailure(() -> PolylineEncoder.resume("BFoz5xJ67i1B1B7P*IhaxL7Y")), "Unexpected value found '*' at index 17");
+        assertThrows(IllegalArgumentException.class, () -> PolylineEncoder.State.parse("BF"));
+        assertThrows(IllegalArgumentException.class, () -> PolylineEncoder.State.parse("BFoz5xJ67i1B1B7P"));
+    }
+
+    private void testStreamingEncoder() throws IOException {
+
+        Random random = new Random(7);
+        List<LatLngZ> coordinates = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            coordinates.add(new LatLngZ(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180, random.nextDouble() * 1000));
+        }
+        String expected = encode(coordinates, 7, ThirdDimension.ELEVATION, 2);
+
+        StringWriter writer = new StringWriter();
+        try (PolylineWriter out = new PolylineWriter(writer, 7, ThirdDimension.ELEVATION, 2)) {
+            out.addAll(coordinates);
+        }
+        assertEquals(writer.toString(), expected);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PolylineWriter out = new PolylineWriter(bytes, 7, ThirdDimension.ELEVATION, 2)) {
+            for (LatLngZ coord : coordinates) {
+                out.add(coord.lat, coord.lng, coord.z);
+            }
+        }
+        assertEquals(new String(bytes.toByteArray(), StandardCharsets.US_ASCII), expected);
+
+        StringBuilder builder = new StringBuilder();
+        PolylineWriter out = new PolylineWriter(builder, 5, ThirdDimension.ABSENT, 0);
+        // The header is only written with the first point
+        out.flush();
+        assertEquals(builder.toString(), "");
+        out.add(50.1022829, 8.6982122).add(50.1020076, 8.6956695);
+        out.flush();
+        assertEquals(builder.toString(), "BFoz5xJ67i1B1B7P");
+        out.add(50.1006313, 8.6914960).add(50.0987800, 8.6875156);
+        out.close();
+        assertEquals(builder.toString(), "BFoz5xJ67i1B1B7PzIhaxL7Y");
+        StringWriter empty = new StringWriter();
+        new PolylineWriter(empty, 5, ThirdDimension.ABSENT, 0).close();
+        assertEquals(empty.toString(), "");
+        assertThrows(RuntimeException.class, () -> {
+            try {
+                out.add(0, 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**********************************************/
+    /********** Decoder test starts ***************/
+    /**********************************************/
+    private void testInvalidEncoderInput() {
+
+        //Null coordinates
+        assertThrows(IllegalArgumentException.class,
+                     () -> { decode(null); });
+
+
+        //Empty coordinates list test
+        assertThrows(IllegalArgumentException.class,
+                     () -> { decode(""); });
+    }
+
+    private void testThirdDimension() {
+        assertTrue(getThirdDimension("BFoz5xJ67i1BU") == ABSENT);
+        assertTrue(getThirdDimension("BVoz5xJ67i1BU") == LEVEL);
+        assertTrue(getThirdDimension("BlBoz5xJ67i1BU") == ALTITUDE);
+        assertTrue(getThirdDimension("B1Boz5xJ67i1BU") == ELEVATION);
+    }
+
+    private void testDecodeConvertValue() {
+
+        String encoded = "h_wqiB";
+        double expected = -179.98321;
+        Converter conv = new Converter(5);
+        final double computed = conv.decodeValue(new StringCharacterIterator(encoded));
+        assertEquals(computed, expected);
+    }
+
+
+    private void testSimpleLatLngDecoding() {
+
+        List<LatLngZ> computed = decode("BFoz5xJ67i1B1B7PzIhaxL7Y");
+        List<LatLngZ> expected = new ArrayList<>();
+        expected.add(new LatLngZ(50.10228, 8.69821));
+        expected.add(new LatLngZ(50.10201, 8.69567));
+        expected.add(new LatLngZ(50.10063, 8.69150));
+        expected.add(new LatLngZ(50.09878, 8.68752));
+
+        assertEquals(computed.size(), expected.size());
+        for (int i = 0; i < computed.size(); ++i) {
+            assertEquals(computed.get(i), expected.get(i));
+        }
+    }
+
+    private void testComplexLatLngDecoding() {
+
+        List<LatLngZ> computed = decode("BF05xgKuy2xCx9B7vUl0OhnR54EqSzpEl-HxjD3pBiGnyGi2CvwFsgD3nD4vB6e");
+
+        List<LatLngZ> pairs = new ArrayList<>();
+        pairs.add(new LatLngZ(52.51994, 13.38663));
+        pairs.add(new LatLngZ(52.51009, 13.28169));
+        pairs.add(new LatLngZ(52.43518, 13.19352));
+        pairs.add(new LatLngZ(52.41073, 13.19645));
+        pairs.add(new LatLngZ(52.38871, 13.15578));
+        pairs.add(new LatLngZ(52.37278, 13.14910));
+        pairs.add(new LatLngZ(52.37375, 13.11546));
+        pairs.add(new LatLngZ(52.38752, 13.08722));
+        pairs.add(new LatLngZ(52.40294, 13.07062));
+        pairs.add(new LatLngZ(52.41058, 13.07555));
+
+        assertEquals(computed.size(), pairs.size());
+        for (int i = 0; i < computed.size(); ++i) {
+            assertEquals(computed.get(i), pairs.get(i));
+        }
+    }
+
+    private void testLatLngZDecode() {
+        List<LatLngZ> computed = decode("BlBoz5xJ67i1BU1B7PUzIhaUxL7YU");
+        List<LatLngZ> tuples = new ArrayList<>();
+
+        tuples.add(new LatLngZ(50.10228, 8.69821, 10));
+        tuples.add(new LatLngZ(50.10201, 8.69567, 20));
+        tuples.add(new LatLngZ(50.10063, 8.69150, 30));
+        tuples.add(new LatLngZ(50.09878, 8.68752, 40));
+
+        assertEquals(computed.size(), tuples.size());
+        for (int i = 0; i < computed.size(); ++i) {
+            assertEquals(computed.get(i), tuples.get(i));
+        }
+    }
+
+    private void testBufferDecoding() {
+        PolylineBuffer buffer = new PolylineBuffer(2);
+
+        decode("BlBoz5xJ67i1BU1B7PUzIhaUxL7YU", buffer);
+        assertEquals(buffer.getThirdDimension(), ALTITUDE);
+        assertEquals(buffer.size(), 4);
+        assertEquals(buffer.lat(0), 50.10228);
+        assertEquals(buffer.lng(3), 8.68752);
+        assertEquals(buffer.z(3), 40.0);
+
+        // Buffer is reused and its third dimension column ignored for 2d content
+        List<LatLngZ> expected = decode("BF05xgKuy2xCx9B7vUl0OhnR54EqSzpEl-HxjD3pBiGnyGi2CvwFsgD3nD4vB6e");
+        decode("BF05xgKuy2xCx9B7vUl0OhnR54EqSzpEl-HxjD3pBiGnyGi2CvwFsgD3nD4vB6e", buffer);
+        assertEquals(buffer.getThirdDimension(), ABSENT);
+        assertEquals(buffer.size(), expected.size());
+        for (int i = 0; i < buffer.size(); ++i) {
+            assertEquals(new LatLngZ(buffer.lat(i), buffer.lng(i), buffer.z(i)), expected.get(i));
+        }
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> { decode("BFoz5xJ67i1B1B7PzIhaxL7", buffer); });
+    }
+
+    private void testByteDecoding() {
+        String encoded = "BF05xgKuy2xCx9B7vUl0OhnR54EqSzpEl-HxjD3pBiGnyGi2CvwFsgD3nD4vB6e";
+        List<LatLngZ> expected = decode(encoded);
+
+        byte[] padded = ("  " + encoded + "  ").getBytes(StandardCharsets.US_ASCII);
+        assertEquals(decodeBytes(padded, 2, encoded.length()), expected);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(padded.length);
+        direct.put(padded).flip();
+        direct.position(2).limit(2 + encoded.length());
+        assertEquals(decodeBytes(direct), expected);
+        assertEquals(direct.position(), 2);
+
+        assertEquals(decode(new StringBuilder(encoded)), expected);
+
+        // Same failures and messages as for String input
+        assertEquals(decodeFailure(() -> decode("BFoz5xJ67i1B1B7PzIhaxL7")),
+                     decodeFailure(() -> decodeBytes("BFoz5xJ67i1B1B7PzIhaxL7".getBytes(StandardCharsets.US_ASCII), 0, 23)));
+        assertEquals(decodeFailure(() -> decode("BFoz5xJ67i1B1B7P*IhaxL7Y")),
+                     decodeFailure(() -> decodeBytes(ByteBuffer.wrap("BFoz5xJ67i1B1B7P*IhaxL7Y".getBytes(StandardCharsets.US_ASCII)))));
+        assertEquals(decodeFailure(() -> decode("BFoz5xJ67i1B1B7P*IhaxL7Y")),
+                     decodeFailure(() -> decode(new StringBuilder("BFoz5xJ67i1B1B7P*IhaxL7Y"))));
+        assertThrows(IllegalArgumentException.class,
+                     () -> { decodeBytes(new byte[] {' ', ' '}, 0, 2); });
+    }
+
+    private void testReusableDecoder() {
+        PolylineDecoder decoder = new PolylineDecoder();
+        assertThrows(IllegalStateException.class, () -> { decoder.decode(); });
+
+        decoder.reset("BlBoz5xJ67i1BU1B7PUzIhaUxL7YU");
+        assertEquals(decoder.getThirdDimension(), ALTITUDE);
+        assertEquals(decoder.getPrecision(), 5);
+        assertEquals(decoder.getThirdDimPrecision(), 0);
+        assertEquals(decoder.decode(), decode("BlBoz5xJ67i1BU1B7PUzIhaUxL7YU"));
+
+        String complex = "BF05xgKuy2xCx9B7vUl0OhnR54EqSzpEl-HxjD3pBiGnyGi2CvwFsgD3nD4vB6e";
+        PolylineBuffer buffer = decoder.reset(complex.getBytes(StandardCharsets.US_ASCII), 0, complex.length()).decode(new PolylineBuffer());
+        assertEquals(buffer.getThirdDimension(), ABSENT);
+        List<LatLngZ> expected = decode(complex);
+        assertEquals(buffer.size(), expected.size());
+        for (int i = 0; i < buffer.size(); ++i) {
+            assertEquals(new LatLngZ(buffer.lat(i), buffer.lng(i)), expected.get(i));
+        }
+
+        assertEquals(PolylineDecoder.local().reset(ByteBuffer.wrap(complex.getBytes(StandardCharsets.US_ASCII))).decode(), expected);
+        assertThrows(IllegalArgumentException.class, () -> { decoder.reset("  "); });
+        assertThrows(IllegalStateException.class, () -> { decoder.decode(); });
+        assertEquals(decodeFailure(() -> decoder.reset("BFoz5xJ67i1B1B7P*IhaxL7Y").decode()), "Unexpected value found '*' at index 17");
+    }
+
+    private void testLazyDecoding() {
+        String encoded = "BF05xgKuy2xCx9B7vUl0OhnR54EqSzpEl-HxjD3pBiGnyGi2CvwFsgD3nD4vB6e";
+        List<LatLngZ> expected = decode(encoded);
+
+        assertEquals(stream(encoded).collect(Collectors.toList()), expected);
+        assertEquals(stream(encoded).skip(2).findFirst().get(), expected.get(2));
+
+        Iterator<LatLngZ> iterator = iterator(new StringBuilder(encoded));
+        for (LatLngZ coord : expected) {
+            assertTrue(iterator.hasNext());
+            assertEquals(iterator.next(), coord);
+        }
+        assertTrue(!iterator.hasNext());
+
+        // Only the consumed prefix is decoded, errors after it do not surface
+        assertEquals(stream("BFoz5xJ67i1B1B7P*IhaxL7Y").findFirst().get(), new LatLngZ(50.10228, 8.69821));
+        assertEquals(decodeFailure(() -> stream("BFoz5xJ67i1B1B7P*IhaxL7Y").count()), "Unexpected value found '*' at index 17");
+        assertThrows(IllegalArgumentException.class, () -> { stream(" "); });
+
+        // Primitive cursor
+        PolylineDecoder decoder = new PolylineDecoder().reset("BlBoz5xJ67i1BU1B7PUzIhaUxL7YU");
+        List<LatLngZ> tuples = decode("BlBoz5xJ67i1BU1B7PUzIhaUxL7YU");
+        int count = 0;
+        while (decoder.next()) {
+            assertEquals(new LatLngZ(decoder.lat(), decoder.lng(), decoder.z()), tuples.get(count++));
+        }
+        assertEquals(count, tuples.size());
+        assertEquals(decoder.reset(encoded).stream().collect(Collectors.toList()), expected);
+    }
+
+    private void testBatchDecoding() {
+        final List<String> encoded = new ArrayList<>();
+        final List<List<LatLngZ>> expected = new ArrayList<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 500; i++) {
+            List<LatLngZ> coordinates = new ArrayList<>();
+            // Mix of tiny and long polylines
+            int points = i % 50 == 0 ? 5000 : 1 + random.nextInt(20);
+            for (int p = 0; p < points; p++) {
+                coordinates.add(new LatLngZ(random.nextDouble() * 10, random.nextDouble() * 10, random.nextDouble()));
+            }
+            expected.add(coordinates);
+            encoded.add(encode(coordinates, 6, ThirdDimension.ALTITUDE, 3));
+        }
+        encoded.set(7, "BFoz5xJ67i1B1B7P*IhaxL7Y");
+        encoded.set(8, null);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (List<BatchResult<List<LatLngZ>>> results : Arrays.asList(decodeAll(encoded), decodeAll(encoded, executor))) {
+                assertEquals(results.size(), encoded.size());
+                for (int i = 0; i < encoded.size(); i++) {
+                    if (i == 7 || i == 8) {
+                        assertTrue(!results.get(i).isSuccess());
+                        assertTrue(results.get(i).getError() instanceof IllegalArgumentException);
+                    } else {
+                        assertEquals(results.get(i).get(), decode(encoded.get(i)));
+                    }
+                }
+            }
+            assertEquals(decodeFailure(() -> decodeAll(encoded).get(7).get()), "Unexpected value found '*' at index 17");
+
+            List<BatchResult<String>> reencoded = encodeAll(expected, 6, ThirdDimension.ALTITUDE, 3, executor);
+            for (int i = 0; i < expected.size(); i++) {
+                if (i != 7 && i != 8) {
+                    assertEquals(reencoded.get(i).get(), encoded.get(i));
+                }
+            }
+            expected.set(1, new ArrayList<LatLngZ>());
+            assertTrue(!encodeAll(expected, 6, ThirdDimension.ALTITUDE, 3).get(1).isSuccess());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void testParallelDecoding() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelPolylineDecoder parallel = new ParallelPolylineDecoder(pool, 0);
+            Random random = new Random(5);
+            for (ThirdDimension thirdDimension : Arrays.asList(ThirdDimension.ABSENT, ThirdDimension.ALTITUDE)) {
+                List<LatLngZ> coordinates = new ArrayList<>();
+                for (int i = 0; i < 200000; i++) {
+                    coordinates.add(new LatLngZ(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180,
+                            thirdDimension == ThirdDimension.ABSENT ? 0 : random.nextDouble() * 1000));
+                }
+                String encoded = encode(coordinates, 7, thirdDimension, 2);
+                List<LatLngZ> expected = decode(encoded);
+                assertEquals(parallel.decode(encoded), expected);
+
+                PolylineBuffer buffer = parallel.decode(encoded, new PolylineBuffer());
+                assertEquals(buffer.getThirdDimension(), thirdDimension);
+                assertEquals(buffer.size(), expected.size());
+                for (int i = 0; i < buffer.size(); i++) {
+                    assertEquals(new LatLngZ(buffer.lat(i), buffer.lng(i), buffer.z(i)), expected.get(i));
+                }
+
+                // Malformed inputs give the same errors as the sequential decoder
+                String invalid = encoded.substring(0, encoded.length() / 2) + "*" + encoded.substring(encoded.length() / 2 + 1);
+                assertEquals(decodeFailure(() -> parallel.decode(invalid)), decodeFailure(() -> decode(invalid)));
+                String truncated = encoded.substring(0, encoded.length() - 1);
+                assertEquals(decodeFailure(() -> parallel.decode(truncated)), decodeFailure(() -> decode(truncated)));
+            }
+            assertEquals(parallel.decode("BFoz5xJ67i1B1B7PzIhaxL7Y"), decode("BFoz5xJ67i1B1B7PzIhaxL7Y"));
+            assertEquals(new ParallelPolylineDecoder().decode("BFoz5xJ67i1B1B7PzIhaxL7Y"), decode("BFoz5xJ67i1B1B7PzIhaxL7Y"));
+            assertThrows(IllegalArgumentException.class, () -> parallel.decode(null));
+            assertThrows(IllegalArgumentException.class, () -> new ParallelPolylineDecoder(pool, -1));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void testIndexedDecoding() {
+        Random random = new Random(11);
+        List<LatLngZ> coordinates = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            coordinates.add(new LatLngZ(random.nextDouble() * 10, random.nextDouble() * 10, random.nextDouble() * 100));
+        }
+        String encoded = encode(coordinates, 6, ThirdDimension.ELEVATION, 2);
+        List<LatLngZ> expected = decode(encoded);
+
+        PolylineIndex index = PolylineIndex.build(encoded, 64);
+        assertEquals(index.size(), expected.size());
+        assertEquals(index.getThirdDimension(), ThirdDimension.ELEVATION);
+        PolylineBuffer buffer = new PolylineBuffer();
+        int[][] ranges = {{0, 0}, {0, 1}, {0, 10000}, {63, 65}, {64, 128}, {5000, 5100}, {9999, 10000}, {10000, 10000}};
+        for (int[] range : ranges) {
+            assertEquals(index.decode(encoded, range[0], range[1]), expected.subList(range[0], range[1]));
+            index.decode(encoded, range[0], range[1], buffer);
+            assertEquals(buffer.size(), range[1] - range[0]);
+            for (int i = 0; i < buffer.size(); i++) {
+                assertEquals(new LatLngZ(buffer.lat(i), buffer.lng(i), buffer.z(i)), expected.get(range[0] + i));
+            }
+        }
+        assertEquals(index.get(encoded, 4321), expected.get(4321));
+
+        // Saved and restored index
+        PolylineIndex restored = PolylineIndex.fromLongArray(index.toLongArray());
+        assertEquals(restored.getInterval(), 64);
+        assertEquals(restored.decode(encoded, 777, 1234), expected.subList(777, 1234));
+        assertTrue(Arrays.equals(restored.toLongArray(), index.toLongArray()));
+
+        // Short 2D polyline, less points than the interval
+        PolylineIndex small = PolylineIndex.build("BFoz5xJ67i1B1B7PzIhaxL7Y", 100);
+        assertEquals(small.size(), 4);
+        assertEquals(small.decode("BFoz5xJ67i1B1B7PzIhaxL7Y", 1, 4), decode("BFoz5xJ67i1B1B7PzIhaxL7Y").subList(1, 4));
+
+        assertThrows(IllegalArgumentException.class, () -> index.decode(encoded, 5, 4));
+        assertThrows(IllegalArgumentException.class, () -> index.decode(encoded, 0, 10001));
+        assertThrows(IllegalArgumentException.class, () -> index.get(encoded, 10000));
+        assertThrows(IllegalArgumentException.class, () -> PolylineIndex.build(encoded, 0));
+        assertThrows(IllegalArgumentException.class, () -> PolylineIndex.fromLongArray(new long[] {64, 10000, 0, 0}));
+        assertEquals(decodeFailure(() -> index.get("BFoz5xJ67i1B1B7PzIhaxL7Y", 0)), "Index does not match encoded polyline");
+
+        // Corrupted saved indexes: checkpoints must be past the header, increasing and within the polyline
+        long[] saved = index.toLongArray();
+        saved[4] = -1;
+        assertThrows(IllegalArgumentException.class, () -> PolylineIndex.fromLongArray(saved));
+        saved[4] = index.toLongArray()[4];
+        saved[8] = saved[4];
+        assertThrows(IllegalArgumentException.class, () -> PolylineIndex.fromLongArray(saved));
+        saved[8] = encoded.length();
+        assertThrows(IllegalArgumentException.class, () -> PolylineIndex.fromLongArray(saved));
+        // More points than the polyline holds
+        long[] tooLong = small.toLongArray();
+        tooLong[1] = 5;
+        PolylineIndex forged = PolylineIndex.fromLongArray(tooLong);
+        assertEquals(decodeFailure(() -> forged.get("BFoz5xJ67i1B1B7PzIhaxL7Y", 4)), "Index does not match encoded polyline");
+        assertEquals(decodeFailure(() -> forged.decode("BFoz5xJ67i1B1B7PzIhaxL7Y", 2, 5)), "Index does not match encoded polyline");
+        assertEquals(decodeFailure(() -> forged.decode("BFoz5xJ67i1B1B7PzIhaxL7Y", 0, 5, new PolylineBuffer())),
+                "Index does not match encoded polyline");
+        // First checkpoint not right after the header
+        long[] shifted = small.toLongArray();
+        shifted[4] = 3;
+        PolylineIndex misplaced = PolylineIndex.fromLongArray(shifted);
+        assertEquals(decodeFailure(() -> misplaced.get("BFoz5xJ67i1B1B7PzIhaxL7Y", 0)), "Index does not match encoded polyline");
+        assertEquals(decodeFailure(() -> PolylineIndex.build("BFoz5xJ67i1B1B7P*IhaxL7Y", 8)), "Unexpected value found '*' at index 17");
+    }
+
+    private void testCachingDecoder() {
+        CachingPolylineDecoder cache = CachingPolylineDecoder.withMaximumEntries(2);
+        String first = "BFoz5xJ67i1B1B7PzIhaxL7Y";
+        String second = "BlBoz5xJ67i1BU1B7PUzIhaUxL7YU";
+        String third = encode(Arrays.asList(new LatLngZ(1, 2), new LatLngZ(3, 4)), 5, ABSENT, 0);
+
+        List<LatLngZ> decoded = cache.decode(first);
+        assertEquals(decoded, decode(first));
+        assertTrue(cache.decode(new StringBuilder(first)) == decoded);
+        assertEquals(cache.hitCount(), 1L);
+        assertEquals(cache.missCount(), 1L);
+        assertThrows(UnsupportedOperationException.class, () -> decoded.clear());
+
+        PolylineBuffer buffer = cache.decode(second, new PolylineBuffer());
+        assertEquals(buffer.getThirdDimension(), ALTITUDE);
+        assertEquals(new LatLngZ(buffer.lat(1), buffer.lng(1), buffer.z(1)), decode(second).get(1));
+
+        // first was used more recently than second, which is evicted
+        cache.decode(first);
+        cache.decode(third);
+        assertEquals(cache.size(), 2L);
+        assertEquals(cache.evictionCount(), 1L);
+        assertTrue(cache.decode(first) == decoded);
+        assertEquals(cache.missCount(), 3L);
+        cache.decode(second);
+        assertEquals(cache.missCount(), 4L);
+
+        // Bounded by estimated bytes
+        CachingPolylineDecoder small = CachingPolylineDecoder.withMaximumBytes(1000);
+        small.decode(first);
+        small.decode(second);
+        small.decode(third);
+        assertTrue(small.estimatedBytes() <= 1000);
+        assertTrue(small.evictionCount() > 0);
+        small.clear();
+        assertEquals(small.size(), 0L);
+        assertEquals(small.estimatedBytes(), 0L);
+
+        // The bound is split between the stripes without exceeding it
+        CachingPolylineDecoder striped = CachingPolylineDecoder.withMaximumEntries(70);
+        for (int i = 0; i < 1000; i++) {
+            striped.decode(encode(Arrays.asList(new LatLngZ(i * 0.001, 1), new LatLngZ(2, 3)), 5, ABSENT, 0));
+        }
+        assertEquals(striped.size(), 70L);
+        assertEquals(striped.evictionCount(), 930L);
+
+        // Malformed inputs are not cached
+        assertEquals(decodeFailure(() -> cache.decode("BFoz5xJ67i1B1B7P*IhaxL7Y")), "Unexpected value found '*' at index 17");
+        assertThrows(IllegalArgumentException.class, () -> cache.decode("BFoz5xJ67i1B1B7P*IhaxL7Y"));
+        assertEquals(cache.size(), 2L);
+        assertThrows(IllegalArgumentException.class, () -> cache.decode(null));
+        assertThrows(IllegalArgumentException.class, () -> CachingPolylineDecoder.withMaximumEntries(0));
+        assertThrows(IllegalArgumentException.class, () -> CachingPolylineDecoder.withMaximumBytes(-1));
+    }
+
+    private void testMetrics() {
+        PolylineCounters counters = new PolylineCounters();
+        PolylineEncoderDecoder.setMetrics(counters);
+        try {
+            assertTrue(PolylineEncoderDecoder.getMetrics() == counters);
+            List<LatLngZ> coordinates = Arrays.asList(new LatLngZ(50.1022829, 8.6982122, 10), new LatLngZ(50.1020076, 8.6956695, 20));
+            String encoded = encode(coordinates, 5, ALTITUDE, 0);
+            byte[] bytes = new byte[64];
+            int length = encodeTo(coordinates, 5, ALTITUDE, 0, bytes, 0);
+            assertEquals(counters.getEncodeCalls(), 2L);
+            assertEquals(counters.getEncodedPoints(), 4L);
+            assertEquals(counters.getEncodedLength(), (long) (encoded.length() + length));
+            String simplified = encodeSimplified(coordinates, 5, ALTITUDE, 0);
+            assertEquals(counters.getEncodeCalls(), 3L);
+            assertEquals(counters.getEncodedLength(), (long) (encoded.length() + length + simplified.length()));
+
+            decode(encoded);
+            decode(encoded, new PolylineBuffer());
+            decodeBytes(bytes, 0, length);
+            assertEquals(counters.getDecodeCalls(), 3L);
+            assertEquals(counters.getDecodedPoints(), 6L);
+            assertEquals(counters.getDecodedLength(), 3L * encoded.length());
+            assertTrue(counters.getEncodeNanos() >= 0 && counters.getDecodeNanos() >= 0);
+
+            // Failed calls are not reported
+            assertThrows(IllegalArgumentException.class, () -> decode("BFoz5xJ67i1B1B7P*IhaxL7Y"));
+            assertEquals(counters.getDecodeCalls(), 3L);
+
+            // Reusable and parallel decoders, the latter also when taking the parallel path
+            counters.reset();
+            new PolylineDecoder().reset(encoded).decode();
+            new PolylineDecoder().reset(encoded).decode(new PolylineBuffer());
+            ParallelPolylineDecoder parallel = new ParallelPolylineDecoder(ForkJoinPool.commonPool(), 0);
+            parallel.decode(encoded);
+            parallel.decode(encoded, new PolylineBuffer());
+            assertEquals(counters.getDecodeCalls(), 4L);
+            assertEquals(counters.getDecodedPoints(), 8L);
+            assertEquals(counters.getDecodedLength(), 4L * encoded.length());
+
+            counters.reset();
+            assertEquals(counters.getEncodeCalls(), 0L);
+            assertEquals(counters.getDecodedPoints(), 0L);
+        } finally {
+            PolylineEncoderDecoder.setMetrics(null);
+        }
+        decode("BFoz5xJ67i1B1B7PzIhaxL7Y");
+        assertEquals(counters.getDecodeCalls(), 0L);
+    }
+
+    private void testBinaryFormat() {
+        Random random = new Random(23);
+        for (ThirdDimension thirdDimension : Arrays.asList(ABSENT, ALTITUDE)) {
+            List<LatLngZ> coordinates = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                coordinates.add(new LatLngZ(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180,
+                        thirdDimension == ABSENT ? 0 : random.nextDouble() * 1000));
+            }
+            String encoded = encode(coordinates, 6, thirdDimension, 2);
+            byte[] binary = BinaryPolyline.encode(coordinates, 6, thirdDimension, 2);
+            assertTrue(binary.length < encoded.length() * 4 / 5);
+            assertEquals(BinaryPolyline.decode(binary), decode(encoded));
+
+            // Lossless conversions in both directions
+            assertTrue(Arrays.equals(BinaryPolyline.fromEncoded(encoded), binary));
+            assertEquals(BinaryPolyline.toEncoded(binary), encoded);
+
+            PolylineBuffer buffer = BinaryPolyline.decode(binary, 0, binary.length, new PolylineBuffer());
+            assertEquals(buffer.getThirdDimension(), thirdDimension);
+            assertEquals(new LatLngZ(buffer.lat(999), buffer.lng(999), buffer.z(999)), decode(encoded).get(999));
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(binary.length + 2);
+            direct.put((byte) 7);
+            assertEquals(BinaryPolyline.encodeTo(coordinates, 6, thirdDimension, 2, direct), binary.length);
+            direct.flip().position(1);
+            assertEquals(BinaryPolyline.decode(direct), decode(encoded));
+            assertEquals(direct.position(), 1);
+        }
+
+        // Header and values match the text format
+        byte[] binary = BinaryPolyline.fromEncoded("BFoz5xJ67i1B1B7PzIhaxL7Y");
+        assertEquals(binary[0], (byte) 1);
+        assertEquals(binary[1], (byte) 5);
+        assertEquals(BinaryPolyline.decode(binary), decode("BFoz5xJ67i1B1B7PzIhaxL7Y"));
+        assertEquals(BinaryPolyline.toEncoded(binary, 0, binary.length), "BFoz5xJ67i1B1B7PzIhaxL7Y");
+        for (String encoded : Arrays.asList("BlBoz5xJ67i1BU1B7PUzIhaUxL7YU", "BVoz5xJ67i1BU", "BFAAAA")) {
+            assertEquals(BinaryPolyline.toEncoded(BinaryPolyline.fromEncoded(encoded)), encoded);
+        }
+
+        assertEquals(decodeFailure(() -> BinaryPolyline.decode(Arrays.copyOf(binary, binary.length - 1))), "Unexpected end of encoded bytes");
+        assertEquals(decodeFailure(() -> BinaryPolyline.toEncoded(Arrays.copyOf(binary, 4))), "Unexpected end of encoded bytes");
+        assertEquals(decodeFailure(() -> BinaryPolyline.decode(new byte[] {2, 5})), "Invalid format version");
+        assertEquals(decodeFailure(() -> BinaryPolyline.decode(new byte[0])), "Invalid argument!");
+        assertEquals(decodeFailure(() -> BinaryPolyline.decode(new byte[] {1, 5, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 1})), "Invalid varint at index 2");
+        assertEquals(decodeFailure(() -> BinaryPolyline.fromEncoded("BFoz5xJ67i1B1B7PzIhaxL")), "Unexpected end of encoded string");
+        // 64 bit values, from a 10th byte or 13 chars, and header bits above the fields cannot be converted back
+        byte[] highBit = {1, 5, -128, -128, -128, -128, -128, -128, -128, -128, -128, 1, 0};
+        assertEquals(decodeFailure(() -> BinaryPolyline.toEncoded(highBit)), "Invalid varint at index 2");
+        assertEquals(decodeFailure(() -> BinaryPolyline.decode(highBit)), "Invalid varint at index 2");
+        String longValues = "BtCzjpqqgnk2pBItlttxszj5BggBi0gjn15l6kBsqj8pnuyq9CnMgzt47iljuf2xhp35p-3gB4Q3pzhu2z9jsCpt5-_1kg5lqx_B";
+        assertEquals(decode(longValues).size(), 4);
+        assertThrows(IllegalArgumentException.class, () -> BinaryPolyline.fromEncoded(longValues));
+        assertEquals(decode("BlgCAA").size(), 1);
+        assertEquals(decodeFailure(() -> BinaryPolyline.fromEncoded("BlgCAA")), "Invalid header");
+        assertEquals(decodeFailure(() -> BinaryPolyline.decode(new byte[] {1, -123, 16, 0, 0})), "Invalid header");
+        assertThrows(IllegalArgumentException.class, () -> BinaryPolyline.decode(binary, 1, binary.length));
+        assertThrows(BufferOverflowException.class, () -> BinaryPolyline.encodeTo(decode("BFoz5xJ67i1B1B7PzIhaxL7Y"), 5, ABSENT, 0, ByteBuffer.allocate(4)));
+    }
+
+    private void testInspect() {
+        Random random = new Random(13);
+        for (ThirdDimension thirdDimension : Arrays.asList(ThirdDimension.ABSENT, ThirdDimension.LEVEL)) {
+            List<LatLngZ> coordinates = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                coordinates.add(new LatLngZ(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180,
+                        thirdDimension == ThirdDimension.ABSENT ? 0 : random.nextInt(20) - 5));
+            }
+            String encoded = encode(coordinates, 5, thirdDimension, 0);
+            List<LatLngZ> decoded = decode(encoded);
+
+            PolylineInfo info = inspect(encoded);
+            assertEquals(info.getPrecision(), 5);
+            assertEquals(info.getThirdDimension(), thirdDimension);
+            assertEquals(info.getThirdDimPrecision(), 0);
+            assertEquals(info.size(), 1000);
+            assertTrue(!info.hasBounds());
+
+            PolylineInfo bounds = inspect(new StringBuilder(encoded), true);
+            assertEquals(bounds.size(), 1000);
+            assertTrue(bounds.hasBounds());
+            assertEquals(bounds.getMinLat(), decoded.stream().mapToDouble(p -> p.lat).min().getAsDouble());
+            assertEquals(bounds.getMaxLat(), decoded.stream().mapToDouble(p -> p.lat).max().getAsDouble());
+            assertEquals(bounds.getMinLng(), decoded.stream().mapToDouble(p -> p.lng).min().getAsDouble());
+            assertEquals(bounds.getMaxLng(), decoded.stream().mapToDouble(p -> p.lng).max().getAsDouble());
+            assertEquals(bounds.getMinZ(), decoded.stream().mapToDouble(p -> p.z).min().getAsDouble());
+            assertEquals(bounds.getMaxZ(), decoded.stream().mapToDouble(p -> p.z).max().getAsDouble());
+        }
+        assertEquals(inspect("BF").size(), 0);
+        assertTrue(!inspect("BF", true).hasBounds());
+
+        // Same failures as decode
+        for (String invalid : Arrays.asList("BFoz5xJ67i1B1B7P*IhaxL7Y", "BFoz5xJ67i1B1B7PzIhaxL7", "BFoz5xJ67i1B1B7PzIhaxL", "CFoz5xJ67i1B1B7PzIhaxL7Y", " ")) {
+            assertEquals(decodeFailure(() -> inspect(invalid)), decodeFailure(() -> decode(invalid)));
+            assertEquals(decodeFailure(() -> inspect(invalid, true)), decodeFailure(() -> decode(invalid)));
+        }
+        assertThrows(IllegalArgumentException.class, () -> inspect(null));
+    }
+
+    private void testScaledValues() {
+        Random random = new Random(31);
+        int count = 500;
+        int[] lat = new int[count];
+        int[] lng = new int[count];
+        int[] z = new int[count];
+        double[] latDegrees = new double[count];
+        double[] lngDegrees = new double[count];
+        double[] zMeters = new double[count];
+        for (int i = 0; i < count; i++) {
+            lat[i] = random.nextInt(1_800_000_000) - 900_000_000;
+            lng[i] = random.nextInt(Integer.MAX_VALUE) - 1_800_000_000;
+            z[i] = random.nextInt(200_000) - 10_000;
+            latDegrees[i] = lat[i] / 1e7;
+            lngDegrees[i] = lng[i] / 1e7;
+            zMeters[i] = z[i] / 1e2;
+        }
+
+        // Same output as the floating point path
+        String encoded = PolylineEncoderDecoder.encodeScaled(lat, lng, z, 0, count, 7, ALTITUDE, 2);
+        assertEquals(encoded, encode(latDegrees, lngDegrees, zMeters, 0, count, 7, ALTITUDE, 2));
+        assertEquals(PolylineEncoderDecoder.encodeScaled(lat, lng, null, 10, 20, 7, ABSENT, 0),
+                encode(latDegrees, lngDegrees, null, 10, 20, 7, ABSENT, 0));
+
+        ScaledPolylineBuffer buffer = PolylineEncoderDecoder.decodeScaled(encoded, new ScaledPolylineBuffer(0));
+        assertEquals(buffer.size(), count);
+        assertEquals(buffer.getPrecision(), 7);
+        assertEquals(buffer.getThirdDimension(), ALTITUDE);
+        assertEquals(buffer.getThirdDimPrecision(), 2);
+        PolylineBuffer decoded = decode(encoded, new PolylineBuffer());
+        for (int i = 0; i < count; i++) {
+            assertEquals(buffer.lat(i), (long) lat[i]);
+            assertEquals(buffer.lng(i), (long) lng[i]);
+            assertEquals(buffer.z(i), (long) z[i]);
+            assertEquals(buffer.lat(i) / 1e7, decoded.lat(i));
+            assertEquals(buffer.z(i) / 1e2, decoded.z(i));
+        }
+
+        // Bit exact round trip at the limits of the range
+        long max = (1L << 61) - 1;
+        long[] extreme = {max, -max, 0, max, 1, -max};
+        String extremeEncoded = PolylineEncoderDecoder.encodeScaled(extreme, extreme, extreme, 0, extreme.length, 15, ThirdDimension.CUSTOM1, 15);
+        PolylineEncoderDecoder.decodeScaled(new StringBuilder(extremeEncoded), buffer);
+        assertEquals(buffer.size(), extreme.length);
+        assertEquals(buffer.getThirdDimension(), ThirdDimension.CUSTOM1);
+        for (int i = 0; i < extreme.length; i++) {
+            assertEquals(buffer.lat(i), extreme[i]);
+            assertEquals(buffer.lng(i), extreme[i]);
+            assertEquals(buffer.z(i), extreme[i]);
+        }
+        PolylineEncoderDecoder.decodeScaled("BF", buffer);
+        assertEquals(buffer.size(), 0);
+        assertEquals(buffer.getPrecision(), 5);
+
+        assertThrows(IllegalArgumentException.class, () -> PolylineEncoderDecoder.encodeScaled(
+                new long[] {max + 1}, new long[] {0}, null, 0, 1, 5, ABSENT, 0));
+        assertThrows(IllegalArgumentException.class, () -> PolylineEncoderDecoder.encodeScaled(
+                new long[] {0}, new long[] {Long.MIN_VALUE}, null, 0, 1, 5, ABSENT, 0));
+        assertThrows(IllegalArgumentException.class, () -> PolylineEncoderDecoder.encodeScaled(
+                lat, lng, null, 0, count, 7, ALTITUDE, 2));
+        assertThrows(IllegalArgumentException.class, () -> PolylineEncoderDecoder.encodeScaled(
+                lat, lng, z, 1, count, 7, ALTITUDE, 2));
+        assertThrows(IllegalArgumentException.class, () -> PolylineEncoderDecoder.encodeScaled(
+                lat, lng, new int[count - 1], 0, count, 7, ALTITUDE, 2));
+        assertThrows(IllegalArgumentException.class, () -> PolylineEncoderDecoder.encodeScaled(
+                new long[] {0}, new long[] {0}, null, 0, 1, 5, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> PolylineEncoderDecoder.decodeScaled(encoded, null));
+        assertEquals(decodeFailure(() -> PolylineEncoderDecoder.decodeScaled("BFoz5xJ67i1B1B7P*IhaxL7Y", new ScaledPolylineBuffer())),
+                "Unexpected value found '*' at index 17");
+    }
+
+    private void testGeometry() {
+        // One degree along the equator
+        String degree = encode(Arrays.asList(new LatLngZ(0, 0), new LatLngZ(0, 1)), 5, ABSENT, 0);
+        assertTrue(Math.abs(PolylineGeometry.length(degree) - 111195.08) < 0.01);
+        assertEquals(PolylineGeometry.length("BF"), 0.0);
+        assertEquals(PolylineGeometry.length(encode(Arrays.asList(new LatLngZ(1, 2)), 5, ABSENT, 0)), 0.0);
+
+        Random random = new Random(41);
+        List<LatLngZ> coordinates = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            coordinates.add(new LatLngZ(52 + random.nextDouble(), 13 + random.nextDouble(), random.nextInt(100)));
+        }
+        String encoded = encode(coordinates, 6, ALTITUDE, 0);
+        List<LatLngZ> decoded = decode(encoded);
+        double expectedLength = 0;
+        for (int i = 1; i < decoded.size(); i++) {
+            expectedLength += distance(decoded.get(i - 1), decoded.get(i));
+        }
+        assertTrue(Math.abs(PolylineGeometry.length(new StringBuilder(encoded)) - expectedLength) < 1e-6);
+
+        // Nearest vertex, the same as the brute force search
+        LatLngZ position = new LatLngZ(52.5, 13.4);
+        int expectedIndex = 0;
+        for (int i = 1; i < decoded.size(); i++) {
+            if (distance(position, decoded.get(i)) < distance(position, decoded.get(expectedIndex))) {
+                expectedIndex = i;
+            }
+        }
+        PolylineGeometry.NearestVertex nearest = PolylineGeometry.nearestVertex(encoded, 52.5, 13.4);
+        assertEquals(nearest.getIndex(), expectedIndex);
+        assertEquals(nearest.getLat(), decoded.get(expectedIndex).lat);
+        assertEquals(nearest.getLng(), decoded.get(expectedIndex).lng);
+        assertEquals(nearest.getZ(), decoded.get(expectedIndex).z);
+        assertTrue(Math.abs(nearest.getDistance() - distance(position, decoded.get(expectedIndex))) < 1e-6);
+        assertEquals(PolylineGeometry.nearestVertex("BF", 0, 0), null);
+
+        // First point outside, without decoding past it
+        assertEquals(PolylineGeometry.firstOutside(encoded, 52, 13, 53, 14), -1);
+        int outside = 0;
+        while (decoded.get(outside).lat <= 52.5) {
+            outside++;
+        }
+        assertEquals(PolylineGeometry.firstOutside(encoded, 52, 13, 52.5, 14), outside);
+        String corrupted = "BFoz5xJ67i1B1B7P*IhaxL7Y";
+        assertEquals(PolylineGeometry.firstOutside(corrupted, 50.1021, 8, 51, 9), 1);
+        assertEquals(decodeFailure(() -> PolylineGeometry.firstOutside(corrupted, 50, 8, 51, 9)), "Unexpected value found '*' at index 17");
+
+        // Segments crossing a box with both points outside
+        String line = encode(Arrays.asList(new LatLngZ(1, -1), new LatLngZ(1, 1), new LatLngZ(0, 2), new LatLngZ(0, -2)), 5, ABSENT, 0);
+        assertEquals(PolylineGeometry.firstIntersecting(line, -0.5, -0.5, 0.5, 0.5), 2);
+        assertTrue(PolylineGeometry.intersects(line, -0.5, -0.5, 0.5, 0.5));
+        assertEquals(PolylineGeometry.firstIntersecting(line, 0.9, -2, 1.1, 2), 0);
+        assertEquals(PolylineGeometry.firstIntersecting(line, 0.4, 0.9, 0.6, 2), 1);
+        assertTrue(!PolylineGeometry.intersects(line, 0.6, -2, 0.9, 0.9));
+        assertTrue(!PolylineGeometry.intersects(line, 2, 2, 3, 3));
+        assertTrue(PolylineGeometry.intersects(encode(Arrays.asList(new LatLngZ(0.1, 0.1)), 5, ABSENT, 0), 0, 0, 1, 1));
+        assertTrue(!PolylineGeometry.intersects("BF", -90, -180, 90, 180));
+
+        assertThrows(IllegalArgumentException.class, () -> PolylineGeometry.length(null));
+        assertThrows(IllegalArgumentException.class, () -> PolylineGeometry.length(" "));
+        assertThrows(IllegalArgumentException.class, () -> PolylineGeometry.nearestVertex(encoded, Double.NaN, 0));
+        assertThrows(IllegalArgumentException.class, () -> PolylineGeometry.firstOutside(encoded, 1, 0, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> PolylineGeometry.intersects(encoded, 0, 0, 1, Double.NaN));
+    }
+
+    private static double distance(LatLngZ from, LatLngZ to) {
+        double deltaLat = Math.toRadians(to.lat - from.lat);
+        double deltaLng = Math.toRadians(to.lng - from.lng);
+        double h = Math.pow(Math.sin(deltaLat / 2), 2)
+                + Math.cos(Math.toRadians(from.lat)) * Math.cos(Math.toRadians(to.lat)) * Math.pow(Math.sin(deltaLng / 2), 2);
+        return 2 * PolylineGeometry.EARTH_RADIUS * Math.asin(Math.sqrt(h));
+    }
+
+    private void testValidation() {
+        String encoded = "BFoz5xJ67i1B1B7PzIhaxL7Y";
+        ValidationResult valid = PolylineEncoderDecoder.validate(encoded);
+        assertTrue(valid.isValid());
+        assertEquals(valid.getErrorOffset(), -1);
+        assertEquals(valid.size(), decode(encoded).size());
+        assertEquals(valid.getPrecision(), 5);
+        assertEquals(valid.getThirdDimension(), ABSENT);
+        assertEquals(valid.getThirdDimPrecision(), 0);
+        assertEquals(PolylineEncoderDecoder.validate("BF").size(), 0);
+
+        // Same messages as decode, with the offset of the error
+        assertValidation(encoded.replace('z', '*'), ValidationResult.Reason.INVALID_CHAR, 3);
+        assertValidation("BFoz5xJ67i1B1B7PzIhaxL7", ValidationResult.Reason.TRUNCATED, 20);
+        assertValidation("BFoz5xJ67i1B1B7PzIhaxL", ValidationResult.Reason.TRUNCATED, 20);
+        assertValidation("CFoz5xJ67i1B1B7PzIhaxL7Y", ValidationResult.Reason.INVALID_VERSION, 0);
+        assertValidation("*F", ValidationResult.Reason.INVALID_CHAR, 0);
+        assertValidation("Bg", ValidationResult.Reason.TRUNCATED, 1);
+        assertValidation(" \t", ValidationResult.Reason.BLANK, 0);
+        List<LatLngZ> coordinates = Arrays.asList(new LatLngZ(50.1022829, 8.6982122, 10), new LatLngZ(50.1020076, 8.6956695, 20),
+                new LatLngZ(50.1006313, 8.6914960, 30), new LatLngZ(50.1010000, 8.6900000, 40));
+        String withZ = encode(coordinates, 7, ALTITUDE, 1);
+        ValidationResult truncated = PolylineEncoderDecoder.validate(withZ.substring(0, withZ.length() - 1));
+        assertEquals(truncated.getReason(), ValidationResult.Reason.TRUNCATED);
+        assertEquals(truncated.getErrorOffset(), encode(coordinates.subList(0, 3), 7, ALTITUDE, 1).length());
+        assertEquals(truncated.size(), 3);
+        assertEquals(truncated.getThirdDimension(), ALTITUDE);
+        assertEquals(truncated.getThirdDimPrecision(), 1);
+
+        // Header bits above the third dimension precision are ignored by decode only
+        ValidationResult header = PolylineEncoderDecoder.validate("BggC");
+        assertEquals(header.getReason(), ValidationResult.Reason.INVALID_HEADER);
+        assertEquals(header.getErrorOffset(), 1);
+        assertEquals(header.getMessage(), "Invalid header");
+        ValidationResult decodable = PolylineEncoderDecoder.validate("BlgCAA");
+        assertEquals(decodable.getReason(), ValidationResult.Reason.INVALID_HEADER);
+        assertEquals(PolylineEncoderDecoder.decode("BlgCAA").size(), 1);
+
+        // Limits
+        ValidationResult tooMany = PolylineEncoderDecoder.validate(withZ, 2, Integer.MAX_VALUE);
+        assertEquals(tooMany.getReason(), ValidationResult.Reason.TOO_MANY_POINTS);
+        assertEquals(tooMany.getErrorOffset(), encode(coordinates.subList(0, 2), 7, ALTITUDE, 1).length());
+        assertEquals(tooMany.size(), 2);
+        assertTrue(PolylineEncoderDecoder.validate(withZ, 4, withZ.length()).isValid());
+        ValidationResult tooLong = PolylineEncoderDecoder.validate(withZ, 4, 10);
+        assertEquals(tooLong.getReason(), ValidationResult.Reason.TOO_LONG);
+        assertEquals(tooLong.getErrorOffset(), 10);
+        assertEquals(tooLong.getThirdDimension(), null);
+        assertEquals(tooLong.getPrecision(), -1);
+
+        // Bytes, relative to the start of the polyline
+        byte[] bytes = ("xx" + encoded.replace('z', '*')).getBytes(StandardCharsets.US_ASCII);
+        ValidationResult fromBytes = PolylineEncoderDecoder.validateBytes(bytes, 2, bytes.length - 2);
+        assertEquals(fromBytes.getReason(), ValidationResult.Reason.INVALID_CHAR);
+        assertEquals(fromBytes.getErrorOffset(), 3);
+        assertEquals(fromBytes.getMessage(), "Unexpected value found '*' at index 4");
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 1);
+        direct.put(bytes).put((byte) '!').flip();
+        direct.position(2).limit(bytes.length);
+        assertEquals(PolylineEncoderDecoder.validateBytes(direct).getErrorOffset(), 3);
+        assertEquals(direct.position(), 2);
+        byte[] validBytes = encoded.getBytes(StandardCharsets.US_ASCII);
+        assertTrue(PolylineEncoderDecoder.validateBytes(validBytes, 0, validBytes.length).isValid());
+        assertEquals(PolylineEncoderDecoder.validateBytes(ByteBuffer.wrap(validBytes), 1, 100).getReason(),
+                ValidationResult.Reason.TOO_MANY_POINTS);
+
+        assertThrows(IllegalArgumentException.class, () -> PolylineEncoderDecoder.validate(null));
+        assertThrows(IllegalArgumentException.class, () -> PolylineEncoderDecoder.validate(encoded, -1, 100));
+        assertThrows(IllegalArgumentException.class, () -> PolylineEncoderDecoder.validateBytes(validBytes, 1, validBytes.length));
+    }
+
+    private static void assertValidation(String encoded, ValidationResult.Reason reason, int offset) {
+        ValidationResult result = PolylineEncoderDecoder.validate(encoded);
+        assertTrue(!result.isValid());
+        assertEquals(result.getReason(), reason);
+        assertEquals(result.getErrorOffset(), offset);
+        assertEquals(result.getMessage(), decodeFailure(() -> decode(encoded)));
+        assertEquals(PolylineEncoderDecoder.validate(new StringBuilder(encoded)).getErrorOffset(), offset);
+    }
+
+    private void testDecodingErrors() {
+        assertEquals(decodeFailure(() -> decode("BFoz5xJ67i1B1B7P*IhaxL7Y")), "Unexpected value found '*' at index 17");
+        assertEquals(decodeFailure(() -> decode("BFoz5xJ67i1B1B7P\u00e9IhaxL7Y")), "Unexpected value found '\u00e9' at index 17");
+        assertEquals(decodeFailure(() -> decode("BFoz5xJ67i1B1B7P\u4e2dIhaxL7Y")), "Unexpected value found '\u4e2d' at index 17");
+        assertEquals(decodeFailure(() -> decode("BFoz5xJ67i1B1B7PzIhaxL7")), "Unexpected end of encoded string");
+        assertEquals(decodeFailure(() -> decode("CFoz5xJ67i1B1B7PzIhaxL7Y")), "Invalid format version");
+        assertEquals(decodeFailure(() -> decode(" ")), "Invalid argument!");
+        byte[] latin1 = "BFoz5xJ67i1B1B7P\u00e9IhaxL7Y".getBytes(StandardCharsets.ISO_8859_1);
+        assertEquals(decodeFailure(() -> decodeBytes(latin1, 0, latin1.length)), "Unexpected value found '\u00e9' at index 17");
+    }
+
+    private static String decodeFailure(Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        throw new RuntimeException("Assert failed, No exception found!");
+    }
+
+    private static final Path TEST_FILES_RELATIVE_PATH = Paths.get("..", "test");
+
+    private void encodingSmokeTest() throws IOException {
+
+        final List<ParsedDecodedLine> decodedLines = parseDecodedFile(TEST_FILES_RELATIVE_PATH.resolve("original.txt"));
+
+        int lineNo = 0;
+        try (BufferedReader encoded = Files.newBufferedReader(TEST_FILES_RELATIVE_PATH.resolve(Paths.get("round_half_up", "encoded.txt")))) {
+
+            String encodedFileLine;
+
+            // read line by line and validate the test
+            while (lineNo < decodedLines.size() && (encodedFileLine = encoded.readLine()) != null) {
+
+                encodedFileLine = encodedFileLine.trim();
+
+                final ParsedDecodedLine decodedLine = decodedLines.get(lineNo);
+                String encodedComputed = encode(decodedLine.latLngZs, decodedLine.precision, decodedLine.thirdDimension, decodedLine.thirdDimePrecision);
+                String encodedExpected = encodedFileLine;
+
+                assertEquals(encodedComputed, encodedExpected);
+                lineNo++;
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.err.format("LineNo: " + lineNo + " validation got exception: %s%n", e);
+        }
+    }
+
+    private void decodingSmokeTest() throws IOException {
+
+        final List<ParsedDecodedLine> expectedResults = parseDecodedFile(TEST_FILES_RELATIVE_PATH.resolve(Paths.get("round_half_up", "decoded.txt")));
+        final PolylineBuffer buffer = new PolylineBuffer();
+
+        int lineNo = 0;
+        try (BufferedReader encoded = Files.newBufferedReader(TEST_FILES_RELATIVE_PATH.resolve(Paths.get("round_half_up", "encoded.txt")))) {
+
+            String encodedFileLine;
+
+            // read line by line and validate the test
+            while ((encodedFileLine = encoded.readLine()) != null && expectedResults.size() > lineNo) {
+
+                encodedFileLine = encodedFileLine.trim();
+
+                //Validate thirdDimension
+                ThirdDimension computedDimension = getThirdDimension(encodedFileLine);
+                final ParsedDecodedLine expectedResult = expectedResults.get(lineNo);
+                assertEquals(computedDimension, expectedResult.thirdDimension);
+
+                //Validate LatLngZ
+                List<LatLngZ> computedLatLngZs = decode(encodedFileLine);
+                assertEquals(computedLatLngZs.size(), expectedResult.latLngZs.size());
+                for (int i = 0; i < computedLatLngZs.size(); ++i) {
+                    assertEquals(computedLatLngZs.get(i), expectedResult.latLngZs.get(i));
+                }
+
+                //Validate metadata scan
+                assertEquals(inspect(encodedFileLine).size(), expectedResult.latLngZs.size());
+
+                //Validate columnar decoding
+                decode(encodedFileLine, buffer);
+                assertEquals(buffer.size(), expectedResult.latLngZs.size());
+                for (int i = 0; i < buffer.size(); ++i) {
+                    assertEquals(new LatLngZ(buffer.lat(i), buffer.lng(i), buffer.z(i)), expectedResult.latLngZs.get(i));
+                }
+
+                lineNo++;
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.err.format("LineNo: " + lineNo + " validation got exception: %s%n", e);
+        }
+    }
+
+    private void testVeryLongLine(int lineLength) {
+        final int PRECISION = 10;
+        Random random = new Random();
+        List<LatLngZ> coordinates = new ArrayList<LatLngZ>();
+        for (int i = 0; i <= lineLength; i++) {
+            LatLngZ nextPoint = new LatLngZ(random.nextDouble(), random.nextDouble(), random.nextDouble());
+            coordinates.add(nextPoint);
+        }
+        String encoded = encode(coordinates, PRECISION, ThirdDimension.ALTITUDE, PRECISION);
+        long startTime = System.nanoTime();
+        decode(encoded);
+        long duration = (System.nanoTime() - startTime);
+        System.out.println("duration: " + duration/1000 + "us");
+    }
+
+    private static List<ParsedDecodedLine> parseDecodedFile(Path filePath) throws IOException {
+
+        String decodedFileLine;
+        ArrayList<ParsedDecodedLine> expectedResults = new ArrayList<>();
+
+        try (BufferedReader decoded = Files.newBufferedReader(filePath)) {
+
+            int lineNumber = 1;
+
+            while ((decodedFileLine = decoded.readLine()) != null) {
+                try {
+                    //File parsing
+                    // Format: {(precision, thirdDimPrecision?, thirdDim?); [(c1Lat, c1Lng, c1Alt), ]}
+                    decodedFileLine = decodedFileLine.replaceAll("\\s|\\(|\\)", "");
+
+                    // .substring gets rid of { and }
+                    final String[] splitBySemicolon = decodedFileLine.substring(1, decodedFileLine.length() - 1).split(";");
+                    final String leftPart = splitBySemicolon[0];
+                    String[] meta = leftPart.split(",");
+
+                    ThirdDimension thirdDimension = ABSENT;
+
+                    if (meta.length > 2) {
+                        thirdDimension = ThirdDimension.fromNum(Integer.parseInt(meta[2]));
+                    }
+                    List<LatLngZ> expectedLatLngZs = extractLatLngZ(splitBySemicolon[1], thirdDimension != ABSENT);
+                    final int precision = Integer.parseInt(meta[0]);
+                    final int thirdDimPrecision = meta.length > 1 ? Integer.parseInt(meta[1]) : 0;
+
+                    expectedResults.add(new ParsedDecodedLine(expectedLatLngZs, precision, thirdDimPrecision, thirdDimension));
+                    lineNumber++;
+                } catch (Exception e) {
+                    System.err.format("File " + filePath + " line " + lineNumber + " failed to parse: %s", e);
+                }
+            }
+        }
+        return expectedResults;
+    }
+
+    private static class ParsedDecodedLine {
+
+        public final int precision;
+        public final int thirdDimePrecision;
+        public final ThirdDimension thirdDimension;
+        public final List<LatLngZ> latLngZs;
+
+        public ParsedDecodedLine(List<LatLngZ> expectedLatLngZs, int precision, int thirdDimePrecision, ThirdDimension expectedDimension) {
+
+            this.precision = precision;
+            this.thirdDimePrecision = thirdDimePrecision;
+            this.thirdDimension = expectedDimension;
+            this.latLngZs = expectedLatLngZs;
+        }
+    }
+
+    private static List<LatLngZ> extractLatLngZ(String s, boolean hasThirdDimension) {
+
+        List<LatLngZ> latLngZs = new ArrayList<>();
+        // s.substring gets rid of [ and ]
+        String[] coordinates = s.substring(1, s.length() - 1).split(",");
+        for (int itr = 0; itr < coordinates.length && !isNullOrEmpty(coordinates[itr]); ) {
+            double lat = Double.parseDouble(coordinates[itr++]);
+            double lng = Double.parseDouble(coordinates[itr++]);
+            double z = 0;
+            if (hasThirdDimension) {
+                z = Double.parseDouble(coordinates[itr++]);
+            }
+            latLngZs.add(new LatLngZ(lat, lng, z));
+        }
+        return latLngZs;
+    }
+
+    public static boolean isNullOrEmpty(String str) {
+        return str == null || str.isEmpty();
+    }
+
+    private static void assertEquals(Object lhs, Object rhs) {
+        if (lhs != rhs) {
+            if (!lhs.equals(rhs)) {
+                throw new RuntimeException("Assert failed, " + lhs + " != " + rhs);
+            }
+        }
+    }
+
+    private static void assertTrue(boolean value) {
+        if (!value) {
+            throw new RuntimeException("Assert failed");
+        }
+    }
+
+    private static <T extends Throwable> void assertThrows(Class<T> expectedType, Runnable runnable) {
+        try {
+            runnable.run();
+        }
+        catch (Throwable actualException) {
+            if (!expectedType.isInstance(actualException)) {
+                throw new RuntimeException("Assert failed, Invalid exception found!");
+            }
+            return;
+        }
+        throw new RuntimeException("Assert failed, No exception found!");
+    }
+
+    public static void main(String[] args) throws IOException {
+        final int DEFAULT_LINE_LENGTH = 1000;
+        int lineLength = DEFAULT_LINE_LENGTH;
+        if (args.length > 0) {
+            lineLength = Integer.parseInt(args[0]);
+        }
+
+        PolylineEncoderDecoderTest test = new PolylineEncoderDecoderTest();
+        test.testInvalidCoordinates();
+        test.testInvalidThirdDimension();
+        test.testConvertValue();
+        test.testSimpleLatLngEncoding();
+        test.testComplexLatLngEncoding();
+        test.testLatLngZEncode();
+        test.testPrimitiveEncoding();
+        test.testSimplifiedEncoding();
+        test.testConcatAndSlice();
+        test.testTranscoding();
+        test.testByteEncoding();
+        test.testReusableEncoder();
+        test.testResumableEncoder();
+        test.testStreamingEncoder();
+        test.encodingSmokeTest();
+
+        //Decode test
+        test.testInvalidEncoderInput();
+        test.testThirdDimension();
+        test.testDecodeConvertValue();
+        test.testSimpleLatLngDecoding();
+        test.testComplexLatLngDecoding();
+        test.testLatLngZDecode();
+        test.testBufferDecoding();
+        test.testByteDecoding();
+        test.testDecodingErrors();
+        test.testReusableDecoder();
+        test.testLazyDecoding();
+        test.testBatchDecoding();
+        test.testParallelDecoding();
+        test.testIndexedDecoding();
+        test.testCachingDecoder();
+        test.testMetrics();
+        test.testBinaryFormat();
+        test.testInspect();
+        test.testValidation();
+        test.testScaledValues();
+        test.testGeometry();
+        test.decodingSmokeTest();
+
+        test.testVeryLongLine(lineLength);
+    }
+}